@@ -0,0 +1,64 @@
+package com.bank.authentication_service.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt at the strength the service uses (the encoder's default, 10), directly and through
+ * the bounded hashing pool
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    private BCryptPasswordEncoder bcrypt;
+    private BoundedPasswordEncoder bounded;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bcrypt = new BCryptPasswordEncoder();
+        bounded = new BoundedPasswordEncoder(bcrypt, Runtime.getRuntime().availableProcessors(), 64,
+                Duration.ofSeconds(30), 2, new SimpleMeterRegistry());
+        hash = bcrypt.encode("correct horse battery staple");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bounded.destroy();
+    }
+
+    @Benchmark
+    public String encode() {
+        return bcrypt.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return bcrypt.matches("correct horse battery staple", hash);
+    }
+
+    @Benchmark
+    public boolean matchesOnBoundedPool() {
+        return bounded.matches("correct horse battery staple", hash);
+    }
+}
@@ -0,0 +1,98 @@
+package com.bank.authentication_service.services;
+
+import com.bank.authentication_service.repositories.RefreshTokenRepository;
+import com.bank.authentication_service.repositories.UserRepository;
+import com.bank.authentication_service.utils.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * CPU spent renewing a session: a password login (BCrypt comparison plus signature) against
+ * a refresh (token hash and index lookup plus signature). The database is stubbed out, so
+ * only the work done in the service itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionRenewalBenchmark {
+
+    private JwtUtil jwtUtil;
+    private BCryptPasswordEncoder passwordEncoder;
+    private RefreshTokenService refreshTokenService;
+    private String hash;
+    private String refreshToken;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "algorithm", "EdDSA");
+        ReflectionTestUtils.setField(jwtUtil, "privateKeyResource", pem("PRIVATE", keyPair.getPrivate().getEncoded()));
+        ReflectionTestUtils.setField(jwtUtil, "publicKeyResource", pem("PUBLIC", keyPair.getPublic().getEncoded()));
+        ReflectionTestUtils.setField(jwtUtil, "retiredPublicKeys", List.of());
+        ReflectionTestUtils.setField(jwtUtil, "expirationTime", TimeUnit.HOURS.toMillis(1));
+        jwtUtil.init();
+
+        passwordEncoder = new BCryptPasswordEncoder();
+        hash = passwordEncoder.encode("correct horse battery staple");
+
+        RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+        when(repository.markRotated(anyString(), any())).thenReturn(1);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.existsById(42L)).thenReturn(true);
+        refreshTokenService = new RefreshTokenService(repository, userRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), Duration.ofDays(30), 100_000);
+        refreshToken = refreshTokenService.issue(42L, "alice", "CLIENT");
+    }
+
+    @Benchmark
+    public String login() {
+        if (!passwordEncoder.matches("correct horse battery staple", hash)) {
+            throw new IllegalStateException();
+        }
+        return jwtUtil.generateToken(42L, "alice", "CLIENT");
+    }
+
+    @Benchmark
+    public String refresh() {
+        RefreshTokenService.IssuedToken issued = refreshTokenService.rotate(refreshToken);
+        refreshToken = issued.token();
+        return jwtUtil.generateToken(issued.userId(), issued.username(), issued.role());
+    }
+
+    private static ByteArrayResource pem(String type, byte[] encoded) {
+        String pem = "-----BEGIN " + type + " KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(encoded)
+                + "\n-----END " + type + " KEY-----\n";
+        return new ByteArrayResource(pem.getBytes());
+    }
+}
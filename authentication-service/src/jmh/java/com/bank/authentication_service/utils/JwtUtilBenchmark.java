@@ -0,0 +1,89 @@
+package com.bank.authentication_service.utils;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing and verifying an access token with each supported algorithm
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        KeyPair keyPair = keyPair(algorithm);
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "algorithm", algorithm);
+        ReflectionTestUtils.setField(jwtUtil, "privateKeyResource", pem("PRIVATE", keyPair.getPrivate()));
+        ReflectionTestUtils.setField(jwtUtil, "publicKeyResource", pem("PUBLIC", keyPair.getPublic()));
+        ReflectionTestUtils.setField(jwtUtil, "retiredPublicKeys", List.of());
+        ReflectionTestUtils.setField(jwtUtil, "expirationTime", TimeUnit.HOURS.toMillis(1));
+        jwtUtil.init();
+        token = jwtUtil.generateToken(42L, "alice", "CLIENT");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(42L, "alice", "CLIENT");
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return jwtUtil.parse(token);
+    }
+
+    private static KeyPair keyPair(String algorithm) throws Exception {
+        return switch (algorithm) {
+            case "ES256" -> {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                yield generator.generateKeyPair();
+            }
+            case "EdDSA" -> KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+            default -> {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                yield generator.generateKeyPair();
+            }
+        };
+    }
+
+    private static ByteArrayResource pem(String type, Key key) {
+        String pem = "-----BEGIN " + type + " KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(key.getEncoded())
+                + "\n-----END " + type + " KEY-----\n";
+        return new ByteArrayResource(pem.getBytes());
+    }
+}
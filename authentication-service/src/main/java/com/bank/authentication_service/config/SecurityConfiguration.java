@@ -1,5 +1,10 @@
 package com.bank.authentication_service.config;
+import com.bank.authentication_service.security.BoundedPasswordEncoder;
+import com.bank.authentication_service.security.CaffeineUserCache;
+import com.bank.authentication_service.security.ServiceTokenFilter;
 import com.bank.authentication_service.security.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,25 +14,53 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.cache.NullUserCache;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.time.Duration;
 
 @Configuration
 public class SecurityConfiguration {
 
 
     private final UserDetailsServiceImpl userDetailsService;
+    private final ServiceTokenFilter serviceTokenFilter;
 
 
-    public SecurityConfiguration( UserDetailsServiceImpl userDetailsService) {
+    public SecurityConfiguration( UserDetailsServiceImpl userDetailsService, ServiceTokenFilter serviceTokenFilter) {
         this.userDetailsService = userDetailsService;
+        this.serviceTokenFilter = serviceTokenFilter;
+    }
+
+
+    /**
+     * BCrypt on its own bounded pool, so login storms cannot occupy every request thread
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${auth.password-hashing.threads:0}") int threads,
+                                           @Value("${auth.password-hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${auth.password-hashing.timeout:PT5S}") Duration timeout,
+                                           @Value("${auth.password-hashing.retry-after:2}") long retryAfterSeconds,
+                                           MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity, timeout, retryAfterSeconds, meterRegistry);
     }
 
 
+    /**
+     * Loaded users kept for repeat logins; invalidated when a user is registered or deleted here,
+     * and at login once the user shows up as revoked by another instance
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public UserCache userCache(@Value("${auth.user-cache.enabled:true}") boolean enabled,
+                               @Value("${auth.user-cache.max-size:10000}") long maxSize,
+                               @Value("${auth.user-cache.time-to-live:PT10M}") Duration timeToLive,
+                               MeterRegistry meterRegistry) {
+        return enabled ? new CaffeineUserCache(maxSize, timeToLive, meterRegistry) : new NullUserCache();
     }
 
 
@@ -38,26 +71,31 @@ public class SecurityConfiguration {
 
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder, UserCache userCache) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserCache(userCache);
         return provider;
     }
 
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, AuthenticationProvider authenticationProvider) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/auth/login", "/auth/refresh", "/auth/validate","/auth/register","/auth/deleteUser/*").permitAll()
+                        .requestMatchers("/auth/login", "/auth/refresh", "/auth/validate","/auth/register","/auth/deleteUser/*", "/auth/.well-known/jwks.json",
+                                "/auth/logout").permitAll()
+                        .requestMatchers("/auth/revocations", "/auth/register/batch").hasAuthority(ServiceTokenFilter.ROLE)
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
-                .authenticationProvider(authenticationProvider());
+                .authenticationProvider(authenticationProvider)
+                .addFilterBefore(serviceTokenFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -2,21 +2,39 @@ package com.bank.authentication_service.controllers;
 
 import com.bank.authentication_service.dtos.LoginRequest;
 import com.bank.authentication_service.dtos.LoginResponse;
+import com.bank.authentication_service.dtos.RefreshRequest;
+import com.bank.authentication_service.dtos.RegistrationRequest;
+import com.bank.authentication_service.dtos.RegistrationResult;
+import com.bank.authentication_service.model.Revocation;
 import com.bank.authentication_service.model.User;
 import com.bank.authentication_service.services.AuthenticationService;
+import com.bank.authentication_service.services.BatchRegistrationService;
+import com.bank.authentication_service.services.RevocationService;
+import com.bank.authentication_service.utils.JwtUtil;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/auth")
 public class AuthenticationController {
 
 
     private final AuthenticationService authService;
+    private final JwtUtil jwtUtil;
+    private final RevocationService revocationService;
+    private final BatchRegistrationService batchRegistrationService;
 
 
-    public AuthenticationController(AuthenticationService authService) {
+    public AuthenticationController(AuthenticationService authService, JwtUtil jwtUtil, RevocationService revocationService,
+                                    BatchRegistrationService batchRegistrationService) {
         this.authService = authService;
+        this.jwtUtil = jwtUtil;
+        this.revocationService = revocationService;
+        this.batchRegistrationService = batchRegistrationService;
     }
 
 
@@ -27,11 +45,52 @@ public class AuthenticationController {
     }
 
 
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@RequestBody RefreshRequest refreshRequest) {
+        return ResponseEntity.ok(authService.refresh(refreshRequest));
+    }
+
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authorization,
+                                    @RequestBody(required = false) RefreshRequest refreshRequest) {
+        if (!authorization.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized: missing bearer token");
+        }
+        return ResponseEntity.ok(authService.logout(authorization.substring(7), refreshRequest));
+    }
+
+
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody User user) {
       return ResponseEntity.ok(authService.registerUser(user));
     }
 
+    /**
+     * Register many users with BCrypt-hashed passwords in one call; the response has one result per submitted user, in order
+     */
+    @PostMapping("/register/batch")
+    public ResponseEntity<List<RegistrationResult>> registerUsers(@RequestBody List<RegistrationRequest> requests) {
+        return ResponseEntity.ok(batchRegistrationService.registerBatch(requests));
+    }
+
+    /**
+     * Public keys for verifying our tokens, fetched and cached by the other services
+     */
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks() {
+        return ResponseEntity.ok(jwtUtil.getJwks());
+    }
+
+    /**
+     * Revocations after the given id, polled by the other services to reject revoked tokens locally
+     */
+    @GetMapping("/revocations")
+    public ResponseEntity<List<Revocation>> revocations(@RequestParam(defaultValue = "0") long after,
+                                                        @RequestParam(defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(revocationService.feed(after, limit));
+    }
+
     @DeleteMapping("/deleteUser/{userId}")
     public ResponseEntity<?> deleteUser(@PathVariable String userId) {
         return ResponseEntity.ok(authService.deleteUser(userId));
@@ -12,4 +12,5 @@ import lombok.Setter;
 public class LoginResponse {
     private String accessToken;
     private String tokenType;
-}
\ No newline at end of file
+    private String refreshToken;
+}
@@ -0,0 +1,12 @@
+package com.bank.authentication_service.dtos;
+
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RefreshRequest {
+    private String refreshToken;
+
+}
@@ -0,0 +1,21 @@
+package com.bank.authentication_service.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A user to register through the batch endpoint; the sender hashes the password with BCrypt
+ * and only the hash is sent and stored
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RegistrationRequest {
+    private Long id;
+    private String username;
+    private String passwordHash;
+    private String role;
+}
@@ -0,0 +1,27 @@
+package com.bank.authentication_service.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RegistrationResult {
+    private Long id;
+    private String username;
+    private boolean success;
+    private String error;
+
+    public static RegistrationResult succeeded(RegistrationRequest user) {
+        return new RegistrationResult(user.getId(), user.getUsername(), true, null);
+    }
+
+    public static RegistrationResult failed(RegistrationRequest user, String error) {
+        return user == null
+                ? new RegistrationResult(null, null, false, error)
+                : new RegistrationResult(user.getId(), user.getUsername(), false, error);
+    }
+}
@@ -0,0 +1,11 @@
+package com.bank.authentication_service.exception;
+
+/**
+ * Refresh token is unknown, expired, already used or revoked; the client has to log in again
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    public InvalidRefreshTokenException() {
+        super("Refresh token is invalid or expired.");
+    }
+}
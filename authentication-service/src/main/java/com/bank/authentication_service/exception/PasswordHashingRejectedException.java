@@ -0,0 +1,17 @@
+package com.bank.authentication_service.exception;
+
+import lombok.Getter;
+
+/**
+ * Password hashing is saturated; the client should retry after the given number of seconds
+ */
+@Getter
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(long retryAfterSeconds) {
+        super("Too many logins in progress, please retry shortly.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
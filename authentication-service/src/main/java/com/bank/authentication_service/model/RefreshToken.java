@@ -0,0 +1,84 @@
+package com.bank.authentication_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Issued refresh token, stored by the SHA-256 of its value so a leaked table cannot be replayed.
+ * <p>
+ * Every refresh replaces the token with a new one of the same family. A rotated token that
+ * is presented again means it was copied, and the whole family is revoked.
+ * Username and role are copied here so a refresh never has to load the user.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_user_id", columnList = "userId"),
+        @Index(name = "idx_refresh_tokens_family_id", columnList = "familyId"),
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expiresAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken implements Persistable<String> {
+
+    @Id
+    @Column(length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false, length = 64)
+    private String familyId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private String role;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime rotatedAt;
+
+    /**
+     * The hash is assigned, so without this flag saving would first select to decide between insert and merge
+     */
+    @Transient
+    private boolean stored;
+
+
+    public RefreshToken(String tokenHash, String familyId, Long userId, String username, String role, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String getId() {
+        return tokenHash;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        this.stored = true;
+    }
+
+}
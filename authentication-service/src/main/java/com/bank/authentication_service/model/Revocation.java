@@ -0,0 +1,48 @@
+package com.bank.authentication_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A revoked user or access token ({@code jti}), published to the verifying services as a feed
+ * ordered by id. An entry only matters until every token it covers has expired.
+ */
+@Entity
+@Table(name = "revocations", indexes =
+        @Index(name = "idx_revocations_expires_at", columnList = "expiresAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Revocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RevocationType type;
+
+    /**
+     * User id or token id, depending on the type
+     */
+    @Column(nullable = false, length = 64)
+    private String subject;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+
+    public Revocation(RevocationType type, String subject, Instant expiresAt) {
+        this.type = type;
+        this.subject = subject;
+        this.expiresAt = expiresAt;
+    }
+
+}
@@ -0,0 +1,6 @@
+package com.bank.authentication_service.model;
+
+public enum RevocationType {
+    USER,
+    TOKEN
+}
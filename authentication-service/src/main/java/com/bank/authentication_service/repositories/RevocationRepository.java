@@ -0,0 +1,27 @@
+package com.bank.authentication_service.repositories;
+
+
+import com.bank.authentication_service.model.Revocation;
+import com.bank.authentication_service.model.RevocationType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.Instant;
+import java.util.List;
+
+
+@Repository
+public interface RevocationRepository extends JpaRepository<Revocation, Long> {
+
+    List<Revocation> findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(Long id, Instant now, Limit limit);
+
+    @Query("SELECT r.subject FROM Revocation r WHERE r.type = :type AND r.expiresAt > :now")
+    List<String> findUnexpiredSubjects(@Param("type") RevocationType type, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM Revocation r WHERE r.expiresAt < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") Instant cutoff);
+}
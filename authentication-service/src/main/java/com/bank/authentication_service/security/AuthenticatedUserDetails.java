@@ -0,0 +1,30 @@
+package com.bank.authentication_service.security;
+
+import lombok.Getter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collections;
+
+/**
+ * Spring Security user that also carries the id and role needed for the token,
+ * so a login does not have to load the user a second time
+ */
+@Getter
+public class AuthenticatedUserDetails extends org.springframework.security.core.userdetails.User {
+
+    private final Long userId;
+    private final String role;
+
+    public AuthenticatedUserDetails(Long userId, String username, String password, String role) {
+        super(username, password, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
+        this.userId = userId;
+        this.role = role;
+    }
+
+    /**
+     * Fresh instance with the same fields; the authentication erases the password of the one it returns
+     */
+    public AuthenticatedUserDetails copy() {
+        return new AuthenticatedUserDetails(userId, getUsername(), getPassword(), role);
+    }
+}
@@ -0,0 +1,128 @@
+package com.bank.authentication_service.security;
+
+import com.bank.authentication_service.exception.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a dedicated pool with one thread per core and a bounded queue.
+ * <p>
+ * Hashing is deliberately expensive; on request threads a login storm would use up every
+ * one of them and stall cheap endpoints as well. Here at most {@code threads} hashes run at
+ * once, the queue absorbs short bursts, and once it is full the caller gets a
+ * {@link PasswordHashingRejectedException} right away, which is answered with 503 and Retry-After.
+ * <p>
+ * The caller waits for its hash. The timeout bounds only the time spent queued: a hash that has
+ * not started by then is taken off the queue and the caller is rejected the same way, while one
+ * that has started is finished for its caller. A running BCrypt cannot be interrupted, so the
+ * pool never hashes for a caller that was already turned away.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final long retryAfterSeconds;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration timeout,
+                                  long retryAfterSeconds, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.timeout = timeout;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("password.hashing").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing").tag("operation", "matches").register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected").register(meterRegistry);
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodeTimer.recordCallable(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matchesTimer.recordCallable(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        // set by whichever comes first: a pool thread starting the hash, or the caller giving up on it
+        AtomicBoolean taken = new AtomicBoolean();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> taken.compareAndSet(false, true) ? task.call() : null);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException(retryAfterSeconds);
+        }
+        try {
+            try {
+                return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (abandon(future, taken)) {
+                    rejected.increment();
+                    throw new PasswordHashingRejectedException(retryAfterSeconds);
+                }
+                // already hashing; it ends within one hash
+                return future.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            abandon(future, taken);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException(retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Take a hash that has not started off the queue; returns false if a thread has it already
+     */
+    private boolean abandon(Future<?> future, AtomicBoolean taken) {
+        if (!taken.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.remove((Runnable) future);
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package com.bank.authentication_service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+
+/**
+ * Bounded cache of loaded users for the login path.
+ * <p>
+ * Only {@link AuthenticatedUserDetails} are kept, and always as copies: the provider hands the
+ * cached instance out as the principal and its password is erased after authentication.
+ * A login whose password does not match the cached hash is retried against the database
+ * by the provider, so a stale entry can delay but never wrongly grant access. Only this
+ * instance evicts a deleted user; the login checks the revoked users for the others.
+ */
+public class CaffeineUserCache implements UserCache {
+
+    private final Cache<String, AuthenticatedUserDetails> users;
+
+    public CaffeineUserCache(long maxSize, Duration timeToLive, MeterRegistry meterRegistry) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "auth.users");
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        AuthenticatedUserDetails user = users.getIfPresent(username);
+        return user == null ? null : user.copy();
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (user instanceof AuthenticatedUserDetails details && details.getPassword() != null) {
+            users.put(details.getUsername(), details.copy());
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        users.invalidate(username);
+    }
+}
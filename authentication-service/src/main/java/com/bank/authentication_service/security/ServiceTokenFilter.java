@@ -0,0 +1,72 @@
+package com.bank.authentication_service.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Authenticates the other services by a shared bearer token, with the role {@code SERVICE}.
+ * <p>
+ * Tokens are configured as {@code auth.service-tokens}, one or more per calling service so a
+ * token can be rotated by adding the new one first. Requests with another or no token are
+ * passed on unauthenticated; with no tokens configured no caller gets the role.
+ */
+@Component
+public class ServiceTokenFilter extends OncePerRequestFilter {
+
+    public static final String ROLE = "ROLE_SERVICE";
+
+    private final List<byte[]> tokenDigests;
+
+    public ServiceTokenFilter(@Value("${auth.service-tokens:}") List<String> tokens) {
+        this.tokenDigests = tokens.stream()
+                .map(String::trim)
+                .filter(token -> !token.isEmpty())
+                .map(ServiceTokenFilter::digest)
+                .toList();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ") && isServiceToken(header.substring(7))) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "service", null, List.of(new SimpleGrantedAuthority(ROLE))));
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Compares digests, which have the same length for every token, so the time taken tells nothing about the token
+     */
+    private boolean isServiceToken(String token) {
+        byte[] presented = digest(token);
+        boolean matched = false;
+        for (byte[] digest : tokenDigests) {
+            matched |= MessageDigest.isEqual(digest, presented);
+        }
+        return matched;
+    }
+
+    private static byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
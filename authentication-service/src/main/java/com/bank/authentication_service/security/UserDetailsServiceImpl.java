@@ -2,14 +2,11 @@ package com.bank.authentication_service.security;
 
 import com.bank.authentication_service.model.User;
 import com.bank.authentication_service.repositories.UserRepository;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 @Service
 
 public class UserDetailsServiceImpl implements UserDetailsService {
@@ -28,10 +25,6 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getUsername())
-                .password(user.getPassword())
-                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole())))
-                .build();
+        return new AuthenticatedUserDetails(user.getId(), user.getUsername(), user.getPassword(), user.getRole());
     }
 }
\ No newline at end of file
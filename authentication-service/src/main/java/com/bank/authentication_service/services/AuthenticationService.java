@@ -2,14 +2,20 @@ package com.bank.authentication_service.services;
 
 import com.bank.authentication_service.dtos.LoginRequest;
 import com.bank.authentication_service.dtos.LoginResponse;
+import com.bank.authentication_service.dtos.RefreshRequest;
 import com.bank.authentication_service.model.User;
 import com.bank.authentication_service.repositories.UserRepository;
+import com.bank.authentication_service.security.AuthenticatedUserDetails;
 import com.bank.authentication_service.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -22,44 +28,102 @@ public class AuthenticationService {
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private final RefreshTokenService refreshTokenService;
+    private final RevocationService revocationService;
 
-    public AuthenticationService(AuthenticationManager authenticationManager, JwtUtil jwtUtil, UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public AuthenticationService(AuthenticationManager authenticationManager, JwtUtil jwtUtil, UserRepository userRepository,
+                                 PasswordEncoder passwordEncoder, UserCache userCache, RefreshTokenService refreshTokenService,
+                                 RevocationService revocationService) {
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userCache = userCache;
+        this.refreshTokenService = refreshTokenService;
+        this.revocationService = revocationService;
     }
 
     public LoginResponse authenticate(LoginRequest loginRequest) {
         logger.info("Authenticating user: {}", loginRequest.getUsername());
 
-        authenticationManager.authenticate(
+        AuthenticatedUserDetails user = authenticatedUser(loginRequest);
+        if (revocationService.isUserRevoked(user.getUserId())) {
+            // a cached user deleted on another instance; the username may have been taken since
+            userCache.removeUserFromCache(user.getUsername());
+            user = authenticatedUser(loginRequest);
+            if (revocationService.isUserRevoked(user.getUserId())) {
+                throw new BadCredentialsException("Bad credentials");
+            }
+        }
+
+        String accessToken = jwtUtil.generateToken(user.getUserId(), user.getUsername(), user.getRole());
+        String refreshToken = refreshTokenService.issue(user.getUserId(), user.getUsername(), user.getRole());
+
+        logger.info("User {} authenticated successfully. Token generated.", user.getUsername());
+        return new LoginResponse(accessToken, "Bearer", refreshToken);
+    }
+
+    /**
+     * The principal was loaded by the authentication itself and already carries id and role
+     */
+    private AuthenticatedUserDetails authenticatedUser(LoginRequest loginRequest) {
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
         );
+        return (AuthenticatedUserDetails) authentication.getPrincipal();
+    }
 
-        User user = userRepository.findByUsername(loginRequest.getUsername())
-                .orElseThrow(() -> {
-                    logger.error("User not found: {}", loginRequest.getUsername());
-                    return new UsernameNotFoundException("User not found");
-                });
+    /**
+     * New access token for a refresh token, without the password; the refresh token is rotated
+     */
+    public LoginResponse refresh(RefreshRequest refreshRequest) {
+        RefreshTokenService.IssuedToken issued = refreshTokenService.rotate(refreshRequest.getRefreshToken());
 
-        String accessToken = jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole());
+        String accessToken = jwtUtil.generateToken(issued.userId(), issued.username(), issued.role());
 
-        logger.info("User {} authenticated successfully. Token generated.", user.getUsername());
-        return new LoginResponse(accessToken, "Bearer");
+        logger.info("User {} refreshed their token.", issued.username());
+        return new LoginResponse(accessToken, "Bearer", issued.token());
+    }
+
+    /**
+     * Revoke the presented access token and, if given, the refresh token family
+     */
+    public String logout(String accessToken, RefreshRequest refreshRequest) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parse(accessToken);
+        } catch (ExpiredJwtException e) {
+            // an expired token needs no revocation
+            claims = e.getClaims();
+        }
+        if (claims.getId() != null) {
+            revocationService.revokeToken(claims.getId(), claims.getExpiration().toInstant());
+        }
+        if (refreshRequest != null) {
+            refreshTokenService.revoke(refreshRequest.getRefreshToken());
+        }
+        logger.info("User {} logged out.", claims.getSubject());
+        return "Logged out successfully.";
     }
 
     public String registerUser(User user) {
         logger.info("Registering new user: {}", user.getUsername());
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         userRepository.save(user);
+        userCache.removeUserFromCache(user.getUsername());
         logger.info("User {} registered successfully.", user.getUsername());
         return "User registered successfully in auth-service.";
     }
 
     public String deleteUser(String userId) {
         logger.info("Deleting user with ID: {}", userId);
-        userRepository.deleteById(Long.parseLong(userId));
+        userRepository.findById(Long.parseLong(userId)).ifPresent(user -> {
+            userRepository.delete(user);
+            userCache.removeUserFromCache(user.getUsername());
+        });
+        refreshTokenService.revokeUser(Long.parseLong(userId));
+        revocationService.revokeUser(Long.parseLong(userId));
         logger.info("User with ID {} deleted successfully.", userId);
         return "User deleted successfully in auth-service.";
     }
@@ -0,0 +1,159 @@
+package com.bank.authentication_service.services;
+
+import com.bank.authentication_service.dtos.RegistrationRequest;
+import com.bank.authentication_service.dtos.RegistrationResult;
+import com.bank.authentication_service.model.User;
+import com.bank.authentication_service.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Registers many users in one call, for onboarding from user-management-service.
+ * <p>
+ * Passwords arrive hashed with BCrypt by the sender and are stored as sent, so no plain
+ * password is kept anywhere on the way and onboarding takes no hashing capacity from logins.
+ * Users are handled in chunks. Each chunk checks usernames and ids against the database
+ * with one query each and inserts the credentials with one JDBC batch. A rejected user does
+ * not affect the others; every user gets its own result, in request order.
+ * <p>
+ * A user that is already registered with the same id and username is reported as
+ * registered, so a sender may safely repeat a batch whose response it did not receive.
+ */
+@Service
+public class BatchRegistrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRegistrationService.class);
+    private static final String INSERT_USER = "INSERT INTO users (id, username, password, role) VALUES (?, ?, ?, ?)";
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\A\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}\\z");
+
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public BatchRegistrationService(UserRepository userRepository, UserCache userCache,
+                                    JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                    @Value("${auth.registration.chunk-size:500}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<RegistrationResult> registerBatch(List<RegistrationRequest> users) {
+        logger.info("Registering batch of {} users", users.size());
+
+        RegistrationResult[] results = new RegistrationResult[users.size()];
+        for (int from = 0; from < users.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, users.size());
+            registerChunk(users.subList(from, to), from, results);
+        }
+
+        long succeeded = Arrays.stream(results).filter(RegistrationResult::isSuccess).count();
+        logger.info("Batch registration finished: {} of {} users registered", succeeded, users.size());
+        return Arrays.asList(results);
+    }
+
+    private void registerChunk(List<RegistrationRequest> chunk, int from, RegistrationResult[] results) {
+        Set<String> takenUsernames = new HashSet<>(userRepository.findExistingUsernames(chunk.stream()
+                .filter(Objects::nonNull).map(RegistrationRequest::getUsername).filter(Objects::nonNull).collect(Collectors.toSet())));
+        Map<Long, String> registered = userRepository.findAllById(chunk.stream()
+                        .filter(Objects::nonNull).map(RegistrationRequest::getId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(User::getId, User::getUsername));
+        Set<Long> takenIds = new HashSet<>(registered.keySet());
+
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            RegistrationRequest user = chunk.get(i);
+            String error = validate(user);
+            if (error == null && user.getUsername().equals(registered.get(user.getId()))) {
+                results[from + i] = RegistrationResult.succeeded(user);
+                continue;
+            }
+            if (error == null && takenUsernames.contains(user.getUsername())) {
+                error = "Username already exists.";
+            } else if (error == null && takenIds.contains(user.getId())) {
+                error = "User id already exists.";
+            }
+            if (error != null) {
+                results[from + i] = RegistrationResult.failed(user, error);
+                continue;
+            }
+            // later duplicates within the same request are rejected as well
+            takenUsernames.add(user.getUsername());
+            takenIds.add(user.getId());
+            accepted.add(i);
+        }
+
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Object[]> rows = accepted.stream().map(i -> row(chunk.get(i))).toList();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_USER, rows));
+            accepted.forEach(i -> results[from + i] = RegistrationResult.succeeded(chunk.get(i)));
+        } catch (DataAccessException e) {
+            // most likely a concurrent registration of the same name; one insert per user tells which
+            logger.warn("Batch insert of {} users failed, inserting them one by one: {}", accepted.size(), e.getMessage());
+            for (int i : accepted) {
+                results[from + i] = insertOne(chunk.get(i));
+            }
+        }
+        accepted.forEach(i -> userCache.removeUserFromCache(chunk.get(i).getUsername()));
+    }
+
+    private RegistrationResult insertOne(RegistrationRequest user) {
+        try {
+            jdbcTemplate.update(INSERT_USER, row(user));
+            return RegistrationResult.succeeded(user);
+        } catch (DuplicateKeyException e) {
+            return RegistrationResult.failed(user, "Username or user id already exists.");
+        } catch (DataAccessException e) {
+            return RegistrationResult.failed(user, "Registration failed: " + e.getMessage());
+        }
+    }
+
+    private static String validate(RegistrationRequest user) {
+        if (user == null || user.getId() == null) {
+            return "User id is required.";
+        }
+        if (user.getUsername() == null || user.getUsername().isBlank()) {
+            return "Username is required.";
+        }
+        if (user.getPasswordHash() == null || user.getPasswordHash().isEmpty()) {
+            return "Password hash is required.";
+        }
+        if (!BCRYPT_HASH.matcher(user.getPasswordHash()).matches()) {
+            return "Password hash is not a BCrypt hash.";
+        }
+        if (user.getRole() == null || user.getRole().isBlank()) {
+            return "Role is required.";
+        }
+        return null;
+    }
+
+    private static Object[] row(RegistrationRequest user) {
+        return new Object[]{user.getId(), user.getUsername(), user.getPasswordHash(), user.getRole()};
+    }
+}
@@ -0,0 +1,184 @@
+package com.bank.authentication_service.services;
+
+import com.bank.authentication_service.exception.InvalidRefreshTokenException;
+import com.bank.authentication_service.model.RefreshToken;
+import com.bank.authentication_service.repositories.RefreshTokenRepository;
+import com.bank.authentication_service.repositories.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Opaque, rotating refresh tokens.
+ * <p>
+ * A token is 256 random bits; only its SHA-256 is stored. Recently issued tokens are also
+ * kept in a bounded in-memory index, so a refresh normally skips the select and costs one
+ * conditional update, one insert and a signature instead of a BCrypt comparison. The
+ * conditional update is what decides a rotation, so the index may be stale without
+ * letting a token be used twice, also across instances.
+ * <p>
+ * A rotation is only handed out once the user is found to still exist. Deleting a user
+ * removes the user before its tokens, so a successor saved by a rotation racing the delete
+ * is either removed with them or refused by that check.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration expiration;
+    private final Cache<String, RefreshToken> index;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${auth.refresh-token.expiration:P30D}") Duration expiration,
+                               @Value("${auth.refresh-token.index-max-size:100000}") long indexMaxSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.expiration = expiration;
+        this.index = Caffeine.newBuilder()
+                .maximumSize(indexMaxSize)
+                .expireAfterWrite(expiration)
+                .build();
+    }
+
+    /**
+     * Start a new token family at login
+     */
+    public String issue(Long userId, String username, String role) {
+        String token = newToken();
+        String tokenHash = hash(token);
+        RefreshToken refreshToken = new RefreshToken(tokenHash, tokenHash, userId, username, role, LocalDateTime.now().plus(expiration));
+        refreshTokenRepository.save(refreshToken);
+        index.put(tokenHash, refreshToken);
+        return token;
+    }
+
+    /**
+     * Exchange a refresh token for its successor; presenting an already rotated token revokes the family
+     */
+    public IssuedToken rotate(String token) {
+        if (token == null || token.isBlank()) {
+            throw new InvalidRefreshTokenException();
+        }
+        String tokenHash = hash(token);
+        RefreshToken current = index.getIfPresent(tokenHash);
+        if (current == null) {
+            current = refreshTokenRepository.findById(tokenHash).orElseThrow(InvalidRefreshTokenException::new);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (current.getRotatedAt() != null) {
+            logger.warn("Refresh token of family {} was used twice, revoking the family", current.getFamilyId());
+            revokeFamily(current.getFamilyId());
+            throw new InvalidRefreshTokenException();
+        }
+        if (!current.getExpiresAt().isAfter(now)) {
+            index.invalidate(tokenHash);
+            throw new InvalidRefreshTokenException();
+        }
+
+        String nextToken = newToken();
+        RefreshToken next = new RefreshToken(hash(nextToken), current.getFamilyId(), current.getUserId(),
+                current.getUsername(), current.getRole(), now.plus(expiration));
+        Boolean rotated = transactionTemplate.execute(status -> {
+            if (refreshTokenRepository.markRotated(tokenHash, now) == 0) {
+                return false;
+            }
+            refreshTokenRepository.save(next);
+            return true;
+        });
+        index.invalidate(tokenHash);
+
+        if (!Boolean.TRUE.equals(rotated)) {
+            // someone rotated it first, here or on another instance
+            logger.warn("Refresh token of family {} was used twice, revoking the family", current.getFamilyId());
+            revokeFamily(current.getFamilyId());
+            throw new InvalidRefreshTokenException();
+        }
+        if (!userRepository.existsById(next.getUserId())) {
+            logger.warn("Refresh token of family {} belongs to deleted user {}, revoking the family", next.getFamilyId(), next.getUserId());
+            revokeFamily(next.getFamilyId());
+            throw new InvalidRefreshTokenException();
+        }
+        index.put(next.getTokenHash(), next);
+        return new IssuedToken(nextToken, next.getUserId(), next.getUsername(), next.getRole());
+    }
+
+    /**
+     * Drop every refresh token of a user, e.g. when the user is deleted
+     */
+    public void revokeUser(Long userId) {
+        Integer revoked = transactionTemplate.execute(status -> refreshTokenRepository.deleteByUserId(userId));
+        index.asMap().values().removeIf(refreshToken -> refreshToken.getUserId().equals(userId));
+        logger.info("Revoked {} refresh tokens of user {}", revoked, userId);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh-token.purge-interval:PT1H}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(status -> refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now()));
+        logger.info("Purged {} expired refresh tokens", purged);
+    }
+
+    /**
+     * Drop the token and every other token of its family, e.g. at logout; unknown tokens are ignored
+     */
+    public void revoke(String token) {
+        if (token == null || token.isBlank()) {
+            return;
+        }
+        String tokenHash = hash(token);
+        RefreshToken current = index.getIfPresent(tokenHash);
+        if (current == null) {
+            current = refreshTokenRepository.findById(tokenHash).orElse(null);
+        }
+        if (current != null) {
+            revokeFamily(current.getFamilyId());
+        }
+    }
+
+    private void revokeFamily(String familyId) {
+        transactionTemplate.executeWithoutResult(status -> refreshTokenRepository.deleteByFamilyId(familyId));
+        index.asMap().values().removeIf(refreshToken -> refreshToken.getFamilyId().equals(familyId));
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * New refresh token together with the user it was issued for
+     */
+    public record IssuedToken(String token, Long userId, String username, String role) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.bank.authentication_service.services;
+
+import com.bank.authentication_service.model.Revocation;
+import com.bank.authentication_service.model.RevocationType;
+import com.bank.authentication_service.repositories.RevocationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Records revoked users and access tokens. Verifying services poll {@link #feed} and check
+ * tokens against a local copy, so revocation costs them no call per request.
+ * <p>
+ * Every instance also reloads the ids of the revoked users every few seconds, so a login
+ * served from its user cache is refused once the user was deleted on another instance. A user
+ * revocation lasts a token lifetime plus the cache time-to-live: a token issued from a stale
+ * entry before the reload expires while the entry still rejects it.
+ */
+@Service
+public class RevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationService.class);
+    private static final int MAX_FEED_PAGE = 10_000;
+
+    private final RevocationRepository revocationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration userRevocationLifetime;
+
+    private volatile Set<Long> revokedUsers = ConcurrentHashMap.newKeySet();
+
+    public RevocationService(RevocationRepository revocationRepository, TransactionTemplate transactionTemplate,
+                             @Value("${jwt.expiration}") long expirationTime,
+                             @Value("${auth.user-cache.time-to-live:PT10M}") Duration userCacheTimeToLive) {
+        this.revocationRepository = revocationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.userRevocationLifetime = Duration.ofMillis(expirationTime).plus(userCacheTimeToLive);
+    }
+
+    /**
+     * Reject every access token of the user that may still be in circulation
+     */
+    public void revokeUser(Long userId) {
+        revocationRepository.save(new Revocation(RevocationType.USER, String.valueOf(userId), Instant.now().plus(userRevocationLifetime)));
+        revokedUsers.add(userId);
+        logger.info("Revoked access tokens of user {}", userId);
+    }
+
+    /**
+     * Whether the user was revoked on any instance up to the last reload
+     */
+    public boolean isUserRevoked(Long userId) {
+        return revokedUsers.contains(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocations.refresh:PT5S}")
+    public void reloadRevokedUsers() {
+        try {
+            Set<Long> reloaded = ConcurrentHashMap.newKeySet();
+            revocationRepository.findUnexpiredSubjects(RevocationType.USER, Instant.now()).stream()
+                    .map(Long::valueOf)
+                    .collect(Collectors.toCollection(() -> reloaded));
+            revokedUsers = reloaded;
+        } catch (RuntimeException e) {
+            logger.warn("Could not reload revoked users, keeping the current ones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reject one access token until it expires anyway
+     */
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        if (expiresAt.isAfter(Instant.now())) {
+            revocationRepository.save(new Revocation(RevocationType.TOKEN, tokenId, expiresAt));
+        }
+    }
+
+    /**
+     * Unexpired revocations after the given id, oldest first. Ids are assigned before the
+     * insert commits, so a reader must re-read a window behind its last id to see late commits.
+     */
+    public List<Revocation> feed(long after, int limit) {
+        return revocationRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(after, Instant.now(),
+                Limit.of(Math.max(1, Math.min(limit, MAX_FEED_PAGE))));
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocations.purge-interval:PT1H}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(status -> revocationRepository.deleteExpiredBefore(Instant.now()));
+        logger.info("Purged {} expired revocations", purged);
+    }
+}
@@ -1,41 +1,114 @@
 package com.bank.authentication_service.utils;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PrivateJwk;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import java.io.InputStream;
+import java.security.Key;
 import java.security.KeyFactory;
+import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
+/**
+ * Signs access tokens and publishes the matching public keys as a JWKS.
+ * <p>
+ * The signing algorithm is configurable: RS256, ES256 (P-256) or EdDSA (Ed25519); ES256
+ * and EdDSA sign an order of magnitude faster than RS256. Every token carries the key's
+ * RFC 7638 thumbprint as {@code kid}. Public keys listed in {@code jwt.retired-public-keys}
+ * stay in the key set after a rotation, so tokens signed before it keep verifying until they expire.
+ */
 @Component
 public class JwtUtil {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+    private static final List<String> KEY_ALGORITHMS = List.of("RSA", "EC", "Ed25519");
+
     @Value("${jwt.private-key}")
     private Resource privateKeyResource;
 
+    @Value("${jwt.public-key}")
+    private Resource publicKeyResource;
+
+    @Value("${jwt.retired-public-keys:}")
+    private List<String> retiredPublicKeys = List.of();
+
+    @Value("${jwt.algorithm:RS256}")
+    private String algorithm = "RS256";
+
 
     @Value("${jwt.expiration}")
     private long expirationTime;
 
+    private SignatureAlgorithm signatureAlgorithm;
     private PrivateKey privateKey;
+    private PrivateJwk<?, ?, ?> signingKey;
+    private JwtParser parser;
+    private String jwks;
 
 
     @EventListener(ContextRefreshedEvent.class)
     public void init() throws Exception {
-        this.privateKey = loadPrivateKey();
+        this.signatureAlgorithm = signatureAlgorithm(algorithm);
+        this.privateKey = loadPrivateKey(keyAlgorithm(algorithm));
+        PublicKey publicKey = loadPublicKey(publicKeyResource);
+        this.signingKey = Jwks.builder()
+                .keyPair(new KeyPair(publicKey, privateKey))
+                .algorithm(signatureAlgorithm.getId())
+                .publicKeyUse("sig")
+                .idFromThumbprint()
+                .build();
+
+        List<PublicJwk<?>> keys = new ArrayList<>();
+        keys.add(signingKey.toPublicJwk());
+        DefaultResourceLoader resourceLoader = new DefaultResourceLoader();
+        for (String location : retiredPublicKeys) {
+            keys.add(Jwks.builder().key(loadPublicKey(resourceLoader.getResource(location.trim())))
+                    .publicKeyUse("sig")
+                    .idFromThumbprint()
+                    .build());
+        }
+        Map<String, Key> verificationKeys = keys.stream().collect(Collectors.toMap(PublicJwk::getId, PublicJwk::toKey, (a, b) -> a));
+        // tokens issued before they carried a kid were signed with the current key
+        this.parser = Jwts.parser()
+                .keyLocator(header -> {
+                    String kid = ((JwsHeader) header).getKeyId();
+                    Key key = kid == null ? publicKey : verificationKeys.get(kid);
+                    if (key == null) {
+                        throw new UnsupportedJwtException("Unknown token signing key.");
+                    }
+                    return key;
+                })
+                .build();
+        this.jwks = keys.stream().map(Jwks::json).collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+        logger.info("Signing tokens with {} key {}, publishing {} keys", signatureAlgorithm.getId(), signingKey.getId(), keys.size());
     }
 
-    private PrivateKey loadPrivateKey() throws Exception {
+    private PrivateKey loadPrivateKey(String keyAlgorithm) throws Exception {
         byte[] keyBytes;
         try (InputStream is = privateKeyResource.getInputStream()) {
             keyBytes = is.readAllBytes();
@@ -48,20 +121,77 @@ public class JwtUtil {
 
         byte[] decodedKey = Base64.getDecoder().decode(keyContent);
         PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(decodedKey);
-        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        KeyFactory keyFactory = KeyFactory.getInstance(keyAlgorithm);
         return keyFactory.generatePrivate(spec);
     }
 
+    private PublicKey loadPublicKey(Resource resource) throws Exception {
+        byte[] keyBytes;
+        try (InputStream is = resource.getInputStream()) {
+            keyBytes = is.readAllBytes();
+        }
+
+        String keyContent = new String(keyBytes);
+        keyContent = keyContent.replace("-----BEGIN PUBLIC KEY-----", "")
+                .replace("-----END PUBLIC KEY-----", "")
+                .replaceAll("\\s+", "");
+
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(Base64.getDecoder().decode(keyContent));
+        // a retired key may belong to another algorithm than the current one
+        for (String keyAlgorithm : KEY_ALGORITHMS) {
+            try {
+                return KeyFactory.getInstance(keyAlgorithm).generatePublic(spec);
+            } catch (Exception ignored) {
+                // try the next key type
+            }
+        }
+        throw new IllegalArgumentException("Unsupported public key in " + resource.getDescription());
+    }
+
+    private static SignatureAlgorithm signatureAlgorithm(String algorithm) {
+        return switch (algorithm) {
+            case "RS256" -> Jwts.SIG.RS256;
+            case "ES256" -> Jwts.SIG.ES256;
+            case "EdDSA" -> Jwts.SIG.EdDSA;
+            default -> throw new IllegalArgumentException("Unsupported JWT algorithm: " + algorithm);
+        };
+    }
+
+    private static String keyAlgorithm(String algorithm) {
+        return switch (algorithm) {
+            case "ES256" -> "EC";
+            case "EdDSA" -> "Ed25519";
+            default -> "RSA";
+        };
+    }
+
+
+    /**
+     * Public keys that verify our tokens, as a JSON Web Key Set
+     */
+    public String getJwks() {
+        return jwks;
+    }
 
 
     public String generateToken(Long userId,String username,String role) {
         return Jwts.builder()
+                .header().keyId(signingKey.getId()).and()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .claims(Map.of("role", role))
                 .claims(Map.of("userId", userId))
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(privateKey, Jwts.SIG.RS256)
+                .signWith(privateKey, signatureAlgorithm)
                 .compact();
     }
+
+
+    /**
+     * Claims of a token signed with the current or a retired key, e.g. to revoke it at logout
+     */
+    public Claims parse(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
 }
@@ -0,0 +1,126 @@
+package com.bank.authentication_service.security;
+
+import com.bank.authentication_service.exception.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedPasswordEncoderTests {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.destroy();
+    }
+
+    @Test
+    void hashesOnThePool() {
+        encoder = new BoundedPasswordEncoder(new SlowEncoder(new CountDownLatch(0)), 1, 1, Duration.ofSeconds(5), 2, meterRegistry);
+
+        assertEquals("hashed:secret", encoder.encode("secret"));
+        assertTrue(encoder.matches("secret", "hashed:secret"));
+        assertEquals(1, meterRegistry.get("password.hashing").tag("operation", "matches").timer().count());
+    }
+
+    /**
+     * One hash running and one queued fill a pool of one with a queue of one;
+     * the third caller is turned away at once instead of waiting for a thread.
+     */
+    @Test
+    void rejectsImmediatelyWhenSaturated() throws Exception {
+        encoder = new BoundedPasswordEncoder(new SlowEncoder(release), 1, 1, Duration.ofSeconds(30), 3, meterRegistry);
+        CompletableFuture.runAsync(() -> encoder.encode("first"));
+        CompletableFuture.runAsync(() -> encoder.encode("second"));
+        waitUntil(() -> meterRegistry.get("password.hashing.queue.depth").gauge().value() == 1);
+
+        long start = System.nanoTime();
+        PasswordHashingRejectedException e = assertThrows(PasswordHashingRejectedException.class, () -> encoder.matches("third", "x"));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(3, e.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+    }
+
+    @Test
+    void rejectsWhenQueuedLongerThanTimeout() throws Exception {
+        encoder = new BoundedPasswordEncoder(new SlowEncoder(release), 1, 4, Duration.ofMillis(100), 2, meterRegistry);
+        CompletableFuture.runAsync(() -> encoder.encode("first"));
+        waitUntil(() -> meterRegistry.get("password.hashing.active").gauge().value() == 1);
+
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.encode("second"));
+    }
+
+    @Test
+    void hashThatTimedOutInTheQueueIsNeverRun() throws Exception {
+        encoder = new BoundedPasswordEncoder(new SlowEncoder(release), 1, 4, Duration.ofMillis(100), 2, meterRegistry);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        waitUntil(() -> meterRegistry.get("password.hashing.active").gauge().value() == 1);
+
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.encode("second"));
+        assertEquals(0, meterRegistry.get("password.hashing.queue.depth").gauge().value());
+
+        release.countDown();
+        assertEquals("hashed:first", first.get(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, meterRegistry.get("password.hashing").tag("operation", "encode").timer().count());
+    }
+
+    @Test
+    void hashThatStartedIsFinishedPastTheTimeout() throws Exception {
+        encoder = new BoundedPasswordEncoder(new SlowEncoder(release), 1, 4, Duration.ofMillis(100), 2, meterRegistry);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("secret"));
+        waitUntil(() -> meterRegistry.get("password.hashing.active").gauge().value() == 1);
+
+        Thread.sleep(300);
+        release.countDown();
+
+        assertEquals("hashed:secret", running.get(5, TimeUnit.SECONDS));
+        assertEquals(0, meterRegistry.get("password.hashing.rejected").counter().count());
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached");
+            Thread.sleep(10);
+        }
+    }
+
+    private record SlowEncoder(CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return encodedPassword.equals("hashed:" + rawPassword);
+        }
+
+        private void await() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
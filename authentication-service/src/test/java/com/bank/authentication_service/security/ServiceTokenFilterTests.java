@@ -0,0 +1,53 @@
+package com.bank.authentication_service.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ServiceTokenFilterTests {
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void configuredTokenGetsTheServiceRole() throws Exception {
+        Authentication authentication = filter(List.of("old-token", "new-token"), "Bearer new-token");
+
+        assertEquals(List.of(ServiceTokenFilter.ROLE),
+                authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    @Test
+    void otherOrMissingTokensStayUnauthenticated() throws Exception {
+        assertNull(filter(List.of("new-token"), "Bearer new-tokenx"));
+        assertNull(filter(List.of("new-token"), "new-token"));
+        assertNull(filter(List.of("new-token"), null));
+    }
+
+    @Test
+    void noConfiguredTokensLetNobodyIn() throws Exception {
+        assertNull(filter(List.of(""), "Bearer "));
+    }
+
+    private static Authentication filter(List<String> tokens, String authorization) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/revocations");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        new ServiceTokenFilter(tokens).doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,112 @@
+package com.bank.authentication_service.services;
+
+import com.bank.authentication_service.dtos.LoginRequest;
+import com.bank.authentication_service.model.User;
+import com.bank.authentication_service.repositories.UserRepository;
+import com.bank.authentication_service.security.CaffeineUserCache;
+import com.bank.authentication_service.security.UserDetailsServiceImpl;
+import com.bank.authentication_service.utils.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthenticationServiceTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private final RevocationService revocationService = mock(RevocationService.class);
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private final User alice = new User(42L, "alice", passwordEncoder.encode("secret"), "CLIENT");
+    private AuthenticationService authenticationService;
+
+    @BeforeEach
+    void setUp() {
+        CaffeineUserCache userCache = new CaffeineUserCache(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(new UserDetailsServiceImpl(userRepository));
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserCache(userCache);
+        authenticationService = new AuthenticationService(new ProviderManager(provider), jwtUtil, userRepository, passwordEncoder, userCache,
+                mock(RefreshTokenService.class), revocationService);
+
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(alice));
+        when(userRepository.findById(42L)).thenReturn(Optional.of(alice));
+        when(jwtUtil.generateToken(42L, "alice", "CLIENT")).thenReturn("token");
+    }
+
+    @Test
+    void loginLoadsTheUserOnce() {
+        assertEquals("token", authenticationService.authenticate(login("alice", "secret")).getAccessToken());
+
+        verify(userRepository, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    void repeatLoginsAreServedFromTheCache() {
+        authenticationService.authenticate(login("alice", "secret"));
+        authenticationService.authenticate(login("alice", "secret"));
+
+        verify(userRepository, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    void wrongPasswordIsCheckedAgainstTheDatabase() {
+        authenticationService.authenticate(login("alice", "secret"));
+
+        assertThrows(BadCredentialsException.class, () -> authenticationService.authenticate(login("alice", "wrong")));
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void deletingTheUserEvictsIt() {
+        authenticationService.authenticate(login("alice", "secret"));
+        authenticationService.deleteUser("42");
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.empty());
+
+        assertThrows(BadCredentialsException.class, () -> authenticationService.authenticate(login("alice", "secret")));
+        verify(revocationService).revokeUser(42L);
+    }
+
+    @Test
+    void userDeletedOnAnotherInstanceIsNotServedFromTheCache() {
+        authenticationService.authenticate(login("alice", "secret"));
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.empty());
+        when(revocationService.isUserRevoked(42L)).thenReturn(true);
+
+        assertThrows(BadCredentialsException.class, () -> authenticationService.authenticate(login("alice", "secret")));
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void usernameTakenAgainAfterADeleteOnAnotherInstanceCanLogIn() {
+        authenticationService.authenticate(login("alice", "secret"));
+        User newAlice = new User(43L, "alice", passwordEncoder.encode("secret"), "CLIENT");
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(newAlice));
+        when(revocationService.isUserRevoked(42L)).thenReturn(true);
+        when(jwtUtil.generateToken(43L, "alice", "CLIENT")).thenReturn("new token");
+
+        assertEquals("new token", authenticationService.authenticate(login("alice", "secret")).getAccessToken());
+    }
+
+    private static LoginRequest login(String username, String password) {
+        LoginRequest request = new LoginRequest();
+        request.setUsername(username);
+        request.setPassword(password);
+        return request;
+    }
+}
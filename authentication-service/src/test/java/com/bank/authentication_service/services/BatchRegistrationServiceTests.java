@@ -0,0 +1,126 @@
+package com.bank.authentication_service.services;
+
+import com.bank.authentication_service.dtos.RegistrationRequest;
+import com.bank.authentication_service.dtos.RegistrationResult;
+import com.bank.authentication_service.model.User;
+import com.bank.authentication_service.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.cache.NullUserCache;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchRegistrationServiceTests {
+
+    private static final String HASH = new BCryptPasswordEncoder(4).encode("secret");
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Test
+    void invalidAndDuplicateUsersAreReportedAndTheRestInsertedInOneBatch() {
+        when(userRepository.findExistingUsernames(any())).thenReturn(List.of("taken"));
+        BatchRegistrationService service = service(100);
+
+        List<RegistrationResult> results = service.registerBatch(List.of(
+                new RegistrationRequest(1L, "alice", HASH, "CLIENT"),
+                new RegistrationRequest(2L, "taken", HASH, "CLIENT"),
+                new RegistrationRequest(3L, "alice", HASH, "CLIENT"),
+                new RegistrationRequest(4L, "bob", "", "CLIENT"),
+                new RegistrationRequest(5L, "carol", HASH, "CLIENT")));
+
+        assertEquals(List.of(true, false, false, false, true), results.stream().map(RegistrationResult::isSuccess).toList());
+        assertEquals("Username already exists.", results.get(1).getError());
+        assertEquals("Username already exists.", results.get(2).getError());
+        assertEquals("Password hash is required.", results.get(3).getError());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rows.capture());
+        assertEquals(List.of(1L, 5L), rows.getValue().stream().map(row -> row[0]).toList());
+        // stored as sent, without hashing again
+        assertEquals(HASH, rows.getValue().get(0)[2]);
+    }
+
+    @Test
+    void plainPasswordIsRejected() {
+        BatchRegistrationService service = service(100);
+
+        List<RegistrationResult> results = service.registerBatch(List.of(
+                new RegistrationRequest(1L, "alice", "secret", "CLIENT"),
+                new RegistrationRequest(2L, "bob", HASH.substring(0, HASH.length() - 1), "CLIENT")));
+
+        assertEquals("Password hash is not a BCrypt hash.", results.get(0).getError());
+        assertEquals("Password hash is not a BCrypt hash.", results.get(1).getError());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void failedBatchFallsBackToSingleInsertsToFindTheConflict() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DuplicateKeyException("duplicate"));
+        when(jdbcTemplate.update(anyString(), eq(2L), eq("bob"), any(), eq("CLIENT"))).thenThrow(new DuplicateKeyException("duplicate"));
+        BatchRegistrationService service = service(100);
+
+        List<RegistrationResult> results = service.registerBatch(List.of(
+                new RegistrationRequest(1L, "alice", HASH, "CLIENT"),
+                new RegistrationRequest(2L, "bob", HASH, "CLIENT")));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Username or user id already exists.", results.get(1).getError());
+    }
+
+    @Test
+    void repeatedRegistrationOfTheSameUserSucceedsWithoutAnInsert() {
+        when(userRepository.findExistingUsernames(any())).thenReturn(List.of("alice", "bob"));
+        when(userRepository.findAllById(any())).thenReturn(List.of(new User(1L, "alice", "hash", "CLIENT")));
+        BatchRegistrationService service = service(100);
+
+        List<RegistrationResult> results = service.registerBatch(List.of(
+                new RegistrationRequest(1L, "alice", HASH, "CLIENT"),
+                new RegistrationRequest(2L, "bob", HASH, "CLIENT")));
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("Username already exists.", results.get(1).getError());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void usersAreInsertedInOneBatchPerChunk() {
+        BatchRegistrationService service = service(5);
+
+        List<RegistrationRequest> users = new ArrayList<>();
+        for (long i = 1; i <= 12; i++) {
+            users.add(new RegistrationRequest(i, "user" + i, HASH, "CLIENT"));
+        }
+        List<RegistrationResult> results = service.registerBatch(users);
+
+        assertTrue(results.stream().allMatch(RegistrationResult::isSuccess));
+        // 12 users in chunks of 5
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyList());
+    }
+
+    private BatchRegistrationService service(int chunkSize) {
+        return new BatchRegistrationService(userRepository, new NullUserCache(), jdbcTemplate, transactionTemplate, chunkSize);
+    }
+}
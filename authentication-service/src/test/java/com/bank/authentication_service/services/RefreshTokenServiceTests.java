@@ -0,0 +1,107 @@
+package com.bank.authentication_service.services;
+
+import com.bank.authentication_service.exception.InvalidRefreshTokenException;
+import com.bank.authentication_service.model.RefreshToken;
+import com.bank.authentication_service.repositories.RefreshTokenRepository;
+import com.bank.authentication_service.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenServiceTests {
+
+    private final RefreshTokenRepository refreshTokenRepository = mock(RefreshTokenRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, userRepository, transactionTemplate, Duration.ofDays(30), 100);
+        when(refreshTokenRepository.markRotated(anyString(), any())).thenReturn(1);
+        when(userRepository.existsById(42L)).thenReturn(true);
+    }
+
+    @Test
+    void rotationIsServedFromTheIndex() {
+        String token = refreshTokenService.issue(42L, "alice", "CLIENT");
+
+        RefreshTokenService.IssuedToken next = refreshTokenService.rotate(token);
+
+        assertNotEquals(token, next.token());
+        assertEquals(42L, next.userId());
+        assertEquals("CLIENT", next.role());
+        verify(refreshTokenRepository, never()).findById(anyString());
+        verify(refreshTokenRepository).markRotated(eq(RefreshTokenService.hash(token)), any());
+    }
+
+    @Test
+    void onlyTheHashIsStored() {
+        String token = refreshTokenService.issue(42L, "alice", "CLIENT");
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertEquals(RefreshTokenService.hash(token), saved.getValue().getTokenHash());
+        assertNotEquals(token, saved.getValue().getTokenHash());
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheFamily() {
+        String token = refreshTokenService.issue(42L, "alice", "CLIENT");
+        RefreshTokenService.IssuedToken next = refreshTokenService.rotate(token);
+        RefreshToken rotated = new RefreshToken(RefreshTokenService.hash(token), RefreshTokenService.hash(token),
+                42L, "alice", "CLIENT", LocalDateTime.now().plusDays(30), LocalDateTime.now(), true);
+        when(refreshTokenRepository.findById(RefreshTokenService.hash(token))).thenReturn(Optional.of(rotated));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(token));
+        verify(refreshTokenRepository).deleteByFamilyId(RefreshTokenService.hash(token));
+
+        // the successor was revoked with its family and is no longer in the index
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(next.token()));
+    }
+
+    @Test
+    void tokenOfADeletedUserIsNotRotated() {
+        String token = refreshTokenService.issue(42L, "alice", "CLIENT");
+        when(userRepository.existsById(42L)).thenReturn(false);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(token));
+        verify(refreshTokenRepository).deleteByFamilyId(RefreshTokenService.hash(token));
+    }
+
+    @Test
+    void losingAConcurrentRotationRevokesTheFamily() {
+        String token = refreshTokenService.issue(42L, "alice", "CLIENT");
+        when(refreshTokenRepository.markRotated(anyString(), any())).thenReturn(0);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(token));
+        verify(refreshTokenRepository).deleteByFamilyId(RefreshTokenService.hash(token));
+        verify(refreshTokenRepository, times(1)).save(any());
+    }
+
+    @Test
+    void unknownTokenIsRejected() {
+        when(refreshTokenRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("made-up"));
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(null));
+    }
+}
@@ -0,0 +1,104 @@
+package com.bank.authentication_service.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class JwtUtilTests {
+
+    @ParameterizedTest
+    @CsvSource({"RS256, RSA", "ES256, EC", "EdDSA, Ed25519"})
+    void tokensVerifyWithThePublishedKeySet(String algorithm, String keyAlgorithm, @TempDir Path keys) throws Exception {
+        KeyPair current = keyPair(keyAlgorithm);
+        KeyPair retired = keyPair("RSA");
+        JwtUtil jwtUtil = jwtUtil(algorithm, current, retired, keys);
+
+        String token = jwtUtil.generateToken(42L, "alice", "CLIENT");
+        JwkSet published = Jwks.setParser().build().parse(jwtUtil.getJwks());
+
+        Jws<Claims> jws = Jwts.parser()
+                .keyLocator(header -> published.getKeys().stream()
+                        .filter(jwk -> jwk.getId().equals(((JwsHeader) header).getKeyId()))
+                        .map(jwk -> (Key) jwk.toKey())
+                        .findFirst()
+                        .orElseThrow())
+                .build()
+                .parseSignedClaims(token);
+
+        assertEquals(algorithm, jws.getHeader().getAlgorithm());
+        assertEquals(42L, jws.getPayload().get("userId", Long.class));
+        assertNotNull(jws.getPayload().getId());
+        assertEquals(jws.getPayload().getId(), jwtUtil.parse(token).getId());
+        assertEquals(2, published.getKeys().size());
+        published.getKeys().forEach(jwk -> assertEquals("sig", ((PublicJwk<?>) jwk).getPublicKeyUse()));
+    }
+
+    @Test
+    void tokenSignedWithARetiredKeyStillParses(@TempDir Path keys) throws Exception {
+        KeyPair current = keyPair("Ed25519");
+        KeyPair retired = keyPair("RSA");
+        JwtUtil jwtUtil = jwtUtil("EdDSA", current, retired, keys);
+
+        String token = Jwts.builder()
+                .header().keyId(Jwks.builder().key(retired.getPublic()).idFromThumbprint().build().getId()).and()
+                .id("before-rotation")
+                .subject("alice")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(retired.getPrivate())
+                .compact();
+
+        assertEquals("before-rotation", jwtUtil.parse(token).getId());
+    }
+
+    private static JwtUtil jwtUtil(String algorithm, KeyPair current, KeyPair retired, Path keys) throws Exception {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "algorithm", algorithm);
+        ReflectionTestUtils.setField(jwtUtil, "privateKeyResource", pem("PRIVATE", current.getPrivate()));
+        ReflectionTestUtils.setField(jwtUtil, "publicKeyResource", pem("PUBLIC", current.getPublic()));
+        Path retiredKey = Files.write(keys.resolve("retired.pem"), pem("PUBLIC", retired.getPublic()).getByteArray());
+        ReflectionTestUtils.setField(jwtUtil, "retiredPublicKeys", List.of("file:" + retiredKey));
+        ReflectionTestUtils.setField(jwtUtil, "expirationTime", 60_000L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static KeyPair keyPair(String keyAlgorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm);
+        if (keyAlgorithm.equals("EC")) {
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        } else if (keyAlgorithm.equals("RSA")) {
+            generator.initialize(2048);
+        }
+        return generator.generateKeyPair();
+    }
+
+    private static ByteArrayResource pem(String type, Key key) {
+        String pem = "-----BEGIN " + type + " KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(key.getEncoded())
+                + "\n-----END " + type + " KEY-----\n";
+        return new ByteArrayResource(pem.getBytes());
+    }
+}
@@ -0,0 +1,86 @@
+package com.bank.banking_service.security;
+
+import com.bank.banking_service.utils.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authenticated request through {@link JwtAuthenticationFilter}: token verification (cached
+ * after the first request), the revocation check and setting up the security context
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"100000", "0"})
+    private long cacheSize;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        String pem = "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----\n";
+        JwtUtil jwtUtil = new JwtUtil(new SimpleMeterRegistry(), cacheSize);
+        ReflectionTestUtils.setField(jwtUtil, "publicKeyResource", new ByteArrayResource(pem.getBytes()));
+        jwtUtil.init();
+        RevocationFeed revocationFeed = new RevocationFeed(new ObjectMapper(), new SimpleMeterRegistry(), "", "",
+                Duration.ofHours(1), Duration.ZERO, 1000);
+        filter = new JwtAuthenticationFilter(jwtUtil, revocationFeed, new SimpleMeterRegistry());
+
+        String token = Jwts.builder()
+                .id("benchmark")
+                .subject("alice")
+                .claim("role", "CLIENT")
+                .claim("userId", 42L)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(keyPair.getPrivate())
+                .compact();
+        request = new MockHttpServletRequest("GET", "/banking/accounts/my");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public Object authenticate() throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> { });
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+}
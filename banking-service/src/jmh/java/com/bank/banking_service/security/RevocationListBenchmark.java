@@ -0,0 +1,56 @@
+package com.bank.banking_service.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revocation check of a valid and of a revoked token against a list of the given size
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RevocationListBenchmark {
+
+    @Param({"100000", "10000000"})
+    private int entries;
+
+    private RevocationList revocations;
+    private String validTokenId;
+    private String revokedTokenId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        revocations = new RevocationList(entries);
+        for (int i = 0; i < entries; i++) {
+            revocations.revokeToken("revoked-" + i);
+        }
+        validTokenId = UUID.randomUUID().toString();
+        revokedTokenId = "revoked-" + entries / 2;
+    }
+
+    @Benchmark
+    public boolean validToken() {
+        return revocations.isRevoked(42L, validTokenId);
+    }
+
+    @Benchmark
+    public boolean revokedToken() {
+        return revocations.isRevoked(42L, revokedTokenId);
+    }
+}
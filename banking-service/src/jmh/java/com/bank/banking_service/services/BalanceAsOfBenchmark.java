@@ -0,0 +1,90 @@
+package com.bank.banking_service.services;
+
+import com.bank.banking_service.dtos.BalanceAsOf;
+import com.bank.banking_service.model.AccountStatus;
+import com.bank.banking_service.model.AccountType;
+import com.bank.banking_service.model.BankAccount;
+import com.bank.banking_service.model.Transaction;
+import com.bank.banking_service.model.TransactionType;
+import com.bank.banking_service.repositories.BankAccountRepository;
+import com.bank.banking_service.repositories.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance of an account with a year of history as of its last transaction: from the latest
+ * monthly checkpoint, and by summing the whole history as before checkpoints existed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BalanceAsOfBenchmark {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"20000"})
+    private int history;
+
+    private BalanceCheckpointService balanceCheckpointService;
+    private TransactionRepository transactionRepository;
+    private Long accountId;
+    private LocalDateTime asOf;
+
+    @Setup(Level.Trial)
+    public void seed(BankingContext context) {
+        balanceCheckpointService = context.bean(BalanceCheckpointService.class);
+        transactionRepository = context.bean(TransactionRepository.class);
+
+        BankAccount account = new BankAccount();
+        account.setIban(UUID.randomUUID().toString());
+        account.setUserId(1L);
+        account.setType(AccountType.CURRENT);
+        account.setStatus(AccountStatus.APPROVED);
+        account.setBalance(0.0);
+        account = context.bean(BankAccountRepository.class).save(account);
+        accountId = account.getId();
+
+        long minutesPerTransaction = 365L * 24 * 60 / history;
+        List<Transaction> rows = new ArrayList<>(history);
+        for (int i = 0; i < history; i++) {
+            TransactionType type = i % 3 == 0 ? TransactionType.DEBIT : TransactionType.CREDIT;
+            rows.add(new Transaction(accountId, "counterparty", 10.0, account.getCurrency(), type,
+                    START.plusMinutes(i * minutesPerTransaction)));
+        }
+        transactionRepository.saveAll(rows);
+        asOf = START.plusMinutes(history * minutesPerTransaction);
+
+        for (LocalDateTime cutoff = START.plusMonths(1); cutoff.isBefore(asOf); cutoff = cutoff.plusMonths(1)) {
+            balanceCheckpointService.createCheckpoints(cutoff);
+        }
+    }
+
+    @Benchmark
+    public BalanceAsOf fromCheckpoint() {
+        return balanceCheckpointService.getBalanceAsOf(accountId, asOf);
+    }
+
+    @Benchmark
+    public Double fullHistory() {
+        return transactionRepository.sumBalanceDelta(accountId, BalanceCheckpointService.ORIGIN, asOf, TransactionType.CREDIT);
+    }
+}
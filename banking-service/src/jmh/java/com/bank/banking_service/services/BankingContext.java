@@ -0,0 +1,49 @@
+package com.bank.banking_service.services;
+
+import com.bank.banking_service.BankingServiceApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The banking service on an in-memory H2 database, shared by the benchmarks of one fork
+ */
+@State(Scope.Benchmark)
+public class BankingContext {
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // as command line arguments, so they take precedence over application.yaml
+        context = new SpringApplicationBuilder(BankingServiceApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.ids.node-id=1",
+                        "--jwt.jwks-uri=",
+                        "--jwt.revocations.uri=",
+                        "--banking.checkpoints.initial-delay=P1D",
+                        // per-transfer info logging would dominate an in-memory database
+                        "--logging.level.root=WARN");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
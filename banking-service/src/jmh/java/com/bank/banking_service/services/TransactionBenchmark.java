@@ -0,0 +1,90 @@
+package com.bank.banking_service.services;
+
+import com.bank.banking_service.model.AccountStatus;
+import com.bank.banking_service.model.AccountType;
+import com.bank.banking_service.model.BankAccount;
+import com.bank.banking_service.model.Card;
+import com.bank.banking_service.model.CardStatus;
+import com.bank.banking_service.model.CardType;
+import com.bank.banking_service.model.Transaction;
+import com.bank.banking_service.repositories.BankAccountRepository;
+import com.bank.banking_service.repositories.CardRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransactionService#executeTransaction} end to end on H2, between random pairs of
+ * a thousand accounts, from one thread and from four
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark {
+
+    private static final int ACCOUNTS = 1000;
+
+    private TransactionService transactionService;
+    private final List<BankAccount> accounts = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void seed(BankingContext context) {
+        transactionService = context.bean(TransactionService.class);
+        BankAccountRepository bankAccountRepository = context.bean(BankAccountRepository.class);
+        CardRepository cardRepository = context.bean(CardRepository.class);
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            BankAccount account = new BankAccount();
+            account.setIban(UUID.randomUUID().toString());
+            account.setUserId((long) i);
+            account.setType(AccountType.CURRENT);
+            account.setStatus(AccountStatus.APPROVED);
+            account.setBalance(1_000_000_000.0);
+            account = bankAccountRepository.save(account);
+
+            Card card = new Card();
+            card.setType(CardType.DEBIT);
+            card.setUserId((long) i);
+            card.setBankAccount(account);
+            card.setStatus(CardStatus.APPROVED);
+            cardRepository.save(card);
+            accounts.add(account);
+        }
+    }
+
+    @Benchmark
+    public Transaction transfer() {
+        return randomTransfer();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Transaction transferConcurrently() {
+        return randomTransfer();
+    }
+
+    private Transaction randomTransfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(ACCOUNTS);
+        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        return transactionService.executeTransaction(accounts.get(from).getId(), accounts.get(to).getIban(), 1.0);
+    }
+}
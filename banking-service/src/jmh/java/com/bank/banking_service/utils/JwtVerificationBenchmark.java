@@ -0,0 +1,79 @@
+package com.bank.banking_service.utils;
+
+import com.bank.banking_service.security.AuthenticatedUser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtUtil#parse} for a token seen before, with the verified-claims cache and with a
+ * cache that keeps nothing, i.e. a full RS256 verification per request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private JwtUtil cached;
+    private JwtUtil uncached;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        cached = jwtUtil(keyPair, 100_000);
+        uncached = jwtUtil(keyPair, 0);
+        token = Jwts.builder()
+                .subject("alice")
+                .claim("role", "CLIENT")
+                .claim("userId", 42L)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(keyPair.getPrivate())
+                .compact();
+    }
+
+    @Benchmark
+    public AuthenticatedUser parseCached() {
+        return cached.parse(token);
+    }
+
+    @Benchmark
+    public AuthenticatedUser parseUncached() {
+        return uncached.parse(token);
+    }
+
+    static JwtUtil jwtUtil(KeyPair keyPair, long cacheSize) throws Exception {
+        String pem = "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----\n";
+        JwtUtil jwtUtil = new JwtUtil(new SimpleMeterRegistry(), cacheSize);
+        ReflectionTestUtils.setField(jwtUtil, "publicKeyResource", new ByteArrayResource(pem.getBytes()));
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
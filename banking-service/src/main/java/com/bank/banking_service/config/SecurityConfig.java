@@ -32,6 +32,8 @@ public class SecurityConfig {
                         .requestMatchers("/banking/accounts/pending").hasAuthority("ROLE_BANKER")
                         .requestMatchers("/banking/accounts/*/approval").hasAuthority("ROLE_BANKER")
                         .requestMatchers("/banking/accounts/all").hasAuthority("ROLE_BANKER")
+                        .requestMatchers("/banking/accounts/*/balance").hasAuthority("ROLE_BANKER")
+                        .requestMatchers("/banking/accounts/user/*").hasAuthority("ROLE_BANKER")
 
                         // Cards
                         .requestMatchers("/banking/cards/my").hasAuthority("ROLE_CLIENT")
@@ -39,13 +41,19 @@ public class SecurityConfig {
                         .requestMatchers("/banking/cards/credit").hasAuthority("ROLE_CLIENT")
                         .requestMatchers("/banking/cards/pending").hasAuthority("ROLE_BANKER")
                         .requestMatchers("/banking/cards/{cardId}/approve").hasAuthority("ROLE_BANKER")
+                        .requestMatchers("/banking/cards/user/*").hasAuthority("ROLE_BANKER")
 
                         // Transactions
-                        .requestMatchers("/banking/transactions/my").hasAuthority("ROLE_CLIENT")
-                        .requestMatchers("/banking/transactions/all").hasAuthority("ROLE_BANKER")
+                        .requestMatchers("/banking/transactions/my", "/banking/transactions/my/stream").hasAuthority("ROLE_CLIENT")
+                        .requestMatchers("/banking/transactions/all", "/banking/transactions/all/stream").hasAuthority("ROLE_BANKER")
+                        .requestMatchers("/banking/transactions/user/*").hasAuthority("ROLE_BANKER")
                         .requestMatchers("/banking/transactions/transfer").hasAuthority("ROLE_CLIENT")
+                        .requestMatchers("/banking/transactions/transfer/batch").hasAuthority("ROLE_CLIENT")
 
 
+                        // Monitoring
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -1,11 +1,15 @@
 package com.bank.banking_service.controllers;
 
+import com.bank.banking_service.dtos.BalanceAsOf;
 import com.bank.banking_service.model.BankAccount;
+import com.bank.banking_service.security.AuthenticatedUser;
+import com.bank.banking_service.services.BalanceCheckpointService;
 import com.bank.banking_service.services.BankAccountService;
-import com.bank.banking_service.utils.JwtUtil;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -13,19 +17,27 @@ import java.util.List;
 public class BankAccountController {
 
     private final BankAccountService bankAccountService;
-    private final JwtUtil jwtUtil;
+    private final BalanceCheckpointService balanceCheckpointService;
 
-    public BankAccountController(BankAccountService bankAccountService, JwtUtil jwtUtil) {
+    public BankAccountController(BankAccountService bankAccountService, BalanceCheckpointService balanceCheckpointService) {
         this.bankAccountService = bankAccountService;
-        this.jwtUtil = jwtUtil;
+        this.balanceCheckpointService = balanceCheckpointService;
     }
 
     /**
      * Client gets his own bank accounts
      */
     @GetMapping("/my")
-    public ResponseEntity<List<BankAccount>> getUserBankAccounts(@RequestHeader("Authorization") String token) {
-        return ResponseEntity.ok(bankAccountService.getUserBankAccounts(jwtUtil.extractUserId(token.substring(7))));
+    public ResponseEntity<List<BankAccount>> getUserBankAccounts(AuthenticatedUser user) {
+        return ResponseEntity.ok(bankAccountService.getUserBankAccounts(user.userId()));
+    }
+
+    /**
+     * Banker gets the bank accounts of one client
+     */
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<BankAccount>> getClientBankAccounts(@PathVariable Long userId) {
+        return ResponseEntity.ok(bankAccountService.getUserBankAccounts(userId));
     }
 
     /**
@@ -40,8 +52,8 @@ public class BankAccountController {
      * Client requests a current account
      */
     @PostMapping("/request")
-    public ResponseEntity<BankAccount> requestCurrentAccount(@RequestHeader("Authorization") String token) {
-        return ResponseEntity.ok(bankAccountService.requestCurrentAccount(jwtUtil.extractUserId(token.substring(7)), jwtUtil.extractRole(token.substring(7))));
+    public ResponseEntity<BankAccount> requestCurrentAccount(AuthenticatedUser user) {
+        return ResponseEntity.ok(bankAccountService.requestCurrentAccount(user.userId(), user.role()));
     }
 
     /**
@@ -61,4 +73,14 @@ public class BankAccountController {
     public ResponseEntity<List<BankAccount>> getPendingAccounts() {
         return ResponseEntity.ok(bankAccountService.getPendingAccounts());
     }
+
+    /**
+     * Banker gets the balance of an account at a point in time, now if none is given
+     */
+    @GetMapping("/{accountId}/balance")
+    public ResponseEntity<BalanceAsOf> getBalanceAsOf(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        return ResponseEntity.ok(balanceCheckpointService.getBalanceAsOf(accountId, asOf != null ? asOf : LocalDateTime.now()));
+    }
 }
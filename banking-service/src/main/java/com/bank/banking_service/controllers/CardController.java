@@ -1,8 +1,8 @@
 package com.bank.banking_service.controllers;
 
 import com.bank.banking_service.model.Card;
+import com.bank.banking_service.security.AuthenticatedUser;
 import com.bank.banking_service.services.CardService;
-import com.bank.banking_service.utils.JwtUtil;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,32 +13,36 @@ import java.util.List;
 public class CardController {
 
     private final CardService cardService;
-    private final JwtUtil jwtUtil;
 
-    public CardController(CardService cardService, JwtUtil jwtUtil) {
+    public CardController(CardService cardService) {
         this.cardService = cardService;
-        this.jwtUtil = jwtUtil;
     }
 
     /**
      * Client gets his own cards
      */
     @GetMapping("/my")
-    public ResponseEntity<List<Card>> getUserCards(@RequestHeader("Authorization") String token) {
-        Long userId = jwtUtil.extractUserId(token.substring(7));
+    public ResponseEntity<List<Card>> getUserCards(AuthenticatedUser user) {
+        Long userId = user.userId();
         return ResponseEntity.ok(cardService.getUserCards(userId));
     }
 
-
+    /**
+     * Banker gets the cards of one client
+     */
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<Card>> getClientCards(@PathVariable Long userId) {
+        return ResponseEntity.ok(cardService.getUserCards(userId));
+    }
 
     /**
      * Client requests a debit card
      */
     @PostMapping("/debit")
     public ResponseEntity<Card> requestDebitCard(
-            @RequestHeader("Authorization") String token,
+            AuthenticatedUser user,
             @RequestParam Long accountId) {
-        Long userId = jwtUtil.extractUserId(token.substring(7));
+        Long userId = user.userId();
         return ResponseEntity.ok(cardService.requestDebitCard(userId, accountId));
     }
 
@@ -47,9 +51,9 @@ public class CardController {
      */
     @PostMapping("/credit")
     public ResponseEntity<Card> requestCreditCard(
-            @RequestHeader("Authorization") String token,
+            AuthenticatedUser user,
             @RequestParam Double salary) {
-        Long userId = jwtUtil.extractUserId(token.substring(7));
+        Long userId = user.userId();
         return ResponseEntity.ok(cardService.requestCreditCard(userId, salary));
     }
 
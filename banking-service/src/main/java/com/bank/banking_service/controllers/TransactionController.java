@@ -1,52 +1,133 @@
 package com.bank.banking_service.controllers;
 
+import com.bank.banking_service.dtos.TransactionPage;
+import com.bank.banking_service.dtos.TransferRequest;
+import com.bank.banking_service.dtos.TransferResult;
 import com.bank.banking_service.model.Transaction;
+import com.bank.banking_service.security.AuthenticatedUser;
+import com.bank.banking_service.services.IdempotencyService;
 import com.bank.banking_service.services.TransactionService;
-import com.bank.banking_service.utils.JwtUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/banking/transactions")
 public class TransactionController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final TransactionService transactionService;
-    private final JwtUtil jwtUtil;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
-    public TransactionController(TransactionService transactionService, JwtUtil jwtUtil) {
+    public TransactionController(TransactionService transactionService, IdempotencyService idempotencyService, ObjectMapper objectMapper) {
         this.transactionService = transactionService;
-        this.jwtUtil = jwtUtil;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Banker gets all transactions
+     * Banker gets all transactions, one page at a time
      */
     @GetMapping("/all")
-    public ResponseEntity<List<Transaction>> getAllTransactions() {
-        return ResponseEntity.ok(transactionService.getAllTransactions());
+    public ResponseEntity<TransactionPage> getAllTransactions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(transactionService.getAllTransactions(cursor, size));
+    }
+
+    /**
+     * Banker streams all transactions as NDJSON
+     */
+    @GetMapping(value = "/all/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllTransactions() {
+        return ndjson(transactionService::streamAllTransactions);
     }
 
     /**
-     * Client gets his own transactions
+     * Client gets his own transactions, one page at a time
      */
     @GetMapping("/my")
-    public ResponseEntity<List<Transaction>> getUserTransactions(@RequestHeader("Authorization") String token) {
-        Long userId = jwtUtil.extractUserId(token.substring(7));
-        return ResponseEntity.ok(transactionService.getUserTransactions(userId));
+    public ResponseEntity<TransactionPage> getUserTransactions(
+            AuthenticatedUser user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        Long userId = user.userId();
+        return ResponseEntity.ok(transactionService.getUserTransactions(userId, cursor, size));
     }
 
     /**
-     * Client performs transaction
+     * Banker gets the transactions of one client, one page at a time
+     */
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<TransactionPage> getClientTransactions(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(transactionService.getUserTransactions(userId, cursor, size));
+    }
+
+    /**
+     * Client streams his own transactions as NDJSON
+     */
+    @GetMapping(value = "/my/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamUserTransactions(AuthenticatedUser user) {
+        Long userId = user.userId();
+        return ndjson(sink -> transactionService.streamUserTransactions(userId, sink));
+    }
+
+    /**
+     * Client performs transaction; retries with the same Idempotency-Key return the original one
      */
     @PostMapping("/transfer")
     public ResponseEntity<Transaction> transferMoney(
+            AuthenticatedUser user,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestParam Long senderAccountId,
             @RequestParam String receiverIban,
             @RequestParam Double amount) {
 
-        Transaction transaction = transactionService.executeTransaction(senderAccountId, receiverIban, amount);
+        Transaction transaction = idempotencyKey == null
+                ? transactionService.executeTransaction(senderAccountId, receiverIban, amount)
+                : idempotencyService.executeTransaction(user.userId(), idempotencyKey,
+                        senderAccountId, receiverIban, amount);
         return ResponseEntity.ok(transaction);
     }
+
+    /**
+     * Client performs a batch of transactions
+     */
+    @PostMapping("/transfer/batch")
+    public ResponseEntity<List<TransferResult>> transferMoneyBatch(@RequestBody List<TransferRequest> transfers) {
+        return ResponseEntity.ok(transactionService.executeBatch(transfers));
+    }
+
+    /**
+     * Writes one JSON document per line as rows come out of the database
+     */
+    private ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<Transaction>> source) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                source.accept(transaction -> {
+                    try {
+                        objectMapper.writeValue(generator, transaction);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
 }
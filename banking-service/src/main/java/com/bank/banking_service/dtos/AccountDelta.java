@@ -0,0 +1,7 @@
+package com.bank.banking_service.dtos;
+
+public interface AccountDelta {
+
+    Long getAccountId();
+    Double getDelta();
+}
@@ -0,0 +1,7 @@
+package com.bank.banking_service.dtos;
+
+public interface AccountIdentity {
+
+    Long getId();
+    String getIban();
+}
@@ -0,0 +1,18 @@
+package com.bank.banking_service.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceAsOf {
+    private Long accountId;
+    private LocalDateTime asOf;
+    private Double balance;
+}
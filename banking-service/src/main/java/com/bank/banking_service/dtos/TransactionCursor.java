@@ -0,0 +1,38 @@
+package com.bank.banking_service.dtos;
+
+import com.bank.banking_service.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position in the transaction history, ordered by (timestamp, id)
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionCursor {
+    private final LocalDateTime timestamp;
+    private final Long id;
+
+    public static TransactionCursor of(Transaction transaction) {
+        return new TransactionCursor(transaction.getTimestamp(), transaction.getId());
+    }
+
+    public String encode() {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new TransactionCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor.");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.bank.banking_service.dtos;
+
+import com.bank.banking_service.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of transaction history, newest first; {@code nextCursor} is null on the last page
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionPage {
+    private List<Transaction> items;
+    private String nextCursor;
+
+    public static TransactionPage of(List<Transaction> items, int size) {
+        if (items.size() < size) {
+            return new TransactionPage(items, null);
+        }
+        return new TransactionPage(items, TransactionCursor.of(items.get(items.size() - 1)).encode());
+    }
+}
@@ -0,0 +1,17 @@
+package com.bank.banking_service.dtos;
+
+import com.bank.banking_service.model.BankAccount;
+
+/**
+ * Everything a transfer needs before money moves, loaded with one query
+ */
+public interface TransferPreflight extends CreditDetails {
+
+    BankAccount getSender();
+    BankAccount getReceiver();
+    Long getLinkedCardId();
+
+    default boolean hasLinkedCard() {
+        return getLinkedCardId() != null;
+    }
+}
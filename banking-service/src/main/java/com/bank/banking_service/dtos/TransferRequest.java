@@ -0,0 +1,16 @@
+package com.bank.banking_service.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferRequest {
+    private Long senderAccountId;
+    private String receiverIban;
+    private Double amount;
+}
@@ -0,0 +1,29 @@
+package com.bank.banking_service.dtos;
+
+import com.bank.banking_service.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferResult {
+    private Long senderAccountId;
+    private String receiverIban;
+    private boolean success;
+    private String error;
+    private Transaction transaction;
+
+    public static TransferResult succeeded(TransferRequest request, Transaction transaction) {
+        return new TransferResult(request.getSenderAccountId(), request.getReceiverIban(), true, null, transaction);
+    }
+
+    public static TransferResult failed(TransferRequest request, String error) {
+        return request == null
+                ? new TransferResult(null, null, false, error, null)
+                : new TransferResult(request.getSenderAccountId(), request.getReceiverIban(), false, error, null);
+    }
+}
@@ -0,0 +1,12 @@
+package com.bank.banking_service.exception;
+
+/**
+ * A journal write failed and its records could not be wiped, so the transfer may still be
+ * applied when the journal is replayed; the caller must not treat it as rejected
+ */
+public class JournalOutcomeUnknownException extends RuntimeException {
+
+    public JournalOutcomeUnknownException() {
+        super("Transaction outcome is unknown, please check your transactions before retrying.");
+    }
+}
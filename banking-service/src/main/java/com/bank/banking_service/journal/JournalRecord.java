@@ -0,0 +1,19 @@
+package com.bank.banking_service.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One acknowledged transfer in the write-ahead journal; the amount already includes interest
+ */
+@Getter
+@AllArgsConstructor
+public class JournalRecord {
+    private final long sequence;
+    private final long senderAccountId;
+    private final long receiverAccountId;
+    private final double amount;
+    private final LocalDateTime timestamp;
+}
@@ -0,0 +1,494 @@
+package com.bank.banking_service.journal;
+
+import com.bank.banking_service.exception.JournalOutcomeUnknownException;
+import com.bank.banking_service.model.BankAccount;
+import com.bank.banking_service.model.JournalCheckpoint;
+import com.bank.banking_service.model.JournalDeadLetter;
+import com.bank.banking_service.model.Transaction;
+import com.bank.banking_service.model.TransactionType;
+import com.bank.banking_service.repositories.BalanceCheckpointRepository;
+import com.bank.banking_service.repositories.BankAccountRepository;
+import com.bank.banking_service.repositories.JournalCheckpointRepository;
+import com.bank.banking_service.repositories.JournalDeadLetterRepository;
+import com.bank.banking_service.repositories.TransactionRepository;
+import com.bank.banking_service.utils.AccountLockManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Journal mode for transfers (banking.journal.enabled).
+ * <p>
+ * A validated transfer is appended to the {@link TransactionJournal} and acknowledged
+ * once its batch has been fsynced: the writer thread drains every transfer waiting at
+ * that moment and forces them with one sync (group commit). An applier thread then
+ * writes balances and transaction rows to the database in batches, together with the
+ * {@link JournalCheckpoint}. Until then the amounts are kept as pending deltas, which
+ * {@code TransactionService} adds to the stored balances when validating new transfers.
+ * A record that cannot be applied, such as a transfer to an account deleted meanwhile, is
+ * parked in {@link JournalDeadLetter} and passed, so it does not hold up every later one;
+ * database outages are retried instead.
+ * <p>
+ * Transaction rows keep the time of the append, so they can land long after that time:
+ * after retries, or in a replay. {@link #oldestUnappliedTimestamp} lets the balance
+ * checkpoints stop short of them. A row older than the checkpoint settle lag also adds its
+ * amount to the account's checkpoints at or after its timestamp, since those may have been
+ * taken without it, e.g. by another instance while this one was down.
+ * <p>
+ * A batch whose append or sync fails is wiped from the journal before its transfers are
+ * failed, so none of them moves money on a later replay; should the wipe fail too, they are
+ * failed with {@link JournalOutcomeUnknownException} instead. Either way the journal takes
+ * no further transfers until restarted.
+ * <p>
+ * On startup every record after the checkpoint is applied before the bean is ready,
+ * so the service never accepts traffic with an unapplied tail. The checkpoint belongs to
+ * this journal's id, which is also written into its directory: a directory of another
+ * journal, or a journal that ends below its checkpoint, is refused, and an empty directory
+ * numbers its records on from the checkpoint so none of them is mistaken for applied.
+ */
+@Service
+@ConditionalOnProperty(name = "banking.journal.enabled", havingValue = "true")
+public class JournalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalService.class);
+    private static final double EPSILON = 1e-9;
+    private static final String ID_FILE = "journal.id";
+
+    private final BankAccountRepository bankAccountRepository;
+    private final TransactionRepository transactionRepository;
+    private final JournalCheckpointRepository checkpointRepository;
+    private final JournalDeadLetterRepository deadLetterRepository;
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final AccountLockManager accountLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final long journalId;
+    private final int segmentSize;
+    private final int maxBatch;
+    private final Duration settleLag;
+
+    private final Map<Long, Double> pendingDeltas = new ConcurrentHashMap<>();
+    /** timestamps of acknowledged records by sequence, until they are applied or parked */
+    private final Map<Long, LocalDateTime> unappliedTimestamps = new ConcurrentHashMap<>();
+    private final BlockingQueue<Append> appends = new LinkedBlockingQueue<>();
+    private final BlockingQueue<JournalRecord> unapplied = new LinkedBlockingQueue<>();
+
+    private TransactionJournal journal;
+    private Thread writer;
+    private Thread applier;
+    private volatile boolean running;
+    private volatile IOException failure;
+
+    public JournalService(BankAccountRepository bankAccountRepository, TransactionRepository transactionRepository,
+                          JournalCheckpointRepository checkpointRepository, JournalDeadLetterRepository deadLetterRepository,
+                          BalanceCheckpointRepository balanceCheckpointRepository, AccountLockManager accountLockManager,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${banking.journal.directory:journal}") Path directory,
+                          @Value("${banking.journal.id:1}") long journalId,
+                          @Value("${banking.journal.segment-size:67108864}") int segmentSize,
+                          @Value("${banking.journal.max-batch:256}") int maxBatch,
+                          @Value("${banking.checkpoints.settle-lag:PT5M}") Duration settleLag) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.transactionRepository = transactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.balanceCheckpointRepository = balanceCheckpointRepository;
+        this.accountLockManager = accountLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.directory = directory;
+        this.journalId = journalId;
+        this.segmentSize = segmentSize;
+        this.maxBatch = maxBatch;
+        this.settleLag = settleLag;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        journal = openJournal(directory, segmentSize);
+        claimDirectory();
+        long applied = appliedSequence();
+        if (journal.lastSequence() < applied) {
+            if (!journal.isEmpty()) {
+                throw new IllegalStateException("Journal " + journalId + " in " + directory + " ends at sequence "
+                        + journal.lastSequence() + ", below its applied checkpoint " + applied + ".");
+            }
+            // a new or wiped directory; records numbered at or below the checkpoint would be skipped
+            journal.continueAfter(applied);
+        }
+        replay();
+
+        running = true;
+        writer = new Thread(this::writeLoop, "journal-writer");
+        applier = new Thread(this::applyLoop, "journal-applier");
+        writer.start();
+        applier.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        applier.interrupt();
+        applier.join(TimeUnit.SECONDS.toMillis(30));
+        journal.close();
+        logger.info("Journal stopped with {} records left to replay", unapplied.size());
+    }
+
+    /**
+     * Amount journaled for the account but not yet written to its stored balance
+     */
+    public double pendingDelta(Long accountId) {
+        return pendingDeltas.getOrDefault(accountId, 0.0);
+    }
+
+    /**
+     * Timestamp of the oldest acknowledged transfer whose transaction rows are not written yet
+     */
+    public Optional<LocalDateTime> oldestUnappliedTimestamp() {
+        return unappliedTimestamps.values().stream().min(LocalDateTime::compareTo);
+    }
+
+    /**
+     * Durably journal a validated transfer. Callers hold the locks of both accounts, so no
+     * other transfer validates against them until the pending deltas have been recorded.
+     */
+    public JournalRecord append(long senderAccountId, long receiverAccountId, double amount, LocalDateTime timestamp) {
+        if (!running || failure != null) {
+            throw new RuntimeException("Transaction journal is unavailable.");
+        }
+        Append append = new Append(senderAccountId, receiverAccountId, amount, timestamp);
+        appends.add(append);
+        try {
+            return append.result.get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw failed(e.getCause());
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // only a transfer still queued can be called off; one the writer took is about to be synced or failed
+            if (appends.remove(append)) {
+                throw new RuntimeException("Transaction journal is unavailable.");
+            }
+            try {
+                return append.result.join();
+            } catch (CompletionException failed) {
+                throw failed(failed.getCause());
+            }
+        }
+    }
+
+    private static RuntimeException failed(Throwable cause) {
+        return cause instanceof JournalOutcomeUnknownException unknown
+                ? unknown
+                : new RuntimeException("Transaction journal is unavailable.");
+    }
+
+    /**
+     * Apply the journal tail left behind by the previous run
+     */
+    void replay() throws IOException {
+        long applied = appliedSequence();
+        List<JournalRecord> tail = new ArrayList<>();
+        journal.replay(applied, tail::add);
+        logger.info("Replaying {} journaled transfers after sequence {}", tail.size(), applied);
+
+        for (int from = 0; from < tail.size(); from += maxBatch) {
+            applyOrPark(tail.subList(from, Math.min(from + maxBatch, tail.size())), false);
+        }
+        journal.release(journal.lastSequence());
+    }
+
+    TransactionJournal openJournal(Path directory, int segmentSize) throws IOException {
+        return new TransactionJournal(directory, segmentSize);
+    }
+
+    /**
+     * Tie the directory to this journal id, so a changed id cannot re-apply or skip its records
+     */
+    private void claimDirectory() throws IOException {
+        Path marker = directory.resolve(ID_FILE);
+        if (Files.notExists(marker)) {
+            Files.writeString(marker, String.valueOf(journalId));
+            return;
+        }
+        long owner = Long.parseLong(Files.readString(marker).strip());
+        if (owner != journalId) {
+            throw new IllegalStateException("Journal directory " + directory + " belongs to journal " + owner + ", not " + journalId + ".");
+        }
+    }
+
+    private void writeLoop() {
+        List<Append> batch = new ArrayList<>();
+        while (running || !appends.isEmpty()) {
+            try {
+                batch.add(appends.take());
+            } catch (InterruptedException e) {
+                if (appends.isEmpty()) {
+                    break;
+                }
+            }
+            appends.drainTo(batch, maxBatch - batch.size());
+            if (failure != null) {
+                batch.forEach(append -> append.result.completeExceptionally(failure));
+                batch.clear();
+                continue;
+            }
+            try {
+                List<JournalRecord> records = new ArrayList<>(batch.size());
+                for (Append append : batch) {
+                    records.add(journal.append(append.senderAccountId, append.receiverAccountId, append.amount, append.timestamp));
+                }
+                journal.sync();
+                for (JournalRecord record : records) {
+                    pendingDeltas.merge(record.getSenderAccountId(), -record.getAmount(), Double::sum);
+                    pendingDeltas.merge(record.getReceiverAccountId(), record.getAmount(), Double::sum);
+                    unappliedTimestamps.put(record.getSequence(), record.getTimestamp());
+                }
+                unapplied.addAll(records);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result.complete(records.get(i));
+                }
+            } catch (IOException | UncheckedIOException e) {
+                logger.error("Journal write failed, refusing further journaled transfers", e);
+                failure = e instanceof IOException io ? io : ((UncheckedIOException) e).getCause();
+                RuntimeException outcome = discardFailedBatch();
+                batch.forEach(append -> append.result.completeExceptionally(outcome));
+            }
+            batch.clear();
+        }
+        appends.forEach(append -> append.result.completeExceptionally(new RuntimeException("Transaction journal is unavailable.")));
+    }
+
+    /**
+     * Wipe the records of a batch that failed to sync, so replay cannot apply transfers
+     * reported as failed; the error to fail them with
+     */
+    private RuntimeException discardFailedBatch() {
+        try {
+            journal.discardUnsynced();
+            return new RuntimeException("Transaction journal is unavailable.");
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not wipe the failed journal batch; its transfers may be applied on restart", e);
+            return new JournalOutcomeUnknownException();
+        }
+    }
+
+    private void applyLoop() {
+        List<JournalRecord> batch = new ArrayList<>();
+        long backoff = 100;
+        while (running || !unapplied.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    batch.add(unapplied.take());
+                    unapplied.drainTo(batch, maxBatch - 1);
+                }
+                applyOrPark(batch, true);
+                journal.release(batch.get(batch.size() - 1).getSequence());
+                batch.clear();
+                backoff = 100;
+            } catch (InterruptedException e) {
+                if (unapplied.isEmpty() && batch.isEmpty()) {
+                    break;
+                }
+            } catch (Exception e) {
+                // the batch stays queued; its pending deltas keep validation correct meanwhile
+                logger.error("Applying journal batch failed, retrying in {} ms", backoff, e);
+                if (!running) {
+                    break;
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ignored) {
+                    break;
+                }
+                backoff = Math.min(backoff * 2, 30_000);
+            }
+        }
+    }
+
+    /**
+     * Apply a batch; if one of its records is at fault, apply them one by one and park that record
+     */
+    void applyOrPark(List<JournalRecord> batch, boolean trackPending) {
+        try {
+            apply(batch, trackPending);
+        } catch (RuntimeException e) {
+            if (!isRecordFault(e)) {
+                throw e;
+            }
+            if (batch.size() == 1) {
+                park(batch.get(0), e.toString(), trackPending);
+                return;
+            }
+            logger.warn("Applying journal batch failed, applying its records one by one", e);
+            for (JournalRecord record : batch) {
+                applyOrPark(List.of(record), trackPending);
+            }
+        }
+    }
+
+    /**
+     * Write a batch to the database in one transaction, skipping anything at or below the checkpoint
+     * and parking records whose accounts no longer exist
+     */
+    void apply(List<JournalRecord> batch, boolean trackPending) {
+        Set<Long> accountIds = new HashSet<>();
+        batch.forEach(record -> {
+            accountIds.add(record.getSenderAccountId());
+            accountIds.add(record.getReceiverAccountId());
+        });
+
+        accountLockManager.withAccountLocks(accountIds, () -> {
+            List<JournalRecord> applied = transactionTemplate.execute(status -> {
+                JournalCheckpoint checkpoint = checkpointRepository.findById(journalId)
+                        .orElseGet(() -> new JournalCheckpoint(journalId, 0L));
+                Map<Long, BankAccount> accounts = bankAccountRepository.findAllById(accountIds).stream()
+                        .collect(Collectors.toMap(BankAccount::getId, Function.identity()));
+
+                LocalDateTime settled = LocalDateTime.now().minus(settleLag);
+                List<JournalRecord> fresh = new ArrayList<>();
+                List<Transaction> rows = new ArrayList<>();
+                List<JournalDeadLetter> parked = new ArrayList<>();
+                for (JournalRecord record : batch) {
+                    if (record.getSequence() <= checkpoint.getAppliedSequence()) {
+                        continue;
+                    }
+                    BankAccount sender = accounts.get(record.getSenderAccountId());
+                    BankAccount receiver = accounts.get(record.getReceiverAccountId());
+                    if (sender == null || receiver == null) {
+                        logger.error("Parking journal record {}: account {} no longer exists", record.getSequence(),
+                                sender == null ? record.getSenderAccountId() : record.getReceiverAccountId());
+                        parked.add(new JournalDeadLetter(journalId, record, "Account not found"));
+                        checkpoint.setAppliedSequence(record.getSequence());
+                        fresh.add(record);
+                        continue;
+                    }
+                    sender.setBalance(sender.getBalance() - record.getAmount());
+                    receiver.setBalance(receiver.getBalance() + record.getAmount());
+                    rows.add(new Transaction(sender.getId(), receiver.getIban(), record.getAmount(), sender.getCurrency(), TransactionType.DEBIT, record.getTimestamp()));
+                    rows.add(new Transaction(receiver.getId(), sender.getIban(), record.getAmount(), receiver.getCurrency(), TransactionType.CREDIT, record.getTimestamp()));
+                    if (record.getTimestamp().isBefore(settled)) {
+                        // a checkpoint may already cover this time without these rows
+                        balanceCheckpointRepository.shiftFrom(sender.getId(), record.getTimestamp(), -record.getAmount());
+                        balanceCheckpointRepository.shiftFrom(receiver.getId(), record.getTimestamp(), record.getAmount());
+                    }
+                    checkpoint.setAppliedSequence(record.getSequence());
+                    fresh.add(record);
+                }
+
+                bankAccountRepository.saveAll(accounts.values());
+                transactionRepository.saveAll(rows);
+                deadLetterRepository.saveAll(parked);
+                checkpointRepository.save(checkpoint);
+                return fresh;
+            });
+
+            if (trackPending) {
+                for (JournalRecord record : applied) {
+                    settle(record.getSenderAccountId(), -record.getAmount());
+                    settle(record.getReceiverAccountId(), record.getAmount());
+                }
+                batch.forEach(record -> unappliedTimestamps.remove(record.getSequence()));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Set a record aside with the reason and move the checkpoint past it; its amounts leave the pending deltas
+     */
+    private void park(JournalRecord record, String reason, boolean trackPending) {
+        accountLockManager.withAccountLocks(List.of(record.getSenderAccountId(), record.getReceiverAccountId()), () -> {
+            Boolean parked = transactionTemplate.execute(status -> {
+                JournalCheckpoint checkpoint = checkpointRepository.findById(journalId)
+                        .orElseGet(() -> new JournalCheckpoint(journalId, 0L));
+                if (record.getSequence() <= checkpoint.getAppliedSequence()) {
+                    return false;
+                }
+                deadLetterRepository.save(new JournalDeadLetter(journalId, record, reason));
+                checkpoint.setAppliedSequence(record.getSequence());
+                checkpointRepository.save(checkpoint);
+                return true;
+            });
+            if (Boolean.TRUE.equals(parked)) {
+                logger.error("Parked journal record {}: {}", record.getSequence(), reason);
+                if (trackPending) {
+                    settle(record.getSenderAccountId(), -record.getAmount());
+                    settle(record.getReceiverAccountId(), record.getAmount());
+                }
+            }
+            if (trackPending) {
+                unappliedTimestamps.remove(record.getSequence());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Whether the failure comes from the records themselves, such as a constraint they break,
+     * rather than from reaching the database; only the former would fail again on every retry
+     */
+    private static boolean isRecordFault(Exception e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof NonTransientDataAccessResourceException);
+    }
+
+    private void settle(long accountId, double appliedDelta) {
+        pendingDeltas.computeIfPresent(accountId, (id, delta) -> {
+            double remaining = delta - appliedDelta;
+            return Math.abs(remaining) < EPSILON ? null : remaining;
+        });
+    }
+
+    private long appliedSequence() {
+        return checkpointRepository.findById(journalId)
+                .map(JournalCheckpoint::getAppliedSequence)
+                .orElse(0L);
+    }
+
+    private static final class Append {
+        private final long senderAccountId;
+        private final long receiverAccountId;
+        private final double amount;
+        private final LocalDateTime timestamp;
+        private final CompletableFuture<JournalRecord> result = new CompletableFuture<>();
+
+        private Append(long senderAccountId, long receiverAccountId, double amount, LocalDateTime timestamp) {
+            this.senderAccountId = senderAccountId;
+            this.receiverAccountId = receiverAccountId;
+            this.amount = amount;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.bank.banking_service.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Memory-mapped, segment-rolled, checksummed transfer log.
+ * <p>
+ * Records have a fixed size: sequence, sender id, receiver id, amount, timestamp and a
+ * CRC32C of those fields. Segment files are named after their first sequence and are
+ * pre-allocated, so an unwritten slot reads as zeros. When opened, the journal scans
+ * forward and stops at the first slot that is not the next sequence with a valid
+ * checksum; that is where a crash tore the tail, and writing resumes from there.
+ * <p>
+ * {@link #append} only writes into the mapping; nothing is durable until {@link #sync}, and
+ * {@link #discardUnsynced} wipes what a failed sync left behind.
+ * One thread appends, any thread may {@link #release} applied segments.
+ */
+public class TransactionJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionJournal.class);
+
+    static final int RECORD_SIZE = 48;
+    private static final int CHECKSUMMED_BYTES = 40;
+    private static final String SUFFIX = ".journal";
+    private static final byte[] EMPTY_SLOT = new byte[RECORD_SIZE];
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private final List<MappedByteBuffer> unsynced = new ArrayList<>();
+
+    private MappedByteBuffer current;
+    private long lastSequence;
+    private long syncedSequence;
+
+    public TransactionJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < RECORD_SIZE) {
+            throw new IllegalArgumentException("Segment size must hold at least one record.");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize - segmentSize % RECORD_SIZE;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .forEach(file -> segments.put(firstSequenceOf(file), file));
+        }
+        recover();
+    }
+
+    /**
+     * Highest sequence written so far, durable or not
+     */
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Whether the journal holds no record at all
+     */
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return segments.isEmpty() || lastSequence < segments.firstKey();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number the next record after the given sequence; only allowed while the journal is empty
+     */
+    public void continueAfter(long sequence) throws IOException {
+        lock.lock();
+        try {
+            if (!isEmpty()) {
+                throw new IllegalStateException("Journal already holds records.");
+            }
+            for (Path file : segments.values()) {
+                Files.deleteIfExists(file);
+            }
+            segments.clear();
+            unsynced.clear();
+            current = null;
+            lastSequence = sequence;
+            syncedSequence = sequence;
+        } finally {
+            lock.unlock();
+        }
+        logger.info("Journal in {} continues after sequence {}", directory, sequence);
+    }
+
+    /**
+     * Write one record at the tail and return it with its sequence
+     */
+    public JournalRecord append(long senderAccountId, long receiverAccountId, double amount, LocalDateTime timestamp) throws IOException {
+        lock.lock();
+        try {
+            if (current == null || current.remaining() < RECORD_SIZE) {
+                roll();
+            }
+            JournalRecord record = new JournalRecord(lastSequence + 1, senderAccountId, receiverAccountId, amount, timestamp);
+            write(current, record);
+            lastSequence = record.getSequence();
+            return record;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Force everything appended so far to disk; one call covers a whole batch of appends
+     */
+    public void sync() {
+        lock.lock();
+        try {
+            unsynced.forEach(MappedByteBuffer::force);
+            unsynced.clear();
+            if (current != null) {
+                current.force();
+            }
+            syncedSequence = lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wipe the records appended since the last successful sync from the files and force that
+     * to disk, so that a batch whose transfers were reported as failed is never replayed;
+     * writing resumes right after the last synced record
+     */
+    public void discardUnsynced() throws IOException {
+        lock.lock();
+        try {
+            long first = syncedSequence + 1;
+            Long floor = segments.floorKey(first);
+            if (floor != null) {
+                // a torn slot hides everything after it from recover(), so the tail segment is wiped first
+                MappedByteBuffer tail = map(segments.get(floor), FileChannel.MapMode.READ_WRITE);
+                int position = (int) ((first - floor) * RECORD_SIZE);
+                long written = Math.min(lastSequence - syncedSequence, (tail.limit() - position) / RECORD_SIZE);
+                tail.position(position);
+                for (long i = 0; i < written; i++) {
+                    tail.put(EMPTY_SLOT);
+                }
+                tail.force();
+                tail.position(position);
+
+                List<Path> later = new ArrayList<>(segments.tailMap(floor, false).values());
+                segments.tailMap(floor, false).clear();
+                for (Path file : later) {
+                    MappedByteBuffer head = map(file, FileChannel.MapMode.READ_WRITE);
+                    head.put(EMPTY_SLOT);
+                    head.force();
+                    Files.deleteIfExists(file);
+                }
+                current = tail;
+            }
+            unsynced.clear();
+            logger.warn("Discarded journal records {} to {} that were never synced", first, lastSequence);
+            lastSequence = syncedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand every intact record after the given sequence to the consumer, in order
+     */
+    public void replay(long afterSequence, Consumer<JournalRecord> consumer) throws IOException {
+        List<Path> files;
+        lock.lock();
+        try {
+            Long from = segments.floorKey(afterSequence + 1);
+            files = new ArrayList<>((from == null ? segments : segments.tailMap(from, true)).values());
+        } finally {
+            lock.unlock();
+        }
+        for (Path file : files) {
+            ByteBuffer buffer = map(file, FileChannel.MapMode.READ_ONLY);
+            long expected = firstSequenceOf(file);
+            while (buffer.remaining() >= RECORD_SIZE) {
+                JournalRecord record = read(buffer, expected);
+                if (record == null) {
+                    break;
+                }
+                if (record.getSequence() > afterSequence) {
+                    consumer.accept(record);
+                }
+                expected++;
+            }
+        }
+    }
+
+    /**
+     * Delete segments whose records have all been applied; the segment being written is kept
+     */
+    public void release(long appliedSequence) throws IOException {
+        List<Path> obsolete = new ArrayList<>();
+        lock.lock();
+        try {
+            Long next;
+            while (segments.size() > 1 && (next = segments.higherKey(segments.firstKey())) != null && next - 1 <= appliedSequence) {
+                obsolete.add(segments.pollFirstEntry().getValue());
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Path file : obsolete) {
+            Files.deleteIfExists(file);
+            logger.info("Released journal segment {}", file.getFileName());
+        }
+    }
+
+    @Override
+    public void close() {
+        sync();
+    }
+
+    /**
+     * Find the end of the valid records and position the tail there
+     */
+    private void recover() throws IOException {
+        long expected = segments.isEmpty() ? 1 : segments.firstKey();
+        lastSequence = expected - 1;
+        Map.Entry<Long, Path> tail = null;
+        int tailPosition = 0;
+
+        for (Map.Entry<Long, Path> segment : new ArrayList<>(segments.entrySet())) {
+            if (tail != null || segment.getKey() != expected) {
+                // a segment after a torn one can never have been acknowledged
+                Files.deleteIfExists(segment.getValue());
+                segments.remove(segment.getKey());
+                logger.warn("Discarded journal segment {} after a torn tail", segment.getValue().getFileName());
+                continue;
+            }
+            ByteBuffer buffer = map(segment.getValue(), FileChannel.MapMode.READ_ONLY);
+            int position = 0;
+            while (buffer.remaining() >= RECORD_SIZE && read(buffer, expected) != null) {
+                expected++;
+                position += RECORD_SIZE;
+            }
+            lastSequence = expected - 1;
+            if (buffer.remaining() >= RECORD_SIZE) {
+                tail = segment;
+                tailPosition = position;
+            }
+        }
+
+        if (tail != null) {
+            current = map(tail.getValue(), FileChannel.MapMode.READ_WRITE);
+            // wipe the torn slot so it cannot be mistaken for a record later
+            current.position(tailPosition);
+            current.put(EMPTY_SLOT);
+            current.position(tailPosition);
+        }
+        syncedSequence = lastSequence;
+        logger.info("Opened journal in {} at sequence {}", directory, lastSequence);
+    }
+
+    private void roll() throws IOException {
+        if (current != null) {
+            unsynced.add(current);
+        }
+        long firstSequence = lastSequence + 1;
+        Path file = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        current = map(file, FileChannel.MapMode.READ_WRITE);
+        segments.put(firstSequence, file);
+    }
+
+    private MappedByteBuffer map(Path file, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE};
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            long size = mode == FileChannel.MapMode.READ_ONLY ? channel.size() - channel.size() % RECORD_SIZE : segmentSize;
+            return channel.map(mode, 0, size);
+        }
+    }
+
+    private static void write(ByteBuffer buffer, JournalRecord record) {
+        int start = buffer.position();
+        buffer.putLong(record.getSequence());
+        buffer.putLong(record.getSenderAccountId());
+        buffer.putLong(record.getReceiverAccountId());
+        buffer.putDouble(record.getAmount());
+        buffer.putLong(toEpochNanos(record.getTimestamp()));
+        buffer.putInt(checksum(buffer, start));
+        buffer.putInt(0);
+    }
+
+    /**
+     * Read the record at the buffer's position, or null if it is not the expected sequence with a valid checksum
+     */
+    private static JournalRecord read(ByteBuffer buffer, long expectedSequence) {
+        int start = buffer.position();
+        long sequence = buffer.getLong(start);
+        if (sequence != expectedSequence || buffer.getInt(start + CHECKSUMMED_BYTES) != checksum(buffer, start)) {
+            return null;
+        }
+        JournalRecord record = new JournalRecord(sequence, buffer.getLong(start + 8), buffer.getLong(start + 16),
+                buffer.getDouble(start + 24), fromEpochNanos(buffer.getLong(start + 32)));
+        buffer.position(start + RECORD_SIZE);
+        return record;
+    }
+
+    private static int checksum(ByteBuffer buffer, int start) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start, CHECKSUMMED_BYTES));
+        return (int) crc.getValue();
+    }
+
+    private static long firstSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static long toEpochNanos(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano();
+    }
+
+    private static LocalDateTime fromEpochNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
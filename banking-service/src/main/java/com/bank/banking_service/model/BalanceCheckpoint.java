@@ -0,0 +1,44 @@
+package com.bank.banking_service.model;
+
+import com.bank.banking_service.utils.TimeOrderedId;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Materialized balance of an account covering every transaction up to and including {@code asOf}
+ */
+@Entity
+@Table(name = "balance_checkpoints", uniqueConstraints =
+        @UniqueConstraint(name = "uk_balance_checkpoints_account_as_of", columnNames = {"account_id", "as_of"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceCheckpoint {
+
+    @Id
+    @TimeOrderedId
+    private Long id;
+
+    @Column(nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private LocalDateTime asOf;
+
+    @Column(nullable = false)
+    private Double balance;
+
+
+    public BalanceCheckpoint(Long accountId, LocalDateTime asOf, Double balance) {
+        this.accountId = accountId;
+        this.asOf = asOf;
+        this.balance = balance;
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.bank.banking_service.model;
 
+import com.bank.banking_service.utils.TimeOrderedId;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.AllArgsConstructor;
@@ -16,7 +17,7 @@ import lombok.Setter;
 public class BankAccount {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -1,6 +1,7 @@
 package com.bank.banking_service.model;
 
 
+import com.bank.banking_service.utils.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -13,7 +14,7 @@ import lombok.*;
 public class Card {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Enumerated(EnumType.STRING)
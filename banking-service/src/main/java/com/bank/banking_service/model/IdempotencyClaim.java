@@ -0,0 +1,50 @@
+package com.bank.banking_service.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key taken by the request about to transfer in journal mode, where the transfer
+ * is final once journaled and its {@link IdempotencyRecord} can only follow in a separate
+ * transaction. The primary key lets only one request across all instances hold it.
+ */
+@Entity
+@Table(name = "idempotency_claims", indexes =
+        @Index(name = "idx_idempotency_claims_created_at", columnList = "createdAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class IdempotencyClaim implements Persistable<String> {
+
+    @Id
+    @Column(length = 300)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+
+    public IdempotencyClaim(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Always inserted, never merged, so a taken key fails on the primary key
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.bank.banking_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a transfer made under an Idempotency-Key, written in the same database
+ * transaction as the transfer itself. The debit record is copied here so a retry can be
+ * answered without reading the transactions or accounts tables.
+ */
+@Entity
+@Table(name = "idempotency_records", indexes =
+        @Index(name = "idx_idempotency_records_created_at", columnList = "createdAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+
+    /**
+     * User id and client key, so two clients can never collide on a key
+     */
+    @Id
+    @Column(length = 300)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String fingerprint;
+
+    private Long transactionId;
+
+    @Column(nullable = false)
+    private Long bankAccountId;
+
+    @Column(nullable = false)
+    private String iban;
+
+    @Column(nullable = false)
+    private Double amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Currency currency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionType type;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * The key is assigned, so without this flag saving would first select to decide between insert and merge
+     */
+    @Transient
+    private boolean stored;
+
+
+    public IdempotencyRecord(String idempotencyKey, String fingerprint, Transaction transaction) {
+        this.idempotencyKey = idempotencyKey;
+        this.fingerprint = fingerprint;
+        this.transactionId = transaction.getId();
+        this.bankAccountId = transaction.getBankAccountId();
+        this.iban = transaction.getIban();
+        this.amount = transaction.getAmount();
+        this.currency = transaction.getCurrency();
+        this.type = transaction.getType();
+        this.timestamp = transaction.getTimestamp();
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markStored() {
+        this.stored = true;
+    }
+
+    public Transaction toTransaction() {
+        return new Transaction(transactionId, bankAccountId, iban, amount, currency, type, timestamp);
+    }
+
+}
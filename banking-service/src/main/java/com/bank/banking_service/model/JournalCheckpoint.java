@@ -0,0 +1,29 @@
+package com.bank.banking_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Highest sequence of one journal ({@code banking.journal.id}) already applied to the accounts and
+ * transactions tables. Updated in the same database transaction as the balances, so a replay never
+ * applies a record twice. Each instance journals into its own directory with its own numbering,
+ * so each has its own row.
+ */
+@Entity
+@Table(name = "journal_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalCheckpoint {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long appliedSequence = 0L;
+
+}
@@ -0,0 +1,66 @@
+package com.bank.banking_service.model;
+
+import com.bank.banking_service.journal.JournalRecord;
+import com.bank.banking_service.utils.TimeOrderedId;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Acknowledged journal record that could not be applied, such as a transfer to an account
+ * deleted meanwhile. It is kept here for manual resolution so later records still apply.
+ */
+@Entity
+@Table(name = "journal_dead_letters", uniqueConstraints =
+        @UniqueConstraint(name = "uk_journal_dead_letters_journal_sequence", columnNames = {"journal_id", "sequence"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalDeadLetter {
+
+    @Id
+    @TimeOrderedId
+    private Long id;
+
+    @Column(nullable = false)
+    private Long journalId;
+
+    @Column(nullable = false)
+    private Long sequence;
+
+    @Column(nullable = false)
+    private Long senderAccountId;
+
+    @Column(nullable = false)
+    private Long receiverAccountId;
+
+    @Column(nullable = false)
+    private Double amount;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    @Column(nullable = false, length = 1000)
+    private String reason;
+
+    @Column(nullable = false)
+    private LocalDateTime parkedAt;
+
+
+    public JournalDeadLetter(long journalId, JournalRecord record, String reason) {
+        this.journalId = journalId;
+        this.sequence = record.getSequence();
+        this.senderAccountId = record.getSenderAccountId();
+        this.receiverAccountId = record.getReceiverAccountId();
+        this.amount = record.getAmount();
+        this.timestamp = record.getTimestamp();
+        this.reason = reason.length() > 1000 ? reason.substring(0, 1000) : reason;
+        this.parkedAt = LocalDateTime.now();
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.bank.banking_service.model;
 
+import com.bank.banking_service.utils.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -9,7 +10,10 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_timestamp_id", columnList = "timestamp, id"),
+        @Index(name = "idx_transactions_account_timestamp_id", columnList = "bank_account_id, timestamp, id")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -17,7 +21,7 @@ import java.time.LocalDateTime;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(nullable = false)
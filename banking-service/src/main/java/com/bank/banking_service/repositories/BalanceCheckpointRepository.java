@@ -0,0 +1,32 @@
+package com.bank.banking_service.repositories;
+
+import com.bank.banking_service.model.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+
+    Optional<BalanceCheckpoint> findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(Long accountId, LocalDateTime asOf);
+
+    @Query("SELECT MAX(c.asOf) FROM BalanceCheckpoint c")
+    Optional<LocalDateTime> findLatestAsOf();
+
+    @Query("SELECT c FROM BalanceCheckpoint c WHERE c.accountId IN :accountIds AND c.asOf = " +
+            "(SELECT MAX(l.asOf) FROM BalanceCheckpoint l WHERE l.accountId = c.accountId)")
+    List<BalanceCheckpoint> findLatestByAccountIdIn(@Param("accountIds") Collection<Long> accountIds);
+
+    /**
+     * Add a late transaction's amount to the account's checkpoints that should have covered it
+     */
+    @Modifying
+    @Query("UPDATE BalanceCheckpoint c SET c.balance = c.balance + :delta WHERE c.accountId = :accountId AND c.asOf >= :from")
+    int shiftFrom(@Param("accountId") Long accountId, @Param("from") LocalDateTime from, @Param("delta") double delta);
+}
@@ -1,12 +1,14 @@
 package com.bank.banking_service.repositories;
 
-import com.bank.banking_service.dtos.CreditDetails;
+import com.bank.banking_service.dtos.AccountIdentity;
+import com.bank.banking_service.dtos.TransferPreflight;
 import com.bank.banking_service.model.AccountStatus;
 import com.bank.banking_service.model.BankAccount;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,12 +20,19 @@ public interface BankAccountRepository extends JpaRepository<BankAccount, Long>
 
     Optional<BankAccount> findByIban(String iban);
 
-    @Query("SELECT COUNT(c) FROM Card c WHERE c.bankAccount.id = :accountId")
-    int countLinkedCards(@Param("accountId") Long accountId);
+    @Query("SELECT b.id FROM BankAccount b WHERE b.iban = :iban")
+    Optional<Long> findIdByIban(@Param("iban") String iban);
 
-    @Query("SELECT c.creditLimit AS creditLimit, c.interestRate AS interestRate " +
-            "FROM Card c WHERE c.bankAccount.id = :accountId")
-    Optional<CreditDetails> getCreditDetails(@Param("accountId") Long accountId);
+    @Query("SELECT b.id AS id, b.iban AS iban FROM BankAccount b WHERE b.iban IN :ibans")
+    List<AccountIdentity> findIdentitiesByIbanIn(@Param("ibans") Collection<String> ibans);
+
+    @Query("SELECT s AS sender, r AS receiver, c.id AS linkedCardId, " +
+            "c.creditLimit AS creditLimit, c.interestRate AS interestRate " +
+            "FROM BankAccount s JOIN BankAccount r ON r.iban = :receiverIban " +
+            "LEFT JOIN Card c ON c.bankAccount = s " +
+            "WHERE s.id = :senderAccountId")
+    Optional<TransferPreflight> findTransferPreflight(@Param("senderAccountId") Long senderAccountId,
+                                                      @Param("receiverIban") String receiverIban);
 
     List<BankAccount> findByUserId(Long userId);
 }
@@ -5,6 +5,7 @@ import com.bank.banking_service.model.CardStatus;
 import com.bank.banking_service.model.CardType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,4 +19,6 @@ public interface CardRepository extends JpaRepository<Card, Long> {
     List<Card> findByStatusAndType(CardStatus cardStatus, CardType cardType);
 
     List<Card> findByUserId(Long userId);
+
+    List<Card> findByBankAccountIdIn(Collection<Long> accountIds);
 }
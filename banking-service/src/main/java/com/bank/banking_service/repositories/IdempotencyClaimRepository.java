@@ -0,0 +1,21 @@
+package com.bank.banking_service.repositories;
+
+import com.bank.banking_service.model.IdempotencyClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyClaimRepository extends JpaRepository<IdempotencyClaim, String> {
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyClaim c WHERE c.idempotencyKey = :key")
+    int release(@Param("key") String key);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyClaim c WHERE c.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,9 @@
+package com.bank.banking_service.repositories;
+
+import com.bank.banking_service.model.JournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JournalCheckpointRepository extends JpaRepository<JournalCheckpoint, Long> {
+}
@@ -1,19 +1,63 @@
 package com.bank.banking_service.repositories;
 
+import com.bank.banking_service.dtos.AccountDelta;
 import com.bank.banking_service.model.Transaction;
+import com.bank.banking_service.model.TransactionType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    @Query("SELECT t FROM Transaction t ORDER BY t.timestamp DESC, t.id DESC")
+    List<Transaction> findFirstPage(Limit limit);
+
+    @Query("SELECT t FROM Transaction t " +
+            "WHERE t.timestamp < :timestamp OR (t.timestamp = :timestamp AND t.id < :id) " +
+            "ORDER BY t.timestamp DESC, t.id DESC")
+    List<Transaction> findPageBefore(@Param("timestamp") LocalDateTime timestamp, @Param("id") Long id, Limit limit);
 
     @Query("SELECT t FROM Transaction t WHERE t.bankAccountId IN " +
-            "(SELECT b.id FROM BankAccount b WHERE b.userId = :userId)")
-    List<Transaction> findByUserId(@Param("userId") Long userId);
+            "(SELECT b.id FROM BankAccount b WHERE b.userId = :userId) " +
+            "ORDER BY t.timestamp DESC, t.id DESC")
+    List<Transaction> findFirstPageByUserId(@Param("userId") Long userId, Limit limit);
 
-}
+    @Query("SELECT t FROM Transaction t WHERE t.bankAccountId IN " +
+            "(SELECT b.id FROM BankAccount b WHERE b.userId = :userId) " +
+            "AND (t.timestamp < :timestamp OR (t.timestamp = :timestamp AND t.id < :id)) " +
+            "ORDER BY t.timestamp DESC, t.id DESC")
+    List<Transaction> findPageBeforeByUserId(@Param("userId") Long userId, @Param("timestamp") LocalDateTime timestamp,
+                                             @Param("id") Long id, Limit limit);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT t FROM Transaction t ORDER BY t.timestamp DESC, t.id DESC")
+    Stream<Transaction> streamAll();
 
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT t FROM Transaction t WHERE t.bankAccountId IN " +
+            "(SELECT b.id FROM BankAccount b WHERE b.userId = :userId) " +
+            "ORDER BY t.timestamp DESC, t.id DESC")
+    Stream<Transaction> streamByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.type = :credit THEN t.amount ELSE -t.amount END), 0) " +
+            "FROM Transaction t WHERE t.bankAccountId = :accountId AND t.timestamp > :from AND t.timestamp <= :to")
+    Double sumBalanceDelta(@Param("accountId") Long accountId, @Param("from") LocalDateTime from,
+                           @Param("to") LocalDateTime to, @Param("credit") TransactionType credit);
+
+    @Query("SELECT t.bankAccountId AS accountId, " +
+            "SUM(CASE WHEN t.type = :credit THEN t.amount ELSE -t.amount END) AS delta " +
+            "FROM Transaction t WHERE t.timestamp > :from AND t.timestamp <= :to GROUP BY t.bankAccountId")
+    List<AccountDelta> sumBalanceDeltas(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                        @Param("credit") TransactionType credit);
+}
@@ -0,0 +1,16 @@
+package com.bank.banking_service.security;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Caller of the current request, read from its verified JWT once by {@link JwtAuthenticationFilter}.
+ * Controllers take it as a method parameter instead of parsing the Authorization header again.
+ */
+public record AuthenticatedUser(Long userId, String username, String role, Instant expiresAt, String tokenId) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
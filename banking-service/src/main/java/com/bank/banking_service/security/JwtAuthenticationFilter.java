@@ -2,6 +2,8 @@ package com.bank.banking_service.security;
 
 
 import com.bank.banking_service.utils.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,8 +12,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -24,9 +24,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 
     private final JwtUtil jwtUtil;
+    private final RevocationFeed revocationFeed;
+    private final Timer validTimer;
+    private final Timer invalidTimer;
+    private final Timer revokedTimer;
+    private final MeterRegistry meterRegistry;
 
-    public JwtAuthenticationFilter( JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter( JwtUtil jwtUtil, RevocationFeed revocationFeed, MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
+        this.revocationFeed = revocationFeed;
+        this.meterRegistry = meterRegistry;
+        this.validTimer = verificationTimer("valid");
+        this.invalidTimer = verificationTimer("invalid");
+        this.revokedTimer = verificationTimer("revoked");
+    }
+
+    private Timer verificationTimer(String outcome) {
+        return Timer.builder("jwt.verification")
+                .description("Token verification per request, including the revocation check")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Override
@@ -36,22 +53,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = extractToken(request);
 
         if (token != null) {
+            Timer.Sample verification = Timer.start(meterRegistry);
+            Timer outcome = invalidTimer;
             try {
 
-                if (jwtUtil.validateToken(token)) {
-                    String username = jwtUtil.extractUsername(token);
-                    String role = formatRole(jwtUtil.extractRole(token));
+                // one signature verification per request; controllers reuse the principal
+                AuthenticatedUser user = jwtUtil.parse(token);
+                if (revocationFeed.isRevoked(user)) {
+                    outcome = revokedTimer;
+                    throw new RuntimeException("Token has been revoked.");
+                }
+                outcome = validTimer;
+                String role = formatRole(user.role());
 
-                    // Assign role from token response
-                    UserDetails userDetails = new User(username, "", Collections.singletonList(new SimpleGrantedAuthority(role)));
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        user, null, Collections.singletonList(new SimpleGrantedAuthority(role)));
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                } else {
-                    throw new RuntimeException("Invalid token received from auth-service.");
-                }
+                SecurityContextHolder.getContext().setAuthentication(authToken);
 
             } catch (Exception e) {
                 SecurityContextHolder.clearContext();
@@ -59,6 +78,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 response.getWriter().write("Unauthorized: " + e.getMessage()); // Return error message
                 response.getWriter().flush();
                 return;
+            } finally {
+                verification.stop(outcome);
             }
         }
 
@@ -0,0 +1,159 @@
+package com.bank.banking_service.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Local copy of the authentication service's revocation feed.
+ * <p>
+ * New entries are pulled every few seconds, so a deactivated user's tokens are rejected
+ * shortly after without any call per request. Ids are assigned before the insert commits,
+ * so an entry may become visible after one with a higher id; each poll therefore starts
+ * from the id it had reached an overlap ago and re-reads that window. Adding an entry
+ * twice is harmless. Every resync interval the
+ * whole feed is loaded into a fresh {@link RevocationList}, which drops entries whose tokens
+ * have expired meanwhile. A failed poll keeps the current list. The feed is only served to
+ * other services, so every request carries the service token.
+ */
+@Component
+public class RevocationFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationFeed.class);
+    private static final int PAGE_SIZE = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final URI feedUri;
+    private final String serviceToken;
+    private final Duration resyncInterval;
+    private final Duration overlap;
+    private final int expectedEntries;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    private volatile RevocationList revocations;
+    private long cursor;
+    private Mark rereadFrom = new Mark(System.nanoTime(), 0);
+    private final Deque<Mark> marks = new ArrayDeque<>();
+    private long syncedAt;
+    private boolean synced;
+
+    public RevocationFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                          @Value("${jwt.revocations.uri:}") String feedUri,
+                          @Value("${auth.service-token:}") String serviceToken,
+                          @Value("${jwt.revocations.resync:PT1H}") Duration resyncInterval,
+                          @Value("${jwt.revocations.overlap:PT15S}") Duration overlap,
+                          @Value("${jwt.revocations.expected-entries:100000}") int expectedEntries) {
+        this.objectMapper = objectMapper;
+        this.feedUri = feedUri == null || feedUri.isBlank() ? null : URI.create(feedUri);
+        this.serviceToken = serviceToken;
+        this.resyncInterval = resyncInterval;
+        this.overlap = overlap;
+        this.expectedEntries = expectedEntries;
+        this.revocations = new RevocationList(expectedEntries);
+
+        Gauge.builder("jwt.revocations.entries", this, feed -> feed.revocations.size()).register(meterRegistry);
+        Gauge.builder("jwt.revocations.memory", this, feed -> feed.revocations.memoryBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(AuthenticatedUser user) {
+        return revocations.isRevoked(user.userId(), user.tokenId());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocations.refresh:PT5S}")
+    public void poll() {
+        if (feedUri == null) {
+            return;
+        }
+        try {
+            if (!synced || System.nanoTime() - syncedAt >= resyncInterval.toNanos()) {
+                resync();
+            } else {
+                // entries behind the cursor come back as well; a failed poll re-reads them next time
+                cursor = Math.max(cursor, fetchInto(revocations, overlapStart()));
+            }
+            marks.addLast(new Mark(System.nanoTime(), cursor));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Could not load revocations from {}: {}", feedUri, e.getMessage());
+        }
+    }
+
+    /**
+     * The cursor as it was an overlap ago; every id in it was assigned by then
+     */
+    private long overlapStart() {
+        long threshold = System.nanoTime() - overlap.toNanos();
+        while (!marks.isEmpty() && marks.peekFirst().at() <= threshold) {
+            rereadFrom = marks.pollFirst();
+        }
+        return rereadFrom.cursor();
+    }
+
+    /**
+     * Load the whole feed into a new list and swap it in
+     */
+    void resync() throws Exception {
+        RevocationList fresh = new RevocationList(Math.max(expectedEntries, revocations.size()));
+        long next = fetchInto(fresh, 0);
+        revocations = fresh;
+        cursor = next;
+        syncedAt = System.nanoTime();
+        synced = true;
+        logger.info("Loaded {} revocations from {}", fresh.size(), feedUri);
+    }
+
+    /**
+     * Add every entry after the given id to the list and return the last id seen
+     */
+    private long fetchInto(RevocationList list, long after) throws Exception {
+        while (true) {
+            URI page = URI.create(feedUri + "?after=" + after + "&limit=" + PAGE_SIZE);
+            HttpRequest request = HttpRequest.newBuilder(page)
+                    .timeout(Duration.ofSeconds(5))
+                    .header("Authorization", "Bearer " + serviceToken)
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Revocation feed returned " + response.statusCode());
+            }
+
+            JsonNode entries = objectMapper.readTree(response.body());
+            for (JsonNode entry : entries) {
+                String subject = entry.get("subject").asText();
+                switch (entry.get("type").asText()) {
+                    case "USER" -> list.revokeUser(Long.parseLong(subject));
+                    case "TOKEN" -> list.revokeToken(subject);
+                    default -> logger.warn("Ignoring revocation of unknown type {}", entry.get("type").asText());
+                }
+                after = entry.get("id").asLong();
+            }
+            if (entries.size() < PAGE_SIZE) {
+                return after;
+            }
+        }
+    }
+
+    /**
+     * The cursor reached by a poll that ended at the given {@link System#nanoTime()}
+     */
+    private record Mark(long at, long cursor) {
+    }
+}
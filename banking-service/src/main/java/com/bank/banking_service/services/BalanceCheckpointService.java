@@ -0,0 +1,144 @@
+package com.bank.banking_service.services;
+
+import com.bank.banking_service.dtos.AccountDelta;
+import com.bank.banking_service.dtos.BalanceAsOf;
+import com.bank.banking_service.journal.JournalService;
+import com.bank.banking_service.model.BalanceCheckpoint;
+import com.bank.banking_service.model.TransactionType;
+import com.bank.banking_service.repositories.BalanceCheckpointRepository;
+import com.bank.banking_service.repositories.BankAccountRepository;
+import com.bank.banking_service.repositories.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Balances as of a point in time.
+ * <p>
+ * A scheduled job materializes a checkpoint for every account that moved since the previous
+ * run, covering all transactions up to a cutoff that trails the clock by a settle lag, so
+ * a transfer stamped before the cutoff but committed after it is not missed. An as-of query
+ * then starts from the nearest checkpoint at or before the requested time and only sums the
+ * account's transactions after it, instead of replaying its whole history.
+ * <p>
+ * In journal mode, transaction rows carry the time of the append but are written later, so
+ * the cutoff also stays below the oldest journaled transfer not yet applied on this instance.
+ */
+@Service
+public class BalanceCheckpointService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceCheckpointService.class);
+
+    /**
+     * Accounts open with a zero balance, so an account without checkpoint starts from here
+     */
+    static final LocalDateTime ORIGIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int CHUNK_SIZE = 500;
+
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration settleLag;
+    private final JournalService journalService;
+
+    public BalanceCheckpointService(BalanceCheckpointRepository checkpointRepository,
+                                    BankAccountRepository bankAccountRepository,
+                                    TransactionRepository transactionRepository,
+                                    TransactionTemplate transactionTemplate,
+                                    ObjectProvider<JournalService> journalService,
+                                    @Value("${banking.checkpoints.settle-lag:PT5M}") Duration settleLag) {
+        this.checkpointRepository = checkpointRepository;
+        this.bankAccountRepository = bankAccountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.settleLag = settleLag;
+        this.journalService = journalService.getIfAvailable();
+    }
+
+    /**
+     * Banker gets the balance of an account as it was at the given time
+     */
+    public BalanceAsOf getBalanceAsOf(Long accountId, LocalDateTime asOf) {
+        logger.info("Fetching balance of accountId: {} as of {}", accountId, asOf);
+        if (!bankAccountRepository.existsById(accountId)) {
+            logger.error("Account not found for accountId: {}", accountId);
+            throw new RuntimeException("Account not found");
+        }
+
+        BalanceCheckpoint checkpoint = checkpointRepository
+                .findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(accountId, asOf)
+                .orElse(null);
+        LocalDateTime from = checkpoint == null ? ORIGIN : checkpoint.getAsOf();
+        double start = checkpoint == null ? 0.0 : checkpoint.getBalance();
+        double delta = transactionRepository.sumBalanceDelta(accountId, from, asOf, TransactionType.CREDIT);
+
+        logger.info("Balance of accountId: {} as of {} computed from checkpoint at {}", accountId, asOf, from);
+        return new BalanceAsOf(accountId, asOf, start + delta);
+    }
+
+    /**
+     * Checkpoint every account with transactions since the last run
+     */
+    @Scheduled(fixedDelayString = "${banking.checkpoints.interval:PT1H}",
+            initialDelayString = "${banking.checkpoints.initial-delay:PT1M}")
+    public void createCheckpoints() {
+        createCheckpoints(LocalDateTime.now().minus(settleLag));
+    }
+
+    /**
+     * Checkpoint every account with transactions between the previous cutoff and this one,
+     * stopping short of journaled transfers not applied yet
+     */
+    public int createCheckpoints(LocalDateTime requestedCutoff) {
+        LocalDateTime cutoff = heldBack(requestedCutoff);
+        Integer created = transactionTemplate.execute(status -> {
+            LocalDateTime previous = checkpointRepository.findLatestAsOf().orElse(ORIGIN);
+            if (!cutoff.isAfter(previous)) {
+                return 0;
+            }
+
+            List<AccountDelta> deltas = transactionRepository.sumBalanceDeltas(previous, cutoff, TransactionType.CREDIT);
+            List<BalanceCheckpoint> checkpoints = new ArrayList<>(deltas.size());
+            for (int from = 0; from < deltas.size(); from += CHUNK_SIZE) {
+                List<AccountDelta> chunk = deltas.subList(from, Math.min(from + CHUNK_SIZE, deltas.size()));
+                Map<Long, Double> latest = checkpointRepository
+                        .findLatestByAccountIdIn(chunk.stream().map(AccountDelta::getAccountId).toList()).stream()
+                        .collect(Collectors.toMap(BalanceCheckpoint::getAccountId, BalanceCheckpoint::getBalance));
+                for (AccountDelta delta : chunk) {
+                    double start = latest.getOrDefault(delta.getAccountId(), 0.0);
+                    checkpoints.add(new BalanceCheckpoint(delta.getAccountId(), cutoff, start + delta.getDelta()));
+                }
+            }
+            checkpointRepository.saveAll(checkpoints);
+            return checkpoints.size();
+        });
+        logger.info("Created {} balance checkpoints as of {}", created, cutoff);
+        return created;
+    }
+
+    /**
+     * The cutoff, moved just below the oldest journaled transfer whose rows are not written yet
+     */
+    private LocalDateTime heldBack(LocalDateTime cutoff) {
+        LocalDateTime unapplied = journalService == null ? null : journalService.oldestUnappliedTimestamp().orElse(null);
+        if (unapplied == null || unapplied.isAfter(cutoff)) {
+            return cutoff;
+        }
+        logger.info("Balance checkpoint cutoff held back from {} to before unapplied journal record at {}", cutoff, unapplied);
+        // timestamps are stored to the microsecond
+        return unapplied.truncatedTo(ChronoUnit.MICROS).minus(1, ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,189 @@
+package com.bank.banking_service.services;
+
+import com.bank.banking_service.exception.JournalOutcomeUnknownException;
+import com.bank.banking_service.model.IdempotencyClaim;
+import com.bank.banking_service.model.IdempotencyRecord;
+import com.bank.banking_service.model.Transaction;
+import com.bank.banking_service.repositories.IdempotencyClaimRepository;
+import com.bank.banking_service.repositories.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Transfers made under an Idempotency-Key happen at most once.
+ * <p>
+ * A retry is answered from a bounded, expiring in-memory cache of recent outcomes, then
+ * from the durable idempotency_records table, which is written in the same database
+ * transaction as the transfer. A duplicate that arrives while the first request is still
+ * running waits for that execution instead of starting its own. Only successful transfers
+ * are remembered; a rejected one moved no money and may be retried as is.
+ * <p>
+ * In journal mode the transfer is final before its record is written, so the key is first
+ * claimed in idempotency_claims; a duplicate on another instance then finds the claim and
+ * gets the stored outcome, or an in-progress error, instead of moving money again.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final TransactionService transactionService;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final IdempotencyClaimRepository idempotencyClaimRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final Cache<String, IdempotencyRecord> recent;
+    private final Map<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(TransactionService transactionService,
+                              IdempotencyRecordRepository idempotencyRecordRepository,
+                              IdempotencyClaimRepository idempotencyClaimRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${banking.idempotency.cache-size:100000}") long cacheSize,
+                              @Value("${banking.idempotency.cache-ttl:PT10M}") Duration cacheTtl,
+                              @Value("${banking.idempotency.retention:P1D}") Duration retention) {
+        this.transactionService = transactionService;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.idempotencyClaimRepository = idempotencyClaimRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = retention;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * Perform a Transaction once per user and key; repeats get the original debit record back
+     */
+    public Transaction executeTransaction(Long userId, String idempotencyKey, Long senderAccountId, String receiverIban, Double amount) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Invalid idempotency key.");
+        }
+        String key = userId + ":" + idempotencyKey;
+        String fingerprint = senderAccountId + "|" + receiverIban + "|" + amount;
+
+        IdempotencyRecord cached = recent.getIfPresent(key);
+        if (cached != null) {
+            logger.info("Idempotency key {} answered from cache", key);
+            return replay(cached, fingerprint);
+        }
+
+        CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            logger.info("Idempotency key {} is in flight, waiting for the first request", key);
+            return await(running, fingerprint);
+        }
+
+        try {
+            IdempotencyRecord record = idempotencyRecordRepository.findById(key)
+                    .orElseGet(() -> execute(key, fingerprint, senderAccountId, receiverIban, amount));
+            recent.put(key, record);
+            mine.complete(record);
+            return replay(record, fingerprint);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Forget keys older than the retention period; clients must not retry later than that
+     */
+    @Scheduled(fixedDelayString = "${banking.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        Integer purged = transactionTemplate.execute(status -> {
+            idempotencyClaimRepository.deleteCreatedBefore(cutoff);
+            return idempotencyRecordRepository.deleteCreatedBefore(cutoff);
+        });
+        logger.info("Purged {} expired idempotency records", purged);
+    }
+
+    private IdempotencyRecord execute(String key, String fingerprint, Long senderAccountId, String receiverIban, Double amount) {
+        if (transactionService.isJournaled()) {
+            return executeClaimed(key, fingerprint, senderAccountId, receiverIban, amount);
+        }
+        IdempotencyRecord[] stored = new IdempotencyRecord[1];
+        try {
+            transactionService.executeTransaction(senderAccountId, receiverIban, amount, debit ->
+                    stored[0] = idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, fingerprint, debit)));
+            return stored[0];
+        } catch (DataIntegrityViolationException e) {
+            // another instance committed the same key first; our transfer rolled back with the insert
+            logger.warn("Idempotency key {} was taken concurrently, returning the stored outcome", key);
+            return idempotencyRecordRepository.findById(key).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Journal mode: claim the key, transfer, then record the outcome. A transfer rejected before
+     * it was journaled moved no money and gives the key back; one whose outcome is unknown keeps
+     * the claim, so a retry cannot move the money a second time.
+     */
+    private IdempotencyRecord executeClaimed(String key, String fingerprint, Long senderAccountId, String receiverIban, Double amount) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyClaimRepository.saveAndFlush(new IdempotencyClaim(key)));
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Idempotency key {} is claimed by another request, returning its outcome", key);
+            return idempotencyRecordRepository.findById(key)
+                    .orElseThrow(() -> new RuntimeException("Transaction with this idempotency key is still in progress."));
+        }
+
+        boolean[] journaled = new boolean[1];
+        IdempotencyRecord[] stored = new IdempotencyRecord[1];
+        try {
+            transactionService.executeTransaction(senderAccountId, receiverIban, amount, debit -> {
+                journaled[0] = true;
+                stored[0] = idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, fingerprint, debit));
+            });
+            return stored[0];
+        } catch (RuntimeException e) {
+            if (!journaled[0] && !(e instanceof JournalOutcomeUnknownException)) {
+                transactionTemplate.executeWithoutResult(status -> idempotencyClaimRepository.release(key));
+            }
+            throw e;
+        }
+    }
+
+    private Transaction await(CompletableFuture<IdempotencyRecord> running, String fingerprint) {
+        try {
+            return replay(running.get(30, TimeUnit.SECONDS), fingerprint);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Transaction with this idempotency key is still in progress.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Transaction with this idempotency key is still in progress.");
+        }
+    }
+
+    private Transaction replay(IdempotencyRecord record, String fingerprint) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            logger.warn("Idempotency key {} reused with different parameters", record.getIdempotencyKey());
+            throw new RuntimeException("Idempotency key was already used for a different transaction.");
+        }
+        return record.toTransaction();
+    }
+}
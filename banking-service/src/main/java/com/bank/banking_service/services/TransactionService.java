@@ -1,16 +1,45 @@
 package com.bank.banking_service.services;
 
-import com.bank.banking_service.dtos.CreditDetails;
+import com.bank.banking_service.dtos.AccountIdentity;
+import com.bank.banking_service.dtos.TransactionCursor;
+import com.bank.banking_service.dtos.TransactionPage;
+import com.bank.banking_service.dtos.TransferPreflight;
+import com.bank.banking_service.dtos.TransferRequest;
+import com.bank.banking_service.dtos.TransferResult;
+import com.bank.banking_service.journal.JournalRecord;
+import com.bank.banking_service.journal.JournalService;
 import com.bank.banking_service.model.AccountType;
 import com.bank.banking_service.model.BankAccount;
+import com.bank.banking_service.model.Card;
 import com.bank.banking_service.model.Transaction;
 import com.bank.banking_service.model.TransactionType;
 import com.bank.banking_service.repositories.BankAccountRepository;
+import com.bank.banking_service.repositories.CardRepository;
 import com.bank.banking_service.repositories.TransactionRepository;
-import jakarta.transaction.Transactional;
+import com.bank.banking_service.utils.AccountLockManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,119 +48,391 @@ import org.slf4j.LoggerFactory;
 public class TransactionService {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
+    private static final int MAX_PAGE_SIZE = 500;
 
     private final BankAccountRepository bankAccountRepository;
     private final TransactionRepository transactionRepository;
+    private final CardRepository cardRepository;
+    private final AccountLockManager accountLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final EntityManager entityManager;
+    private final JournalService journalService;
+    private final int batchChunkSize;
+    private final MeterRegistry meterRegistry;
+    private final Timer lookupTimer;
+    private final Timer validationTimer;
+    private final Timer balanceUpdateTimer;
+    private final Timer journalInsertTimer;
 
-    public TransactionService(BankAccountRepository bankAccountRepository, TransactionRepository transactionRepository) {
+    public TransactionService(BankAccountRepository bankAccountRepository, TransactionRepository transactionRepository,
+                              CardRepository cardRepository, AccountLockManager accountLockManager,
+                              TransactionTemplate transactionTemplate, EntityManager entityManager,
+                              ObjectProvider<JournalService> journalService,
+                              @Value("${banking.transfers.batch-chunk-size:500}") int batchChunkSize,
+                              MeterRegistry meterRegistry) {
         this.bankAccountRepository = bankAccountRepository;
         this.transactionRepository = transactionRepository;
+        this.cardRepository = cardRepository;
+        this.accountLockManager = accountLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.entityManager = entityManager;
+        this.journalService = journalService.getIfAvailable();
+        this.batchChunkSize = batchChunkSize;
+        this.meterRegistry = meterRegistry;
+        this.lookupTimer = phaseTimer("lookup");
+        this.validationTimer = phaseTimer("validation");
+        this.balanceUpdateTimer = phaseTimer("balance_update");
+        this.journalInsertTimer = phaseTimer("journal_insert");
     }
 
-    public List<Transaction> getUserTransactions(Long userId) {
+    /**
+     * Whether transfers are final once journaled, before their database transaction
+     */
+    public boolean isJournaled() {
+        return journalService != null;
+    }
+
+    private Timer phaseTimer(String phase) {
+        return Timer.builder("banking.transfer.phase")
+                .description("Time spent in each phase of a single transfer")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One page of a client's transactions, newest first
+     */
+    public TransactionPage getUserTransactions(Long userId, String cursor, int size) {
         logger.info("Fetching transactions for userId: {}", userId);
-        List<Transaction> transactions = transactionRepository.findByUserId(userId);
+        Limit limit = pageLimit(size);
+        List<Transaction> transactions;
+        if (cursor == null) {
+            transactions = transactionRepository.findFirstPageByUserId(userId, limit);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            transactions = transactionRepository.findPageBeforeByUserId(userId, position.getTimestamp(), position.getId(), limit);
+        }
         logger.info("Retrieved {} transactions for userId: {}", transactions.size(), userId);
-        return transactions;
+        return TransactionPage.of(transactions, limit.max());
     }
 
-    public List<Transaction> getAllTransactions() {
+    /**
+     * One page of all transactions, newest first (Bankers can view all transactions)
+     */
+    public TransactionPage getAllTransactions(String cursor, int size) {
         logger.info("Fetching all transactions.");
-        return transactionRepository.findAll(); // Bankers can view all transactions
+        Limit limit = pageLimit(size);
+        List<Transaction> transactions;
+        if (cursor == null) {
+            transactions = transactionRepository.findFirstPage(limit);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            transactions = transactionRepository.findPageBefore(position.getTimestamp(), position.getId(), limit);
+        }
+        return TransactionPage.of(transactions, limit.max());
+    }
+
+    /**
+     * Hand a client's transactions to the sink one by one, newest first
+     */
+    public void streamUserTransactions(Long userId, Consumer<Transaction> sink) {
+        logger.info("Streaming transactions for userId: {}", userId);
+        stream(() -> transactionRepository.streamByUserId(userId), sink);
+    }
+
+    /**
+     * Hand all transactions to the sink one by one, newest first
+     */
+    public void streamAllTransactions(Consumer<Transaction> sink) {
+        logger.info("Streaming all transactions.");
+        stream(transactionRepository::streamAll, sink);
+    }
+
+    /**
+     * Rows are detached once written so the persistence context, and the heap, stay flat
+     */
+    private void stream(Supplier<Stream<Transaction>> query, Consumer<Transaction> sink) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Transaction> transactions = query.get()) {
+                transactions.forEach(transaction -> {
+                    sink.accept(transaction);
+                    entityManager.detach(transaction);
+                });
+            }
+        });
+    }
+
+    private Limit pageLimit(int size) {
+        return Limit.of(Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
     }
 
     /**
      * Perform a Transaction
+     * <p>
+     * Both accounts stay locked until the database transaction has committed, so
+     * concurrent transfers on the same account are applied one after the other.
      */
-    @Transactional
     public Transaction executeTransaction(Long senderAccountId, String receiverIban, Double amount) {
+        return executeTransaction(senderAccountId, receiverIban, amount, debit -> {});
+    }
+
+    /**
+     * Perform a Transaction and hand its debit record to the recorder inside the same
+     * database transaction, so whatever the recorder writes commits or rolls back with it.
+     * In journal mode the recorder runs in its own transaction right after the append.
+     */
+    public Transaction executeTransaction(Long senderAccountId, String receiverIban, Double amount, Consumer<Transaction> recorder) {
         logger.info("Initiating transaction from senderAccountId {} to IBAN {} with amount {}", senderAccountId, receiverIban, amount);
 
-        if (amount <= 0) {
+        if (amount == null || amount <= 0) {
             logger.error("Transaction failed: Invalid amount {}", amount);
-            throw new RuntimeException("Invalid transaction amount.");
+            throw rejected("invalid_amount", "Invalid transaction amount.");
         }
 
-        // Fetch sender and receiver accounts
-        BankAccount senderAccount = bankAccountRepository.findById(senderAccountId)
+        Long receiverAccountId = lookupTimer.record(() -> bankAccountRepository.findIdByIban(receiverIban))
                 .orElseThrow(() -> {
-                    logger.error("Transaction failed: Sender account {} not found", senderAccountId);
-                    return new RuntimeException("Sender account not found");
+                    logger.error("Transaction failed: Receiver account with IBAN {} not found", receiverIban);
+                    return rejected("receiver_not_found", "Receiver account not found");
                 });
 
-        BankAccount receiverAccount = bankAccountRepository.findByIban(receiverIban)
+        return accountLockManager.withAccountLocks(List.of(senderAccountId, receiverAccountId),
+                () -> journalService != null
+                        ? journaledTransfer(senderAccountId, receiverIban, amount, recorder)
+                        : transactionTemplate.execute(status -> transfer(senderAccountId, receiverIban, amount, recorder)));
+    }
+
+    /**
+     * Validate and apply a transfer; callers hold the account locks and an open transaction
+     */
+    private Transaction transfer(Long senderAccountId, String receiverIban, Double amount, Consumer<Transaction> recorder) {
+        // Fetch sender, receiver and the sender's linked card in one round trip
+        TransferPreflight preflight = lookupTimer.record(() -> bankAccountRepository.findTransferPreflight(senderAccountId, receiverIban))
                 .orElseThrow(() -> {
-                    logger.error("Transaction failed: Receiver account with IBAN {} not found", receiverIban);
-                    return new RuntimeException("Receiver account not found");
+                    logger.error("Transaction failed: Sender account {} not found", senderAccountId);
+                    return rejected("sender_not_found", "Sender account not found");
                 });
 
+        BankAccount senderAccount = preflight.getSender();
+        BankAccount receiverAccount = preflight.getReceiver();
+        double charged = validationTimer.record(() -> validateTransfer(senderAccount, receiverAccount, preflight.hasLinkedCard(),
+                preflight.getCreditLimit(), preflight.getInterestRate(), amount));
+
+        Transaction[] records = balanceUpdateTimer.record(() -> {
+            Transaction[] pair = moveMoney(senderAccount, receiverAccount, charged);
+            bankAccountRepository.save(senderAccount);
+            bankAccountRepository.save(receiverAccount);
+            return pair;
+        });
+
+        // Create transaction records for both sender and receiver
+        journalInsertTimer.record(() -> {
+            transactionRepository.save(records[0]);
+            transactionRepository.save(records[1]);
+            recorder.accept(records[0]);
+        });
+
+        logger.info("Transaction successful! Sender Account: {} | Receiver IBAN: {} | Amount: {}", senderAccountId, receiverIban, records[0].getAmount());
+        return records[0];
+    }
+
+    /**
+     * Validate a transfer and acknowledge it once it is durable in the journal; the
+     * database is updated asynchronously, so the returned record has no id yet
+     */
+    private Transaction journaledTransfer(Long senderAccountId, String receiverIban, Double amount, Consumer<Transaction> recorder) {
+        TransferPreflight preflight = lookupTimer.record(() -> readOnlyTransactionTemplate.execute(status ->
+                bankAccountRepository.findTransferPreflight(senderAccountId, receiverIban)
+                        .orElseThrow(() -> {
+                            logger.error("Transaction failed: Sender account {} not found", senderAccountId);
+                            return rejected("sender_not_found", "Sender account not found");
+                        })));
+
+        BankAccount senderAccount = preflight.getSender();
+        BankAccount receiverAccount = preflight.getReceiver();
+        double charged = validationTimer.record(() -> validateTransfer(senderAccount, receiverAccount, preflight.hasLinkedCard(),
+                preflight.getCreditLimit(), preflight.getInterestRate(), amount));
+
+        // balances are updated by the journal applier, so the append is the only write on this path
+        JournalRecord record = journalInsertTimer.record(() ->
+                journalService.append(senderAccount.getId(), receiverAccount.getId(), charged, LocalDateTime.now()));
+
+        logger.info("Transaction journaled! Sequence: {} | Sender Account: {} | Receiver IBAN: {} | Amount: {}",
+                record.getSequence(), senderAccountId, receiverIban, charged);
+        Transaction debit = new Transaction(senderAccountId, receiverIban, charged, senderAccount.getCurrency(), TransactionType.DEBIT, record.getTimestamp());
+        transactionTemplate.executeWithoutResult(status -> recorder.accept(debit));
+        return debit;
+    }
+
+    /**
+     * Perform a batch of transfers
+     * <p>
+     * Items are applied in order, in chunks: each chunk loads every involved account and
+     * linked card with one IN query each, applies the transfers in memory and writes the
+     * changed balances and transaction records with JDBC batching. A rejected item, also a
+     * missing one or one without a sender, does not affect the others; a database failure
+     * fails only the items of its chunk.
+     */
+    public List<TransferResult> executeBatch(List<TransferRequest> transfers) {
+        logger.info("Initiating batch of {} transfers", transfers.size());
+
+        TransferResult[] results = new TransferResult[transfers.size()];
+        for (int from = 0; from < transfers.size(); from += batchChunkSize) {
+            int to = Math.min(from + batchChunkSize, transfers.size());
+            executeChunk(transfers, from, to, results);
+        }
+
+        long succeeded = Arrays.stream(results).filter(TransferResult::isSuccess).count();
+        logger.info("Batch finished: {} of {} transfers succeeded", succeeded, transfers.size());
+        return Arrays.asList(results);
+    }
+
+    private void executeChunk(List<TransferRequest> transfers, int from, int to, TransferResult[] results) {
+        List<TransferRequest> chunk = transfers.subList(from, to);
+
+        Set<String> receiverIbans = chunk.stream()
+                .filter(Objects::nonNull)
+                .map(TransferRequest::getReceiverIban)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Long> receiverIds = bankAccountRepository.findIdentitiesByIbanIn(receiverIbans).stream()
+                .collect(Collectors.toMap(AccountIdentity::getIban, AccountIdentity::getId));
+
+        Set<Long> accountIds = new HashSet<>(receiverIds.values());
+        chunk.stream()
+                .filter(Objects::nonNull)
+                .map(TransferRequest::getSenderAccountId)
+                .filter(Objects::nonNull)
+                .forEach(accountIds::add);
+
+        try {
+            accountLockManager.withAccountLocks(accountIds, () -> transactionTemplate.execute(status -> {
+                Map<Long, BankAccount> accounts = bankAccountRepository.findAllById(accountIds).stream()
+                        .collect(Collectors.toMap(BankAccount::getId, Function.identity()));
+                Map<Long, Card> linkedCards = cardRepository.findByBankAccountIdIn(accountIds).stream()
+                        .collect(Collectors.toMap(card -> card.getBankAccount().getId(), Function.identity()));
+
+                Map<Long, BankAccount> changedAccounts = new LinkedHashMap<>();
+                List<Transaction> records = new ArrayList<>();
+                Map<Integer, Transaction> debits = new HashMap<>();
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    TransferRequest transfer = chunk.get(i);
+                    if (transfer == null) {
+                        results[from + i] = TransferResult.failed(null, "Transfer is required.");
+                        continue;
+                    }
+                    try {
+                        BankAccount sender = accounts.get(transfer.getSenderAccountId());
+                        Long receiverId = receiverIds.get(transfer.getReceiverIban());
+                        BankAccount receiver = receiverId == null ? null : accounts.get(receiverId);
+                        Card card = linkedCards.get(transfer.getSenderAccountId());
+                        double charged = validateTransfer(sender, receiver, card != null,
+                                card == null ? null : card.getCreditLimit(),
+                                card == null ? null : card.getInterestRate(),
+                                transfer.getAmount());
+                        Transaction[] pair = moveMoney(sender, receiver, charged);
+
+                        changedAccounts.put(sender.getId(), sender);
+                        changedAccounts.put(receiver.getId(), receiver);
+                        records.add(pair[0]);
+                        records.add(pair[1]);
+                        debits.put(i, pair[0]);
+                    } catch (RuntimeException e) {
+                        results[from + i] = TransferResult.failed(transfer, e.getMessage());
+                    }
+                }
+
+                bankAccountRepository.saveAll(changedAccounts.values());
+                transactionRepository.saveAll(records);
+                debits.forEach((i, debit) -> results[from + i] = TransferResult.succeeded(chunk.get(i), debit));
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            logger.error("Batch chunk [{}, {}) failed: {}", from, to, e.getMessage());
+            for (int i = from; i < to; i++) {
+                if (results[i] == null || results[i].isSuccess()) {
+                    results[i] = TransferResult.failed(transfers.get(i), "Batch chunk failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Validate one transfer against already loaded accounts
+     *
+     * @return the amount to move, including interest for credit card accounts
+     */
+    private double validateTransfer(BankAccount senderAccount, BankAccount receiverAccount, boolean hasLinkedCard,
+                                    Double creditLimit, Double interestRate, Double amount) {
+        if (amount == null || amount <= 0) {
+            logger.error("Transaction failed: Invalid amount {}", amount);
+            throw rejected("invalid_amount", "Invalid transaction amount.");
+        }
+        if (senderAccount == null) {
+            throw rejected("sender_not_found", "Sender account not found");
+        }
+        if (receiverAccount == null) {
+            throw rejected("receiver_not_found", "Receiver account not found");
+        }
+
         // Check if sender has a linked card
-        if (!hasLinkedCard(senderAccountId)) {
-            logger.warn("Transaction failed: Sender account {} does not have a linked card", senderAccountId);
-            throw new RuntimeException("Sender account must have a linked card.");
+        if (!hasLinkedCard) {
+            logger.warn("Transaction failed: Sender account {} does not have a linked card", senderAccount.getId());
+            throw rejected("no_linked_card", "Sender account must have a linked card.");
         }
 
+        // Journaled transfers not yet written to the stored balance still count
+        double balance = senderAccount.getBalance() + pendingDelta(senderAccount.getId());
+
         // Validate transaction based on account type
         if (senderAccount.getType() == AccountType.CURRENT) {
-            if (senderAccount.getBalance() < amount) {
-                logger.warn("Transaction failed: Insufficient balance in sender account {}", senderAccountId);
-                throw new RuntimeException("Insufficient balance.");
+            if (balance < amount) {
+                logger.warn("Transaction failed: Insufficient balance in sender account {}", senderAccount.getId());
+                throw rejected("insufficient_balance", "Insufficient balance.");
             }
         } else if (senderAccount.getType() == AccountType.TECHNICAL) {
-            CreditDetails creditDetails = getCreditDetails(senderAccountId);
-            double maxAllowedBalance = senderAccount.getBalance() - amount;
+            double maxAllowedBalance = balance - amount;
 
-            if (maxAllowedBalance < -creditDetails.getCreditLimit()) {
-                logger.warn("Transaction failed: Credit limit exceeded for account {}", senderAccountId);
-                throw new RuntimeException("Credit limit exceeded.");
+            if (maxAllowedBalance < -(creditLimit == null ? 0.0 : creditLimit)) {
+                logger.warn("Transaction failed: Credit limit exceeded for account {}", senderAccount.getId());
+                throw rejected("credit_limit_exceeded", "Credit limit exceeded.");
             }
 
             // Apply interest
-            double interestRate = creditDetails.getInterestRate();
-            amount += (amount * interestRate / 100);
+            amount += (amount * (interestRate == null ? 0.0 : interestRate) / 100);
             logger.info("Interest applied: New transaction amount is {}", amount);
         }
+        return amount;
+    }
 
-        // Update sender and receiver balances
+    /**
+     * Move a validated amount between loaded accounts
+     *
+     * @return the sender's debit record followed by the receiver's credit record
+     */
+    private Transaction[] moveMoney(BankAccount senderAccount, BankAccount receiverAccount, double amount) {
         senderAccount.setBalance(senderAccount.getBalance() - amount);
         receiverAccount.setBalance(receiverAccount.getBalance() + amount);
 
-        bankAccountRepository.save(senderAccount);
-        bankAccountRepository.save(receiverAccount);
-
-        // Create transaction records for both sender and receiver
-        Transaction senderTransaction = new Transaction(senderAccountId, receiverIban, amount, senderAccount.getCurrency(), TransactionType.DEBIT, LocalDateTime.now());
-        Transaction receiverTransaction = new Transaction(receiverAccount.getId(), senderAccount.getIban(), amount, receiverAccount.getCurrency(), TransactionType.CREDIT, LocalDateTime.now());
-
-        transactionRepository.save(senderTransaction);
-        transactionRepository.save(receiverTransaction);
-
-        logger.info("Transaction successful! Sender Account: {} | Receiver IBAN: {} | Amount: {}", senderAccountId, receiverIban, amount);
-        return senderTransaction;
+        LocalDateTime now = LocalDateTime.now();
+        return new Transaction[]{
+                new Transaction(senderAccount.getId(), receiverAccount.getIban(), amount, senderAccount.getCurrency(), TransactionType.DEBIT, now),
+                new Transaction(receiverAccount.getId(), senderAccount.getIban(), amount, receiverAccount.getCurrency(), TransactionType.CREDIT, now)
+        };
     }
 
     /**
-     * Check if account has a linked card
+     * Count a rejected transfer by reason and build the exception reported to the client
      */
-    private boolean hasLinkedCard(Long accountId) {
-        boolean linkedCardExists = bankAccountRepository.countLinkedCards(accountId) > 0;
-        logger.info("Checking if account {} has a linked card: {}", accountId, linkedCardExists);
-        return linkedCardExists;
-    }
-
-    private CreditDetails getCreditDetails(Long accountId) {
-        logger.info("Fetching credit details for account {}", accountId);
-        return bankAccountRepository.getCreditDetails(accountId).orElse(new CreditDetails() {
-            @Override
-            public Double getCreditLimit() {
-                return 0.0;
-            }
+    private RuntimeException rejected(String reason, String message) {
+        meterRegistry.counter("banking.transfer.rejected", "reason", reason).increment();
+        return new RuntimeException(message);
+    }
 
-            @Override
-            public Double getInterestRate() {
-                return 0.0;
-            }
-        });
+    private double pendingDelta(Long accountId) {
+        return journalService == null ? 0.0 : journalService.pendingDelta(accountId);
     }
 }
-
@@ -0,0 +1,80 @@
+package com.bank.banking_service.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped per-account locks for balance updates.
+ * <p>
+ * Every account id maps onto one of a fixed number of stripes, so transfers between
+ * unrelated accounts almost never contend. Stripes are always acquired in ascending
+ * order, which keeps opposite transfers (A to B while B to A) from deadlocking.
+ * The locks only guard this JVM; they must be held around the whole database
+ * transaction so a concurrent transfer never reads a balance before the commit.
+ */
+@Component
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public AccountLockManager(@Value("${banking.locks.stripes:1024}") int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive.");
+        }
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Run the action while holding the locks of all given accounts
+     */
+    public <T> T withAccountLocks(Collection<Long> accountIds, Supplier<T> action) {
+        int[] order = stripesFor(accountIds);
+        int acquired = 0;
+        try {
+            for (int stripe : order) {
+                stripes[stripe].lock();
+                acquired++;
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[order[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Sorted, de-duplicated stripe indexes; two accounts on one stripe are locked once
+     */
+    private int[] stripesFor(Collection<Long> accountIds) {
+        return accountIds.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(this::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    int stripeOf(long accountId) {
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+}
@@ -1,32 +1,98 @@
 package com.bank.banking_service.utils;
 
+import com.bank.banking_service.security.AuthenticatedUser;
+import com.bank.banking_service.security.JwksKeyLocator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
-import java.util.Date;
+import java.util.HexFormat;
 
 
+/**
+ * Verifies JWT tokens from the authentication service, with keys looked up by kid in its
+ * published key set ({@link JwksKeyLocator}).
+ * <p>
+ * Clients send the same token with every request until it expires, so verified claims are
+ * cached under the SHA-256 of the token and each entry expires together with its token.
+ * The cache is bounded; an evicted token is simply verified again.
+ */
 @Component
 public class JwtUtil {
 
     @Value("${jwt.public-key}")
     private Resource publicKeyResource;
 
+    @Value("${jwt.jwks-uri:}")
+    private String jwksUri;
 
-    private PublicKey publicKey;
+    @Value("${jwt.jwks-refresh:PT5M}")
+    private Duration jwksRefresh = Duration.ofMinutes(5);
+
+
+    private JwtParser parser;
+
+    private final Cache<String, AuthenticatedUser> verified;
+
+
+    @Autowired
+    public JwtUtil(MeterRegistry meterRegistry, @Value("${jwt.cache.max-size:100000}") long maxSize) {
+        this(meterRegistry, maxSize, Ticker.systemTicker());
+    }
+
+    JwtUtil(MeterRegistry meterRegistry, long maxSize, Ticker ticker) {
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, AuthenticatedUser>() {
+                    @Override
+                    public long expireAfterCreate(String key, AuthenticatedUser user, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), user.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, AuthenticatedUser user, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, AuthenticatedUser user, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt.verified-tokens");
+    }
 
 
     @EventListener(ContextRefreshedEvent.class)
     public void init() throws Exception {
-        this.publicKey = loadPublicKey();
+        // the parser is immutable and thread-safe, so it is built once for all requests
+        this.parser = Jwts.parser()
+                .keyLocator(new JwksKeyLocator(jwksUri, loadPublicKey(), jwksRefresh))
+                .build();
     }
 
 
@@ -49,62 +115,42 @@ public class JwtUtil {
 
 
     /**
-     * Extract username from JWT token
+     * Verified claims of a JWT token, from the cache when the same token was seen before
      */
-    public String extractUsername(String token) {
-        return Jwts.parser()
-                .verifyWith(publicKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
-    }
-
-
-    /**
-     * Extract userId from JWT token
-     */
-    public Long extractUserId(String token) {
-        return Jwts.parser()
-                .verifyWith(publicKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get("userId", Long.class);
-    }
-
-
-    /**
-     * Extract role from JWT token
-     */
-    public String extractRole(String token) {
-        return Jwts.parser()
-                .verifyWith(publicKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get("role", String.class);
+    public AuthenticatedUser parse(String token) {
+        AuthenticatedUser user = verified.get(sha256(token), key -> verify(token));
+        if (!user.expiresAt().isAfter(Instant.now())) {
+            // entries expire with their token; this only covers the clock edge
+            throw new RuntimeException("Token has expired.");
+        }
+        return user;
     }
 
 
     /**
-     * Extract expiration date from JWT token
+     * Verify signature and expiry of a JWT token and read all claims we use from it
      */
-    public Date extractExpiration(String token) {
-        return Jwts.parser()
-                .verifyWith(publicKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getExpiration();
+    private AuthenticatedUser verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() == null) {
+            throw new RuntimeException("Token has no expiration.");
+        }
+        return new AuthenticatedUser(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.getExpiration().toInstant(),
+                claims.getId());
     }
 
 
-    /**
-     * Validate JWT token
-     */
-    public boolean validateToken(String token) {
-        return  extractExpiration(token).after(new Date());
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
 }
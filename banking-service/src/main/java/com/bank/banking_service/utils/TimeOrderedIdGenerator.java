@@ -0,0 +1,81 @@
+package com.bank.banking_service.utils;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.time.Instant;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 64-bit ids: 42 bits of milliseconds since 2025-01-01, 10 bits of node id
+ * and a 12-bit sequence within the millisecond.
+ * <p>
+ * The id is known before the insert, so Hibernate can batch inserts instead of running one
+ * statement per row to read back an IDENTITY key, and keys from several instances still
+ * grow roughly with time, which keeps primary key indexes append-mostly. Each instance needs
+ * its own node id ({@code spring.jpa.properties.ids.node-id}, 0-1023), and startup fails
+ * without one: a node id guessed from host and process could repeat and produce duplicate keys.
+ * <p>
+ * The ids exceed 2^53, so they are written to JSON as strings; JavaScript numbers would
+ * round them.
+ * <p>
+ * If the clock steps back, ids keep counting from the last millisecond used, so they never
+ * repeat or decrease within one instance.
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator {
+
+    public static final String NODE_ID_SETTING = "ids.node-id";
+    static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    private long lastMillis = -1;
+    private long sequence;
+
+    public TimeOrderedIdGenerator(TimeOrderedId config, Member member, CustomIdGeneratorCreationContext context) {
+        this(nodeId(context.getServiceRegistry().requireService(ConfigurationService.class).getSettings().get(NODE_ID_SETTING)),
+                System::currentTimeMillis);
+    }
+
+    TimeOrderedIdGenerator(long node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE + ".");
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object entity) {
+        return nextId();
+    }
+
+    synchronized long nextId() {
+        long millis = Math.max(clock.getAsLong() - EPOCH, lastMillis);
+        if (millis == lastMillis) {
+            sequence = (sequence + 1) & MAX_SEQUENCE;
+            if (sequence == 0) {
+                // sequence exhausted for this millisecond, borrow the next one
+                millis++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = millis;
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    static long nodeId(Object setting) {
+        if (setting == null || setting.toString().isBlank()) {
+            throw new IllegalStateException("No " + NODE_ID_SETTING + " configured, every instance needs its own (ID_NODE).");
+        }
+        return Long.parseLong(setting.toString().trim());
+    }
+}
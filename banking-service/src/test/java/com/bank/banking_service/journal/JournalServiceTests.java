@@ -0,0 +1,382 @@
+package com.bank.banking_service.journal;
+
+import com.bank.banking_service.model.AccountStatus;
+import com.bank.banking_service.model.AccountType;
+import com.bank.banking_service.model.BankAccount;
+import com.bank.banking_service.model.Currency;
+import com.bank.banking_service.model.JournalCheckpoint;
+import com.bank.banking_service.model.Transaction;
+import com.bank.banking_service.model.TransactionType;
+import com.bank.banking_service.repositories.BalanceCheckpointRepository;
+import com.bank.banking_service.repositories.BankAccountRepository;
+import com.bank.banking_service.repositories.JournalCheckpointRepository;
+import com.bank.banking_service.repositories.JournalDeadLetterRepository;
+import com.bank.banking_service.repositories.TransactionRepository;
+import com.bank.banking_service.services.BalanceCheckpointService;
+import com.bank.banking_service.utils.AccountLockManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Crash recovery: the applier is killed before its batch commits, the process stops,
+ * and a fresh instance must apply every acknowledged transfer exactly once.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.ids.node-id=1",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JournalServiceTests {
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JournalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JournalDeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directory;
+
+    @TempDir
+    Path otherDirectory;
+
+    private BankAccount alice;
+    private BankAccount bob;
+    private JournalService running;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        balanceCheckpointRepository.deleteAll();
+        deadLetterRepository.deleteAll();
+        bankAccountRepository.deleteAll();
+        alice = account(100.0);
+        bob = account(0.0);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (running != null) {
+            running.stop();
+        }
+    }
+
+    @Test
+    void applierKilledMidBatchIsReplayedOnRestart() throws Exception {
+        CrashingTemplate crashing = new CrashingTemplate(transactionManager);
+        JournalService first = journal(crashing);
+        first.start();
+        for (int i = 0; i < 5; i++) {
+            first.append(alice.getId(), bob.getId(), 10.0, LocalDateTime.now());
+        }
+        assertEquals(-50.0, first.pendingDelta(alice.getId()));
+
+        // the batch was written but never committed
+        awaitCrash(crashing);
+        first.stop();
+        assertEquals(100.0, balance(alice));
+        assertEquals(0, transactionRepository.count());
+
+        running = journal(new TransactionTemplate(transactionManager));
+        running.start();
+
+        assertEquals(50.0, balance(alice));
+        assertEquals(50.0, balance(bob));
+        assertEquals(10, transactionRepository.count());
+        assertEquals(0.0, running.pendingDelta(alice.getId()));
+    }
+
+    @Test
+    void appliedRecordsAreNotReplayedTwice() throws Exception {
+        JournalService first = journal(new TransactionTemplate(transactionManager));
+        first.start();
+        for (int i = 0; i < 3; i++) {
+            first.append(alice.getId(), bob.getId(), 10.0, LocalDateTime.now());
+        }
+        awaitApplied(first, alice);
+        first.stop();
+
+        running = journal(new TransactionTemplate(transactionManager));
+        running.start();
+
+        assertEquals(70.0, balance(alice));
+        assertEquals(30.0, balance(bob));
+        assertEquals(6, transactionRepository.count());
+    }
+
+    @Test
+    void recordOfAMissingAccountIsParkedAndLaterRecordsStillApply() throws Exception {
+        running = journal(new TransactionTemplate(transactionManager));
+        running.start();
+        running.append(alice.getId(), 999_999L, 10.0, LocalDateTime.now());
+        running.append(alice.getId(), bob.getId(), 10.0, LocalDateTime.now());
+        awaitApplied(running, alice);
+
+        assertEquals(90.0, balance(alice));
+        assertEquals(10.0, balance(bob));
+        assertEquals(2, transactionRepository.count());
+        assertEquals(1L, deadLetterRepository.findAll().getFirst().getSequence());
+        assertEquals(2L, checkpointRepository.findById(1L).orElseThrow().getAppliedSequence());
+    }
+
+    @Test
+    void emptyDirectoryNumbersOnAboveTheAppliedCheckpoint() throws Exception {
+        JournalService first = journal(new TransactionTemplate(transactionManager));
+        first.start();
+        for (int i = 0; i < 3; i++) {
+            first.append(alice.getId(), bob.getId(), 10.0, LocalDateTime.now());
+        }
+        awaitApplied(first, alice);
+        first.stop();
+
+        // same journal id, wiped directory
+        running = journal(new TransactionTemplate(transactionManager), otherDirectory, 1);
+        running.start();
+        assertEquals(4, running.append(alice.getId(), bob.getId(), 10.0, LocalDateTime.now()).getSequence());
+        awaitApplied(running, alice);
+
+        assertEquals(60.0, balance(alice));
+        assertEquals(8, transactionRepository.count());
+    }
+
+    @Test
+    void journalsOfTwoInstancesKeepTheirOwnCheckpoints() throws Exception {
+        JournalService first = journal(new TransactionTemplate(transactionManager));
+        first.start();
+        running = journal(new TransactionTemplate(transactionManager), otherDirectory, 2);
+        running.start();
+        for (int i = 0; i < 3; i++) {
+            first.append(alice.getId(), bob.getId(), 10.0, LocalDateTime.now());
+        }
+        awaitApplied(first, alice);
+        running.append(bob.getId(), alice.getId(), 5.0, LocalDateTime.now());
+        awaitApplied(running, alice);
+        first.stop();
+
+        assertEquals(75.0, balance(alice));
+        assertEquals(25.0, balance(bob));
+        assertEquals(3L, checkpointRepository.findById(1L).orElseThrow().getAppliedSequence());
+        assertEquals(1L, checkpointRepository.findById(2L).orElseThrow().getAppliedSequence());
+    }
+
+    @Test
+    void journalEndingBelowItsCheckpointIsRefused() throws Exception {
+        JournalService first = journal(new TransactionTemplate(transactionManager));
+        first.start();
+        first.append(alice.getId(), bob.getId(), 10.0, LocalDateTime.now());
+        awaitApplied(first, alice);
+        first.stop();
+        checkpointRepository.save(new JournalCheckpoint(1L, 10L));
+
+        assertThrows(IllegalStateException.class, () -> journal(new TransactionTemplate(transactionManager)).start());
+    }
+
+    @Test
+    void directoryOfAnotherJournalIsRefused() throws Exception {
+        JournalService first = journal(new TransactionTemplate(transactionManager));
+        first.start();
+        first.stop();
+
+        assertThrows(IllegalStateException.class, () -> journal(new TransactionTemplate(transactionManager), directory, 2).start());
+    }
+
+    @Test
+    void batchThatFailedToSyncIsNotReplayed() throws Exception {
+        JournalService first = new JournalService(bankAccountRepository, transactionRepository, checkpointRepository,
+                deadLetterRepository, balanceCheckpointRepository, new AccountLockManager(16),
+                new TransactionTemplate(transactionManager), directory, 1, 4096, 256, Duration.ofMinutes(5)) {
+            @Override
+            TransactionJournal openJournal(Path directory, int segmentSize) throws IOException {
+                return new FailingSyncJournal(directory, segmentSize);
+            }
+        };
+        first.start();
+
+        RuntimeException failure = assertThrows(RuntimeException.class,
+                () -> first.append(alice.getId(), bob.getId(), 10.0, LocalDateTime.now()));
+        assertEquals("Transaction journal is unavailable.", failure.getMessage());
+        first.stop();
+
+        running = journal(new TransactionTemplate(transactionManager));
+        running.start();
+
+        assertEquals(100.0, balance(alice));
+        assertEquals(0, transactionRepository.count());
+        assertEquals(1, running.append(alice.getId(), bob.getId(), 10.0, LocalDateTime.now()).getSequence());
+    }
+
+    @Test
+    void checkpointsStopShortOfRecordsNotAppliedYet() throws Exception {
+        LocalDateTime appendedAt = LocalDateTime.now().minusMinutes(1);
+        credit(alice, 1.0, appendedAt.minusMinutes(1));
+        CrashingTemplate crashing = new CrashingTemplate(transactionManager);
+        JournalService first = journal(crashing);
+        first.start();
+        first.append(alice.getId(), bob.getId(), 10.0, appendedAt);
+        awaitCrash(crashing);
+
+        checkpoints(first).createCheckpoints(LocalDateTime.now());
+        assertTrue(balanceCheckpointRepository.findLatestAsOf().orElseThrow().isBefore(appendedAt));
+        first.stop();
+
+        running = journal(new TransactionTemplate(transactionManager));
+        running.start();
+        LocalDateTime now = LocalDateTime.now();
+        checkpoints(running).createCheckpoints(now);
+
+        assertEquals(-9.0, checkpoints(running).getBalanceAsOf(alice.getId(), now).getBalance());
+        assertEquals(10.0, checkpoints(running).getBalanceAsOf(bob.getId(), now).getBalance());
+    }
+
+    @Test
+    void recordReplayedBehindACheckpointIsAddedToIt() throws Exception {
+        LocalDateTime appendedAt = LocalDateTime.now().minusMinutes(10);
+        credit(alice, 1.0, appendedAt.minusMinutes(1));
+        CrashingTemplate crashing = new CrashingTemplate(transactionManager);
+        JournalService first = journal(crashing);
+        first.start();
+        first.append(alice.getId(), bob.getId(), 10.0, appendedAt);
+        awaitCrash(crashing);
+        first.stop();
+
+        // taken elsewhere while this instance was down, without the record
+        LocalDateTime checkpointedAt = LocalDateTime.now().minusMinutes(5);
+        checkpoints(null).createCheckpoints(checkpointedAt);
+        running = journal(new TransactionTemplate(transactionManager));
+        running.start();
+
+        assertEquals(-9.0, checkpoints(running).getBalanceAsOf(alice.getId(), checkpointedAt).getBalance());
+        assertEquals(10.0, checkpoints(running).getBalanceAsOf(bob.getId(), checkpointedAt).getBalance());
+    }
+
+    private BalanceCheckpointService checkpoints(JournalService journal) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        if (journal != null) {
+            beans.addBean("journalService", journal);
+        }
+        return new BalanceCheckpointService(balanceCheckpointRepository, bankAccountRepository, transactionRepository,
+                new TransactionTemplate(transactionManager), beans.getBeanProvider(JournalService.class), Duration.ofMinutes(5));
+    }
+
+    private void credit(BankAccount account, double amount, LocalDateTime timestamp) {
+        transactionRepository.save(new Transaction(account.getId(), "counterparty", amount, Currency.EUR, TransactionType.CREDIT, timestamp));
+    }
+
+    private JournalService journal(TransactionTemplate template) {
+        return journal(template, directory, 1);
+    }
+
+    private JournalService journal(TransactionTemplate template, Path directory, long journalId) {
+        return new JournalService(bankAccountRepository, transactionRepository, checkpointRepository,
+                deadLetterRepository, balanceCheckpointRepository, new AccountLockManager(16), template, directory, journalId,
+                4096, 256, Duration.ofMinutes(5));
+    }
+
+    private BankAccount account(double balance) {
+        BankAccount account = new BankAccount();
+        account.setIban(UUID.randomUUID().toString());
+        account.setUserId(1L);
+        account.setType(AccountType.CURRENT);
+        account.setStatus(AccountStatus.APPROVED);
+        account.setBalance(balance);
+        return bankAccountRepository.save(account);
+    }
+
+    private double balance(BankAccount account) {
+        return bankAccountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+
+    private static void awaitCrash(CrashingTemplate template) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (template.crashes == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(true, template.crashes > 0, "applier never ran");
+    }
+
+    private static void awaitApplied(JournalService journal, BankAccount account) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (journal.pendingDelta(account.getId()) != 0.0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0.0, journal.pendingDelta(account.getId()));
+    }
+
+    /**
+     * Journal whose first sync fails after the records were written into the mapping
+     */
+    private static final class FailingSyncJournal extends TransactionJournal {
+
+        private final AtomicBoolean failed = new AtomicBoolean();
+
+        private FailingSyncJournal(Path directory, int segmentSize) throws IOException {
+            super(directory, segmentSize);
+        }
+
+        @Override
+        public void sync() {
+            if (failed.compareAndSet(false, true)) {
+                throw new UncheckedIOException(new IOException("fsync failed"));
+            }
+            super.sync();
+        }
+    }
+
+    /**
+     * Runs the applier's work inside the transaction, then dies before the commit
+     */
+    private static final class CrashingTemplate extends TransactionTemplate {
+
+        private volatile int crashes;
+
+        private CrashingTemplate(PlatformTransactionManager transactionManager) {
+            super(transactionManager);
+        }
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+            return super.execute(status -> {
+                action.doInTransaction(status);
+                crashes++;
+                throw new IllegalStateException("applier killed");
+            });
+        }
+    }
+}
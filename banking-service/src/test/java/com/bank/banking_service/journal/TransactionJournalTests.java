@@ -0,0 +1,124 @@
+package com.bank.banking_service.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionJournalTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 2, 3, 4, 5, 123_456_789);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsSurviveReopen() throws IOException {
+        TransactionJournal journal = new TransactionJournal(directory, 4096);
+        for (int i = 1; i <= 5; i++) {
+            journal.append(i, i + 100, i * 1.5, NOW);
+        }
+        journal.sync();
+
+        TransactionJournal reopened = new TransactionJournal(directory, 4096);
+        List<JournalRecord> tail = replay(reopened, 2);
+
+        assertEquals(5, reopened.lastSequence());
+        assertEquals(List.of(3L, 4L, 5L), tail.stream().map(JournalRecord::getSequence).toList());
+        assertEquals(103L, tail.get(0).getReceiverAccountId());
+        assertEquals(4.5, tail.get(0).getAmount());
+        assertEquals(NOW, tail.get(0).getTimestamp());
+    }
+
+    @Test
+    void tornTailIsDiscardedAndOverwritten() throws IOException {
+        TransactionJournal journal = new TransactionJournal(directory, 4096);
+        for (int i = 1; i <= 3; i++) {
+            journal.append(i, i + 100, 10.0, NOW);
+        }
+        journal.sync();
+        corrupt(onlySegment(), 2L * TransactionJournal.RECORD_SIZE + 20);
+
+        TransactionJournal reopened = new TransactionJournal(directory, 4096);
+        assertEquals(2, reopened.lastSequence());
+
+        assertEquals(3, reopened.append(7, 8, 20.0, NOW).getSequence());
+        reopened.sync();
+        List<JournalRecord> tail = replay(new TransactionJournal(directory, 4096), 0);
+        assertEquals(3, tail.size());
+        assertEquals(7L, tail.get(2).getSenderAccountId());
+    }
+
+    @Test
+    void segmentsRollAndAreReleasedOnceApplied() throws IOException {
+        TransactionJournal journal = new TransactionJournal(directory, 2 * TransactionJournal.RECORD_SIZE);
+        for (int i = 1; i <= 5; i++) {
+            journal.append(i, i + 100, 1.0, NOW);
+        }
+        journal.sync();
+        assertEquals(3, segmentCount());
+
+        journal.release(4);
+        assertEquals(1, segmentCount());
+        assertEquals(List.of(5L), replay(journal, 4).stream().map(JournalRecord::getSequence).toList());
+
+        TransactionJournal reopened = new TransactionJournal(directory, 2 * TransactionJournal.RECORD_SIZE);
+        assertEquals(5, reopened.lastSequence());
+        assertEquals(6, reopened.append(1, 2, 1.0, NOW).getSequence());
+    }
+
+    @Test
+    void unsyncedRecordsAreDiscardedOnDiskToo() throws IOException {
+        TransactionJournal journal = new TransactionJournal(directory, 2 * TransactionJournal.RECORD_SIZE);
+        journal.append(1, 101, 1.0, NOW);
+        journal.sync();
+        for (int i = 2; i <= 4; i++) {
+            journal.append(i, i + 100, 1.0, NOW);
+        }
+
+        journal.discardUnsynced();
+
+        assertEquals(1, journal.lastSequence());
+        assertEquals(1, segmentCount());
+        TransactionJournal reopened = new TransactionJournal(directory, 2 * TransactionJournal.RECORD_SIZE);
+        assertEquals(1, reopened.lastSequence());
+        assertEquals(List.of(1L), replay(reopened, 0).stream().map(JournalRecord::getSequence).toList());
+        assertEquals(2, journal.append(9, 10, 1.0, NOW).getSequence());
+    }
+
+    private static List<JournalRecord> replay(TransactionJournal journal, long after) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(after, records::add);
+        return records;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static void corrupt(Path file, long offset) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(offset);
+            int value = raf.read();
+            raf.seek(offset);
+            raf.write(value ^ 0xFF);
+        }
+    }
+}
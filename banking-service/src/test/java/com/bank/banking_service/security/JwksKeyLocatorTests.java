@@ -0,0 +1,149 @@
+package com.bank.banking_service.security;
+
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwksKeyLocatorTests {
+
+    private final AtomicReference<String> published = new AtomicReference<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private volatile long delayMillis;
+    private HttpServer server;
+    private String jwksUri;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/auth/.well-known/jwks.json", exchange -> {
+            fetches.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = published.get().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        jwksUri = "http://localhost:" + server.getAddress().getPort() + "/auth/.well-known/jwks.json";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void rotatedKeyIsFetchedOnFirstUse() throws Exception {
+        KeyPair first = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        KeyPair second = KeyPairGenerator.getInstance("EC").generateKeyPair();
+        KeyPair fallback = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        published.set(jwks(first));
+
+        JwksKeyLocator locator = new JwksKeyLocator(jwksUri, fallback.getPublic(), Duration.ofMinutes(5), Duration.ZERO);
+        assertEquals("alice", subject(locator, token(first, kid(first))));
+        assertEquals(1, fetches.get());
+
+        published.set(jwks(first, second));
+        assertEquals("alice", subject(locator, token(second, kid(second))));
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void tokenWithoutKidUsesTheFallbackKey() throws Exception {
+        KeyPair fallback = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        published.set("{\"keys\":[]}");
+
+        JwksKeyLocator locator = new JwksKeyLocator(jwksUri, fallback.getPublic(), Duration.ofMinutes(5));
+        String token = Jwts.builder().subject("alice").signWith(fallback.getPrivate()).compact();
+
+        assertEquals("alice", subject(locator, token));
+    }
+
+    @Test
+    void unknownKidDoesNotRefetchOnEveryToken() throws Exception {
+        KeyPair unknown = KeyPairGenerator.getInstance("EC").generateKeyPair();
+        KeyPair fallback = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        published.set("{\"keys\":[]}");
+
+        JwksKeyLocator locator = new JwksKeyLocator(jwksUri, fallback.getPublic(), Duration.ofMinutes(5));
+        for (int i = 0; i < 5; i++) {
+            assertThrows(RuntimeException.class, () -> subject(locator, token(unknown, "forged")));
+        }
+
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void concurrentRequestsForAnUnknownKidShareOneFetch() throws Exception {
+        KeyPair unknown = KeyPairGenerator.getInstance("EC").generateKeyPair();
+        KeyPair fallback = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        published.set("{\"keys\":[]}");
+        JwksKeyLocator locator = new JwksKeyLocator(jwksUri, fallback.getPublic(), Duration.ofMinutes(5), Duration.ofMillis(100));
+        String forged = token(unknown, "forged");
+        subject(locator, Jwts.builder().subject("alice").signWith(fallback.getPrivate()).compact());
+        Thread.sleep(150);
+        delayMillis = 500;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(Thread.ofVirtual().start(() ->
+                    assertThrows(RuntimeException.class, () -> subject(locator, forged))));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(2, fetches.get());
+    }
+
+    private static String subject(JwksKeyLocator locator, String token) {
+        return Jwts.parser().keyLocator(locator).build().parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    private static String token(KeyPair keyPair, String kid) {
+        return Jwts.builder()
+                .header().keyId(kid).and()
+                .subject("alice")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(keyPair.getPrivate())
+                .compact();
+    }
+
+    private static String kid(KeyPair keyPair) {
+        return publicJwk(keyPair).getId();
+    }
+
+    private static PublicJwk<?> publicJwk(KeyPair keyPair) {
+        return Jwks.builder().key(keyPair.getPublic()).idFromThumbprint().build();
+    }
+
+    private static String jwks(KeyPair... keyPairs) {
+        StringBuilder json = new StringBuilder("{\"keys\":[");
+        for (int i = 0; i < keyPairs.length; i++) {
+            json.append(i == 0 ? "" : ",").append(Jwks.json(publicJwk(keyPairs[i])));
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,116 @@
+package com.bank.banking_service.security;
+
+import com.bank.banking_service.utils.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTests {
+
+    private KeyPair keyPair;
+    private JwtUtil jwtUtil;
+    private final RevocationFeed revocationFeed = mock(RevocationFeed.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+
+        String pem = "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----\n";
+        JwtUtil util = new JwtUtil(new SimpleMeterRegistry(), 1_000);
+        ReflectionTestUtils.setField(util, "publicKeyResource", new ByteArrayResource(pem.getBytes()));
+        util.init();
+        jwtUtil = spy(util);
+        filter = new JwtAuthenticationFilter(jwtUtil, revocationFeed, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void tokenIsVerifiedOnceAndExposedAsPrincipal() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request(token(new Date(System.currentTimeMillis() + 60_000))), new MockHttpServletResponse(), chain);
+
+        verify(jwtUtil, times(1)).parse(anyString());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        assertEquals(42L, user.userId());
+        assertEquals("alice", user.username());
+        assertEquals("CLIENT", user.role());
+        assertEquals("ROLE_CLIENT", authentication.getAuthorities().iterator().next().getAuthority());
+        assertEquals("alice", authentication.getName());
+        assertEquals(1, meterRegistry.get("jwt.verification").tag("outcome", "valid").timer().count());
+    }
+
+    @Test
+    void expiredTokenIsRejected() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(token(new Date(System.currentTimeMillis() - 60_000))), response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void revokedTokenIsRejected() throws Exception {
+        when(revocationFeed.isRevoked(any())).thenReturn(true);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(token(new Date(System.currentTimeMillis() + 60_000))), response, chain);
+
+        assertEquals(401, response.getStatus());
+        assertEquals("Unauthorized: Token has been revoked.", response.getContentAsString());
+        assertNull(chain.getRequest());
+        assertEquals(1, meterRegistry.get("jwt.verification").tag("outcome", "revoked").timer().count());
+    }
+
+    private String token(Date expiration) {
+        return Jwts.builder()
+                .subject("alice")
+                .claim("role", "CLIENT")
+                .claim("userId", 42L)
+                .issuedAt(new Date())
+                .expiration(expiration)
+                .signWith(keyPair.getPrivate())
+                .compact();
+    }
+
+    private MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/banking/accounts/my");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,142 @@
+package com.bank.banking_service.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevocationFeedTests {
+
+    private static final String SERVICE_TOKEN = "service-token";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Map<String, Object>> published = new CopyOnWriteArrayList<>();
+    private final AtomicReference<String> lastQuery = new AtomicReference<>();
+    private HttpServer server;
+    private String feedUri;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/auth/revocations", exchange -> {
+            if (!("Bearer " + SERVICE_TOKEN).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                exchange.sendResponseHeaders(403, -1);
+                exchange.close();
+                return;
+            }
+            String query = exchange.getRequestURI().getQuery();
+            lastQuery.set(query);
+            long after = Long.parseLong(query.replaceAll(".*after=(\\d+).*", "$1"));
+            List<Map<String, Object>> page = published.stream()
+                    .filter(entry -> ((Number) entry.get("id")).longValue() > after)
+                    .toList();
+            byte[] body = objectMapper.writeValueAsString(page).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        feedUri = "http://localhost:" + server.getAddress().getPort() + "/auth/revocations";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void newEntriesArePulledIncrementally() {
+        RevocationFeed feed = feed(SERVICE_TOKEN, Duration.ofHours(1), Duration.ZERO);
+        publish(1, "USER", "42");
+        feed.poll();
+        assertTrue(feed.isRevoked(user(42L, "t1")));
+
+        publish(2, "TOKEN", "t2");
+        feed.poll();
+
+        assertEquals("after=1&limit=1000", lastQuery.get());
+        assertTrue(feed.isRevoked(user(7L, "t2")));
+        assertFalse(feed.isRevoked(user(7L, "t3")));
+    }
+
+    @Test
+    void resyncDropsEntriesNoLongerPublished() {
+        RevocationFeed feed = feed(SERVICE_TOKEN, Duration.ZERO, Duration.ZERO);
+        publish(1, "USER", "42");
+        feed.poll();
+        assertTrue(feed.isRevoked(user(42L, "t1")));
+
+        // the entry expired and the authentication service stopped returning it
+        published.clear();
+        feed.poll();
+
+        assertEquals("after=0&limit=1000", lastQuery.get());
+        assertFalse(feed.isRevoked(user(42L, "t1")));
+    }
+
+    @Test
+    void unreachableFeedKeepsTheCurrentList() {
+        RevocationFeed feed = feed(SERVICE_TOKEN, Duration.ZERO, Duration.ZERO);
+        publish(1, "USER", "42");
+        feed.poll();
+
+        server.stop(0);
+        feed.poll();
+
+        assertTrue(feed.isRevoked(user(42L, "t1")));
+    }
+
+    @Test
+    void feedRefusingTheTokenLeavesTheListEmpty() {
+        RevocationFeed feed = feed("other-token", Duration.ZERO, Duration.ZERO);
+        publish(1, "USER", "42");
+
+        feed.poll();
+
+        assertFalse(feed.isRevoked(user(42L, "t1")));
+    }
+
+    @Test
+    void entryCommittedAfterALaterOneIsPickedUpWithinTheOverlap() {
+        RevocationFeed feed = feed(SERVICE_TOKEN, Duration.ofHours(1), Duration.ofHours(1));
+        publish(1, "USER", "42");
+        feed.poll();
+        publish(3, "TOKEN", "t3");
+        feed.poll();
+
+        // id 2 was assigned before id 3 but its transaction committed later
+        publish(2, "TOKEN", "t2");
+        feed.poll();
+
+        assertEquals("after=0&limit=1000", lastQuery.get());
+        assertTrue(feed.isRevoked(user(7L, "t2")));
+        assertTrue(feed.isRevoked(user(7L, "t3")));
+    }
+
+    private RevocationFeed feed(String serviceToken, Duration resyncInterval, Duration overlap) {
+        return new RevocationFeed(objectMapper, new SimpleMeterRegistry(), feedUri, serviceToken, resyncInterval, overlap, 100);
+    }
+
+    private void publish(long id, String type, String subject) {
+        published.add(Map.of("id", id, "type", type, "subject", subject, "expiresAt", Instant.now().plusSeconds(3600).toString()));
+    }
+
+    private static AuthenticatedUser user(Long userId, String tokenId) {
+        return new AuthenticatedUser(userId, "user" + userId, "CLIENT", Instant.now().plusSeconds(60), tokenId);
+    }
+}
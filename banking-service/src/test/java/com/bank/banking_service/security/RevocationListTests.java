@@ -0,0 +1,63 @@
+package com.bank.banking_service.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevocationListTests {
+
+    @Test
+    void revokedUsersAndTokensAreFound() {
+        RevocationList revocations = new RevocationList(100);
+        String tokenId = UUID.randomUUID().toString();
+        revocations.revokeUser(42L);
+        revocations.revokeToken(tokenId);
+
+        assertTrue(revocations.isRevoked(42L, null));
+        assertTrue(revocations.isRevoked(7L, tokenId));
+        assertFalse(revocations.isRevoked(7L, UUID.randomUUID().toString()));
+        assertFalse(revocations.isRevoked(null, null));
+        // a user id and a token id with the same text are different entries
+        assertFalse(revocations.isRevoked(null, "42"));
+    }
+
+    @Test
+    void entriesSurviveGrowth() {
+        RevocationList revocations = new RevocationList(10);
+        for (long userId = 1; userId <= 50_000; userId++) {
+            revocations.revokeUser(userId);
+        }
+        revocations.revokeUser(1L);
+
+        assertEquals(50_000, revocations.size());
+        for (long userId = 1; userId <= 50_000; userId++) {
+            assertTrue(revocations.isRevoked(userId, null));
+        }
+        assertFalse(revocations.isRevoked(50_001L, null));
+    }
+
+    /**
+     * Ten million token ids fit in about 150 MB, and the filter answers almost every
+     * lookup of a token that was not revoked on its own.
+     */
+    @Test
+    void tenMillionEntries() {
+        RevocationList revocations = new RevocationList(10_000_000);
+        for (int i = 0; i < 10_000_000; i++) {
+            revocations.revokeToken("revoked-" + i);
+        }
+
+        assertEquals(10_000_000, revocations.size());
+        assertTrue(revocations.memoryBytes() < 160L * 1024 * 1024, "memory: " + revocations.memoryBytes());
+        for (int i = 0; i < 10_000_000; i += 9_973) {
+            assertTrue(revocations.isRevoked(null, "revoked-" + i));
+        }
+        for (int i = 0; i < 1_000_000; i++) {
+            assertFalse(revocations.isRevoked(null, "valid-" + i));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.bank.banking_service.services;
+
+import com.bank.banking_service.model.AccountStatus;
+import com.bank.banking_service.model.AccountType;
+import com.bank.banking_service.model.BankAccount;
+import com.bank.banking_service.model.Currency;
+import com.bank.banking_service.model.Transaction;
+import com.bank.banking_service.model.TransactionType;
+import com.bank.banking_service.repositories.BalanceCheckpointRepository;
+import com.bank.banking_service.repositories.BankAccountRepository;
+import com.bank.banking_service.repositories.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.ids.node-id=1",
+        "spring.jpa.show-sql=false"
+})
+@Import(BalanceCheckpointService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BalanceCheckpointServiceTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Autowired
+    private BalanceCheckpointService balanceCheckpointService;
+
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private BankAccount account;
+
+    @BeforeEach
+    void setUp() {
+        checkpointRepository.deleteAll();
+        transactionRepository.deleteAll();
+        bankAccountRepository.deleteAll();
+
+        account = new BankAccount();
+        account.setIban(UUID.randomUUID().toString());
+        account.setUserId(1L);
+        account.setType(AccountType.CURRENT);
+        account.setStatus(AccountStatus.APPROVED);
+        account.setBalance(0.0);
+        account = bankAccountRepository.save(account);
+    }
+
+    @Test
+    void balanceAsOfStartsFromNearestCheckpoint() {
+        record(TransactionType.CREDIT, 100.0, START.plusMinutes(1));
+        record(TransactionType.DEBIT, 30.0, START.plusMinutes(2));
+        record(TransactionType.CREDIT, 5.0, START.plusMinutes(4));
+
+        assertEquals(1, balanceCheckpointService.createCheckpoints(START.plusMinutes(3)));
+        // nothing happened since the last cutoff for a second run at the same time
+        assertEquals(0, balanceCheckpointService.createCheckpoints(START.plusMinutes(3)));
+
+        assertEquals(0.0, balanceAt(START));
+        assertEquals(100.0, balanceAt(START.plusMinutes(1)));
+        assertEquals(70.0, balanceAt(START.plusMinutes(3)));
+        assertEquals(75.0, balanceAt(START.plusMinutes(5)));
+
+        assertEquals(1, balanceCheckpointService.createCheckpoints(START.plusMinutes(5)));
+        assertEquals(75.0, checkpointRepository
+                .findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(account.getId(), START.plusMinutes(5))
+                .orElseThrow().getBalance());
+        assertEquals(75.0, balanceAt(START.plusMinutes(6)));
+    }
+
+    @Test
+    void checkpointedBalancesMatchFullReplay() {
+        Random random = new Random(42);
+        List<Transaction> history = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            TransactionType type = random.nextBoolean() ? TransactionType.CREDIT : TransactionType.DEBIT;
+            history.add(record(type, 1.0 + random.nextInt(50), START.plusSeconds(30L * i)));
+        }
+        for (int hour = 1; hour <= 2; hour++) {
+            balanceCheckpointService.createCheckpoints(START.plusMinutes(30L * hour));
+        }
+
+        for (int probe = 0; probe < 20; probe++) {
+            LocalDateTime asOf = START.plusSeconds(random.nextInt(200 * 30));
+            double expected = history.stream()
+                    .filter(transaction -> !transaction.getTimestamp().isAfter(asOf))
+                    .mapToDouble(transaction -> transaction.getType() == TransactionType.CREDIT ? transaction.getAmount() : -transaction.getAmount())
+                    .sum();
+            assertEquals(expected, balanceAt(asOf), 1e-9, "balance as of " + asOf);
+        }
+    }
+
+    @Test
+    void unknownAccountIsRejected() {
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> balanceCheckpointService.getBalanceAsOf(-1L, START));
+
+        assertEquals("Account not found", e.getMessage());
+    }
+
+    private double balanceAt(LocalDateTime asOf) {
+        return balanceCheckpointService.getBalanceAsOf(account.getId(), asOf).getBalance();
+    }
+
+    private Transaction record(TransactionType type, double amount, LocalDateTime timestamp) {
+        return transactionRepository.save(new Transaction(account.getId(), "counterparty", amount, Currency.EUR, type, timestamp));
+    }
+}
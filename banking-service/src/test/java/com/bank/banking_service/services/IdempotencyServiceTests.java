@@ -0,0 +1,299 @@
+package com.bank.banking_service.services;
+
+import com.bank.banking_service.exception.JournalOutcomeUnknownException;
+import com.bank.banking_service.journal.JournalService;
+import com.bank.banking_service.model.AccountStatus;
+import com.bank.banking_service.model.AccountType;
+import com.bank.banking_service.model.BankAccount;
+import com.bank.banking_service.model.Card;
+import com.bank.banking_service.model.CardStatus;
+import com.bank.banking_service.model.CardType;
+import com.bank.banking_service.model.Transaction;
+import com.bank.banking_service.repositories.BalanceCheckpointRepository;
+import com.bank.banking_service.repositories.BankAccountRepository;
+import com.bank.banking_service.repositories.CardRepository;
+import com.bank.banking_service.repositories.IdempotencyClaimRepository;
+import com.bank.banking_service.repositories.IdempotencyRecordRepository;
+import com.bank.banking_service.repositories.JournalCheckpointRepository;
+import com.bank.banking_service.repositories.JournalDeadLetterRepository;
+import com.bank.banking_service.repositories.TransactionRepository;
+import com.bank.banking_service.utils.AccountLockManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.ids.node-id=1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bank.banking_service.services.StatementRecorder"
+})
+@Import({IdempotencyService.class, TransactionService.class, AccountLockManager.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTests {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private IdempotencyClaimRepository idempotencyClaimRepository;
+
+    @Autowired
+    private JournalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JournalDeadLetterRepository deadLetterRepository;
+
+    @Autowired
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path journalDirectory;
+
+    private BankAccount sender;
+    private BankAccount receiver;
+    // the service and its cache outlive each test, the rows do not
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyRecordRepository.deleteAll();
+        idempotencyClaimRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+        bankAccountRepository.deleteAll();
+
+        key = UUID.randomUUID().toString();
+        sender = account(100.0);
+        receiver = account(0.0);
+
+        Card card = new Card();
+        card.setType(CardType.DEBIT);
+        card.setUserId(1L);
+        card.setBankAccount(sender);
+        card.setStatus(CardStatus.APPROVED);
+        cardRepository.save(card);
+    }
+
+    @Test
+    void retryReturnsTheOriginalTransferWithoutTouchingTheDatabase() {
+        Transaction first = idempotencyService.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 40.0);
+        StatementRecorder.reset();
+
+        Transaction retry = idempotencyService.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 40.0);
+
+        assertEquals(first.getId(), retry.getId());
+        assertEquals(0, StatementRecorder.count(""));
+        assertEquals(60.0, balanceOf(sender));
+        assertEquals(2, transactionRepository.count());
+    }
+
+    @Test
+    void retryAfterRestartIsAnsweredFromTheDedupTable() {
+        Transaction first = idempotencyService.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 40.0);
+        IdempotencyService restarted = new IdempotencyService(transactionService, idempotencyRecordRepository,
+                idempotencyClaimRepository, transactionTemplate, 10, Duration.ofMinutes(10), Duration.ofDays(1));
+
+        Transaction retry = restarted.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 40.0);
+
+        assertEquals(first.getId(), retry.getId());
+        assertEquals(first.getAmount(), retry.getAmount());
+        assertEquals(60.0, balanceOf(sender));
+    }
+
+    @Test
+    void keyReusedForAnotherTransferIsRejected() {
+        idempotencyService.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 40.0);
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> idempotencyService.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 10.0));
+
+        assertEquals("Idempotency key was already used for a different transaction.", e.getMessage());
+        assertEquals(60.0, balanceOf(sender));
+    }
+
+    @Test
+    void sameKeyFromAnotherUserIsIndependent() {
+        idempotencyService.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 40.0);
+        idempotencyService.executeTransaction(2L, key, sender.getId(), receiver.getIban(), 40.0);
+
+        assertEquals(20.0, balanceOf(sender));
+    }
+
+    @Test
+    void rejectedTransferIsNotRemembered() {
+        assertThrows(RuntimeException.class,
+                () -> idempotencyService.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 500.0));
+
+        assertEquals(0, idempotencyRecordRepository.count());
+    }
+
+    @Test
+    void concurrentDuplicatesCoalesceOntoOneTransfer() throws Exception {
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Transaction>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return idempotencyService.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 10.0);
+            }));
+        }
+        start.countDown();
+
+        Set<Long> ids = new HashSet<>();
+        for (Future<Transaction> result : results) {
+            ids.add(result.get().getId());
+        }
+        executor.shutdown();
+
+        assertEquals(1, ids.size());
+        assertEquals(90.0, balanceOf(sender));
+        assertEquals(2, transactionRepository.count());
+    }
+
+    @Test
+    void journaledDuplicatesOnTwoInstancesTransferOnce() throws Exception {
+        JournalService journal = new JournalService(bankAccountRepository, transactionRepository, checkpointRepository,
+                deadLetterRepository, balanceCheckpointRepository, new AccountLockManager(16), transactionTemplate,
+                journalDirectory, 1, 4096, 256, Duration.ofMinutes(5));
+        journal.start();
+        try {
+            TransactionService journaled = new TransactionService(bankAccountRepository, transactionRepository, cardRepository,
+                    new AccountLockManager(16), transactionTemplate, entityManager,
+                    new StaticListableBeanFactory(Map.of("journalService", journal)).getBeanProvider(JournalService.class),
+                    500, new SimpleMeterRegistry());
+            // separate in-memory state, as on two instances; only the database is shared
+            List<IdempotencyService> instances = List.of(
+                    new IdempotencyService(journaled, idempotencyRecordRepository, idempotencyClaimRepository,
+                            transactionTemplate, 10, Duration.ofMinutes(10), Duration.ofDays(1)),
+                    new IdempotencyService(journaled, idempotencyRecordRepository, idempotencyClaimRepository,
+                            transactionTemplate, 10, Duration.ofMinutes(10), Duration.ofDays(1)));
+
+            int callers = 8;
+            ExecutorService executor = Executors.newFixedThreadPool(callers);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Transaction>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                IdempotencyService instance = instances.get(i % 2);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return instance.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 10.0);
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<Transaction> result : results) {
+                try {
+                    assertEquals(10.0, result.get().getAmount());
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertEquals("Transaction with this idempotency key is still in progress.", e.getCause().getMessage());
+                }
+            }
+            executor.shutdown();
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (journal.pendingDelta(sender.getId()) != 0.0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(succeeded > 0);
+            assertEquals(90.0, balanceOf(sender));
+            assertEquals(2, transactionRepository.count());
+        } finally {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void journaledTransferWithAnUnknownOutcomeKeepsItsClaim() {
+        JournalService journal = mock(JournalService.class);
+        when(journal.append(anyLong(), anyLong(), anyDouble(), any())).thenThrow(new JournalOutcomeUnknownException());
+        TransactionService journaled = new TransactionService(bankAccountRepository, transactionRepository, cardRepository,
+                new AccountLockManager(16), transactionTemplate, entityManager,
+                new StaticListableBeanFactory(Map.of("journalService", journal)).getBeanProvider(JournalService.class),
+                500, new SimpleMeterRegistry());
+        IdempotencyService instance = new IdempotencyService(journaled, idempotencyRecordRepository, idempotencyClaimRepository,
+                transactionTemplate, 10, Duration.ofMinutes(10), Duration.ofDays(1));
+
+        assertThrows(JournalOutcomeUnknownException.class,
+                () -> instance.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 10.0));
+        RuntimeException retry = assertThrows(RuntimeException.class,
+                () -> instance.executeTransaction(1L, key, sender.getId(), receiver.getIban(), 10.0));
+
+        assertEquals("Transaction with this idempotency key is still in progress.", retry.getMessage());
+        verify(journal, times(1)).append(anyLong(), anyLong(), anyDouble(), any());
+    }
+
+    private double balanceOf(BankAccount account) {
+        return bankAccountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+
+    private BankAccount account(double balance) {
+        BankAccount account = new BankAccount();
+        account.setIban(UUID.randomUUID().toString());
+        account.setUserId(1L);
+        account.setType(AccountType.CURRENT);
+        account.setStatus(AccountStatus.APPROVED);
+        account.setBalance(balance);
+        return bankAccountRepository.save(account);
+    }
+}
@@ -0,0 +1,30 @@
+package com.bank.banking_service.services;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every SQL statement Hibernate prepares, so tests can count round trips
+ */
+public class StatementRecorder implements StatementInspector {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql);
+        return sql;
+    }
+
+    static void reset() {
+        statements.clear();
+    }
+
+    static long count(String verb) {
+        return statements.stream()
+                .filter(sql -> sql.stripLeading().toLowerCase().startsWith(verb))
+                .count();
+    }
+}
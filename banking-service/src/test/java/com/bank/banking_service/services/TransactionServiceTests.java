@@ -0,0 +1,238 @@
+package com.bank.banking_service.services;
+
+import com.bank.banking_service.controllers.TransactionController;
+import com.bank.banking_service.dtos.TransactionPage;
+import com.bank.banking_service.dtos.TransferRequest;
+import com.bank.banking_service.dtos.TransferResult;
+import com.bank.banking_service.model.AccountStatus;
+import com.bank.banking_service.model.AccountType;
+import com.bank.banking_service.model.BankAccount;
+import com.bank.banking_service.model.Card;
+import com.bank.banking_service.model.CardStatus;
+import com.bank.banking_service.model.CardType;
+import com.bank.banking_service.model.Transaction;
+import com.bank.banking_service.repositories.BankAccountRepository;
+import com.bank.banking_service.repositories.CardRepository;
+import com.bank.banking_service.repositories.TransactionRepository;
+import com.bank.banking_service.utils.AccountLockManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.ids.node-id=1",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bank.banking_service.services.StatementRecorder",
+        "banking.transfers.batch-chunk-size=2"
+})
+@Import({TransactionService.class, AccountLockManager.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionServiceTests {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private BankAccount sender;
+    private BankAccount receiver;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+        bankAccountRepository.deleteAll();
+
+        sender = account(AccountType.CURRENT, 100.0);
+        receiver = account(AccountType.CURRENT, 0.0);
+
+        Card card = new Card();
+        card.setType(CardType.DEBIT);
+        card.setUserId(1L);
+        card.setBankAccount(sender);
+        card.setStatus(CardStatus.APPROVED);
+        cardRepository.save(card);
+
+        StatementRecorder.reset();
+    }
+
+    @Test
+    void transferNeedsTwoSelectsBeforeWriting() {
+        long validations = phaseCount("validation");
+        Transaction transaction = transactionService.executeTransaction(sender.getId(), receiver.getIban(), 40.0);
+
+        assertEquals(40.0, transaction.getAmount());
+        // receiver id lookup for the account locks, then the single preflight query
+        assertEquals(2, StatementRecorder.count("select"));
+        // both balance updates share one JDBC batch, and so do both transaction rows
+        assertEquals(1, StatementRecorder.count("update"));
+        assertEquals(1, StatementRecorder.count("insert"));
+
+        assertEquals(60.0, bankAccountRepository.findById(sender.getId()).orElseThrow().getBalance());
+        assertEquals(40.0, bankAccountRepository.findById(receiver.getId()).orElseThrow().getBalance());
+        assertEquals(validations + 1, phaseCount("validation"));
+    }
+
+    @Test
+    void transferWithoutLinkedCardIsRejected() {
+        BankAccount unlinked = account(AccountType.CURRENT, 100.0);
+        StatementRecorder.reset();
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> transactionService.executeTransaction(unlinked.getId(), receiver.getIban(), 10.0));
+
+        assertEquals("Sender account must have a linked card.", e.getMessage());
+        assertEquals(0, StatementRecorder.count("update"));
+    }
+
+    @Test
+    void insufficientBalanceIsRejected() {
+        double rejections = meterRegistry.counter("banking.transfer.rejected", "reason", "insufficient_balance").count();
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> transactionService.executeTransaction(sender.getId(), receiver.getIban(), 500.0));
+
+        assertEquals("Insufficient balance.", e.getMessage());
+        assertEquals(100.0, bankAccountRepository.findById(sender.getId()).orElseThrow().getBalance());
+        assertEquals(rejections + 1, meterRegistry.counter("banking.transfer.rejected", "reason", "insufficient_balance").count());
+    }
+
+    @Test
+    void historyPagesWalkEveryTransactionOnce() {
+        for (int i = 0; i < 3; i++) {
+            transactionService.executeTransaction(sender.getId(), receiver.getIban(), 10.0);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPage page = transactionService.getUserTransactions(1L, cursor, 4);
+            page.getItems().forEach(transaction -> seen.add(transaction.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<Long> streamed = new ArrayList<>();
+        transactionService.streamUserTransactions(1L, transaction -> streamed.add(transaction.getId()));
+
+        assertEquals(6, seen.size());
+        assertEquals(6, new HashSet<>(seen).size());
+        assertEquals(seen, streamed);
+    }
+
+    @Test
+    void batchReportsEachRejectedItemAndAppliesTheRest() {
+        BankAccount unlinked = account(AccountType.CURRENT, 100.0);
+
+        List<TransferResult> results = transactionService.executeBatch(Arrays.asList(
+                new TransferRequest(sender.getId(), receiver.getIban(), 30.0),
+                new TransferRequest(sender.getId(), receiver.getIban(), 500.0),
+                new TransferRequest(sender.getId(), "unknown-iban", 10.0),
+                new TransferRequest(unlinked.getId(), receiver.getIban(), 10.0),
+                null,
+                new TransferRequest(null, receiver.getIban(), 10.0),
+                new TransferRequest(sender.getId(), receiver.getIban(), 20.0)));
+
+        assertEquals(List.of(true, false, false, false, false, false, true), results.stream().map(TransferResult::isSuccess).toList());
+        assertEquals(Arrays.asList(null, "Insufficient balance.", "Receiver account not found", "Sender account must have a linked card.",
+                "Transfer is required.", "Sender account not found", null), results.stream().map(TransferResult::getError).toList());
+        assertEquals(50.0, bankAccountRepository.findById(sender.getId()).orElseThrow().getBalance());
+        assertEquals(50.0, bankAccountRepository.findById(receiver.getId()).orElseThrow().getBalance());
+        assertEquals(100.0, bankAccountRepository.findById(unlinked.getId()).orElseThrow().getBalance());
+        assertEquals(4, transactionRepository.count());
+    }
+
+    @Test
+    void batchLoadsEachChunkWithThreeSelectsAndWritesItWithOneBatchEach() {
+        List<TransferRequest> transfers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            transfers.add(new TransferRequest(sender.getId(), receiver.getIban(), 10.0));
+        }
+
+        List<TransferResult> results = transactionService.executeBatch(transfers);
+
+        assertEquals(5, results.stream().filter(TransferResult::isSuccess).count());
+        // 5 transfers in chunks of 2: receiver ids, accounts and linked cards per chunk
+        assertEquals(9, StatementRecorder.count("select"));
+        // the balances of a chunk share one JDBC batch, and so do its transaction rows
+        assertEquals(3, StatementRecorder.count("update"));
+        assertEquals(3, StatementRecorder.count("insert"));
+        assertEquals(50.0, bankAccountRepository.findById(sender.getId()).orElseThrow().getBalance());
+        assertEquals(10, transactionRepository.count());
+    }
+
+    @Test
+    void laterItemsSeeTheBalanceLeftByEarlierOnesAcrossChunks() {
+        List<TransferResult> results = transactionService.executeBatch(List.of(
+                new TransferRequest(sender.getId(), receiver.getIban(), 40.0),
+                new TransferRequest(sender.getId(), receiver.getIban(), 40.0),
+                new TransferRequest(sender.getId(), receiver.getIban(), 40.0)));
+
+        assertEquals(List.of(true, true, false), results.stream().map(TransferResult::isSuccess).toList());
+        assertEquals("Insufficient balance.", results.get(2).getError());
+        assertEquals(20.0, bankAccountRepository.findById(sender.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    void batchEndpointAnswersWithOneResultPerItem() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new TransactionController(transactionService, null, new ObjectMapper())).build();
+        String body = new ObjectMapper().writeValueAsString(Arrays.asList(
+                Map.of("senderAccountId", sender.getId(), "receiverIban", receiver.getIban(), "amount", 10.0),
+                null,
+                Map.of("receiverIban", receiver.getIban(), "amount", 10.0)));
+
+        mockMvc.perform(post("/banking/transactions/transfer/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[1].error").value("Transfer is required."))
+                .andExpect(jsonPath("$[2].error").value("Sender account not found"));
+        assertEquals(90.0, bankAccountRepository.findById(sender.getId()).orElseThrow().getBalance());
+    }
+
+    private long phaseCount(String phase) {
+        return meterRegistry.get("banking.transfer.phase").tag("phase", phase).timer().count();
+    }
+
+    private BankAccount account(AccountType type, double balance) {
+        BankAccount account = new BankAccount();
+        account.setIban(UUID.randomUUID().toString());
+        account.setUserId(1L);
+        account.setType(type);
+        account.setStatus(AccountStatus.APPROVED);
+        account.setBalance(balance);
+        return bankAccountRepository.save(account);
+    }
+}
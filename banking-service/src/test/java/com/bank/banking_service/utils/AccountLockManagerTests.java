@@ -0,0 +1,99 @@
+package com.bank.banking_service.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountLockManagerTests {
+
+    private static final int ACCOUNTS = 64;
+    private static final int THREADS = Math.max(16, Runtime.getRuntime().availableProcessors());
+    private static final int TRANSFERS_PER_THREAD = 20_000;
+
+    @Test
+    void stripeCountIsRoundedUpToPowerOfTwo() {
+        assertEquals(1, new AccountLockManager(1).stripeCount());
+        assertEquals(1024, new AccountLockManager(1000).stripeCount());
+        assertEquals(1024, new AccountLockManager(1024).stripeCount());
+    }
+
+    @Test
+    void accountsOnTheSameStripeAreLockedOnce() {
+        AccountLockManager locks = new AccountLockManager(1);
+        assertEquals("done", locks.withAccountLocks(List.of(1L, 2L, 1L), () -> "done"));
+    }
+
+    /**
+     * Random transfers, half of them in the opposite direction of another thread's,
+     * on deliberately unsynchronized balances. Without the locks this loses updates;
+     * with them every cent is accounted for and nothing deadlocks.
+     */
+    @Test
+    void concurrentTransfersKeepBalancesConsistent() throws Exception {
+        AccountLockManager locks = new AccountLockManager(16);
+        long[] balances = new long[ACCOUNTS];
+        long[] expected = new long[ACCOUNTS];
+        Arrays.fill(balances, 1_000_000L);
+        Arrays.fill(expected, 1_000_000L);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(executor.submit(() -> {
+                long[] delta = new long[ACCOUNTS];
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    long amount = 1 + random.nextInt(10);
+                    locks.withAccountLocks(List.of((long) from, (long) to), () -> {
+                        balances[from] -= amount;
+                        balances[to] += amount;
+                        return null;
+                    });
+                    delta[from] -= amount;
+                    delta[to] += amount;
+                }
+                return delta;
+            }));
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "transfers deadlocked");
+
+        for (Future<long[]> result : results) {
+            long[] delta = result.get();
+            for (int i = 0; i < ACCOUNTS; i++) {
+                expected[i] += delta[i];
+            }
+        }
+        locks.withAccountLocks(allAccounts(), () -> {
+            for (int i = 0; i < ACCOUNTS; i++) {
+                assertEquals(expected[i], balances[i], "balance of account " + i);
+            }
+            return null;
+        });
+    }
+
+    private static List<Long> allAccounts() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < ACCOUNTS; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,96 @@
+package com.bank.banking_service.utils;
+
+import com.bank.banking_service.security.AuthenticatedUser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtUtilTests {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private KeyPair keyPair;
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+
+        String pem = "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----\n";
+        jwtUtil = new JwtUtil(meterRegistry, 1_000, nanos::get);
+        ReflectionTestUtils.setField(jwtUtil, "publicKeyResource", new ByteArrayResource(pem.getBytes()));
+        jwtUtil.init();
+    }
+
+    @Test
+    void repeatedTokenIsVerifiedOnce() {
+        String token = token(42L, 60_000);
+
+        AuthenticatedUser first = jwtUtil.parse(token);
+        AuthenticatedUser second = jwtUtil.parse(token);
+        jwtUtil.parse(token(7L, 60_000));
+
+        assertEquals(first, second);
+        assertEquals(1.0, gets("hit"));
+        assertEquals(2.0, gets("miss"));
+        assertEquals(2.0, meterRegistry.get("cache.size").tag("cache", "jwt.verified-tokens").gauge().value());
+    }
+
+    @Test
+    void entryIsEvictedWhenItsTokenExpires() {
+        String token = token(42L, 60_000);
+        jwtUtil.parse(token);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        jwtUtil.parse(token);
+        assertEquals(1.0, gets("miss"));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        jwtUtil.parse(token);
+        // only the cache clock moved on, so the parser accepts the token again
+        assertEquals(2.0, gets("miss"));
+    }
+
+    @Test
+    void tamperedTokenIsNotServedFromTheCache() {
+        String token = token(42L, 60_000);
+        jwtUtil.parse(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(RuntimeException.class, () -> jwtUtil.parse(tampered));
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "jwt.verified-tokens").tag("result", result)
+                .functionCounter().count();
+    }
+
+    private String token(Long userId, long validForMillis) {
+        return Jwts.builder()
+                .subject("user" + userId)
+                .claim("role", "CLIENT")
+                .claim("userId", userId)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + validForMillis))
+                .signWith(keyPair.getPrivate())
+                .compact();
+    }
+}
@@ -0,0 +1,83 @@
+package com.bank.banking_service.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeOrderedIdGeneratorTests {
+
+    @Test
+    void idsCarryTimeNodeAndSequence() {
+        long now = TimeOrderedIdGenerator.EPOCH + 1_000;
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(7, () -> now);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertEquals(1_000, first >>> (TimeOrderedIdGenerator.NODE_BITS + TimeOrderedIdGenerator.SEQUENCE_BITS));
+        assertEquals(7, (first >>> TimeOrderedIdGenerator.SEQUENCE_BITS) & TimeOrderedIdGenerator.MAX_NODE);
+        assertEquals(first + 1, second);
+    }
+
+    @Test
+    void idsKeepIncreasingWhenTheClockStepsBackOrTheSequenceRunsOut() {
+        AtomicLong clock = new AtomicLong(TimeOrderedIdGenerator.EPOCH + 5_000);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1, clock::get);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 20_000; i++) {
+            if (i == 10_000) {
+                clock.addAndGet(-2_000);
+            }
+            long id = generator.nextId();
+            assertTrue(id > previous, "id " + i + " did not increase");
+            previous = id;
+        }
+    }
+
+    @Test
+    void concurrentCallersNeverShareAnId() throws Exception {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(3, System::currentTimeMillis);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(executor.submit(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < 50_000; i++) {
+                    ids.add(generator.nextId());
+                }
+                return ids;
+            }));
+        }
+
+        Set<Long> unique = new HashSet<>();
+        for (Future<List<Long>> result : results) {
+            unique.addAll(result.get());
+        }
+        executor.shutdown();
+        assertEquals(400_000, unique.size());
+    }
+
+    @Test
+    void nodeIdMustFitItsBits() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIdGenerator(1024, System::currentTimeMillis));
+    }
+
+    @Test
+    void missingNodeIdIsNotGuessed() {
+        assertThrows(IllegalStateException.class, () -> TimeOrderedIdGenerator.nodeId(null));
+        assertThrows(IllegalStateException.class, () -> TimeOrderedIdGenerator.nodeId(" "));
+        assertEquals(5, TimeOrderedIdGenerator.nodeId("5"));
+    }
+}
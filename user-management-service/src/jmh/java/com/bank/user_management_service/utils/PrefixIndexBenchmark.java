@@ -0,0 +1,68 @@
+package com.bank.user_management_service.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-20 prefix lookups over the usernames and emails of the given number of users
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PrefixIndexBenchmark {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    @Param({"100000", "5000000"})
+    private int users;
+
+    private PrefixIndex index;
+    private String[] prefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        PrefixIndex.Builder builder = new PrefixIndex.Builder();
+        for (int i = 0; i < users; i++) {
+            String username = randomWord(random, 6 + random.nextInt(6)) + i;
+            builder.add(username, i).add(username + "@bank.test", i);
+        }
+        index = builder.build();
+
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = randomWord(random, 1 + i % 4);
+        }
+    }
+
+    @Benchmark
+    public List<PrefixIndex.Match> search() {
+        return index.search(prefixes[next++ & (prefixes.length - 1)], 20);
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+}
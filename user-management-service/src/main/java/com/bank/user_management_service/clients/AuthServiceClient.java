@@ -1,5 +1,6 @@
 package com.bank.user_management_service.clients;
 
+import com.bank.user_management_service.dto.AuthRegistrationResult;
 import com.bank.user_management_service.dto.AuthUserRequest;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -7,12 +8,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
-@FeignClient(name = "auth-service", url = "http://localhost:8080/auth")
-public interface AuthServiceClient {
+import java.util.List;
 
+/**
+ * Calls to the auth-service, balanced over its healthy instances and guarded by a bulkhead
+ * and a circuit breaker (see {@link com.bank.user_management_service.configuration.AuthServiceClientConfig}).
+ */
+@FeignClient(name = "auth-service", path = "/auth", configuration = AuthServiceFeignConfiguration.class)
+public interface AuthServiceClient {
 
-    @PostMapping("/register")
-    void registerUser(@RequestBody AuthUserRequest request);
+    @PostMapping("/register/batch")
+    List<AuthRegistrationResult> registerUsers(@RequestBody List<AuthUserRequest> requests);
 
     @DeleteMapping("/deleteUser/{userId}")
     void deleteUser(@PathVariable Long userId);
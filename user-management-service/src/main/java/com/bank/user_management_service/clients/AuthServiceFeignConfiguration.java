@@ -0,0 +1,28 @@
+package com.bank.user_management_service.clients;
+
+import feign.Capability;
+import feign.RequestInterceptor;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Feign setup of {@link AuthServiceClient}, kept out of component scanning so it only
+ * applies to that client. Calls pass the bulkhead and circuit breaker before reaching the
+ * load-balanced, pooled HTTP client. Every call carries the service token, which the
+ * auth-service requires for batch registration.
+ */
+public class AuthServiceFeignConfiguration {
+
+    @Bean
+    public Capability authServiceResilience(CircuitBreaker authServiceCircuitBreaker, Bulkhead authServiceBulkhead) {
+        return new ResilientClientCapability(authServiceCircuitBreaker, authServiceBulkhead);
+    }
+
+    @Bean
+    public RequestInterceptor authServiceToken(@Value("${auth.service-token:}") String serviceToken) {
+        return template -> template.header(HttpHeaders.AUTHORIZATION, "Bearer " + serviceToken);
+    }
+}
@@ -0,0 +1,35 @@
+package com.bank.user_management_service.clients;
+
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+/**
+ * Load balancer setup of the auth-service, kept out of component scanning so it only
+ * applies to that client.
+ * <p>
+ * Instances come from the discovery client and each one is probed on its health endpoint
+ * every health-check interval; calls are spread round robin over the instances whose last
+ * probe answered 200. The probes have short timeouts of their own, so a hanging instance
+ * drops out instead of stalling the check.
+ */
+public class AuthServiceLoadBalancerConfiguration {
+
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(1);
+
+    @Bean
+    public ServiceInstanceListSupplier authServiceInstances(ConfigurableApplicationContext context) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(PROBE_TIMEOUT);
+        requestFactory.setReadTimeout(PROBE_TIMEOUT);
+
+        return ServiceInstanceListSupplier.builder()
+                .withBlockingDiscoveryClient()
+                .withBlockingHealthChecks(RestClient.builder().requestFactory(requestFactory).build())
+                .build(context);
+    }
+}
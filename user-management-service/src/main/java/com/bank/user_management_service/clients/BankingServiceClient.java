@@ -0,0 +1,27 @@
+package com.bank.user_management_service.clients;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Banker lookups of one client in the banking-service, made with the banker's own token.
+ * Bodies are passed through as JSON, so this service does not mirror the banking model.
+ */
+@FeignClient(name = "banking-service", path = "/banking")
+public interface BankingServiceClient {
+
+    @GetMapping("/accounts/user/{userId}")
+    JsonNode getAccounts(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization, @PathVariable Long userId);
+
+    @GetMapping("/cards/user/{userId}")
+    JsonNode getCards(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization, @PathVariable Long userId);
+
+    @GetMapping("/transactions/user/{userId}")
+    JsonNode getTransactions(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization, @PathVariable Long userId,
+                             @RequestParam int size);
+}
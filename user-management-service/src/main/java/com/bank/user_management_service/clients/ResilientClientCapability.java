@@ -0,0 +1,40 @@
+package com.bank.user_management_service.clients;
+
+import feign.Capability;
+import feign.Client;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+import java.io.IOException;
+
+/**
+ * Runs every call of a Feign client through a bulkhead, then a circuit breaker.
+ * <p>
+ * A call the bulkhead has no room for, or the open breaker refuses, fails at once without
+ * touching the network. Bulkhead rejections never reach the breaker, so a burst of callers
+ * cannot open it on its own.
+ */
+public class ResilientClientCapability implements Capability {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    public ResilientClientCapability(CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> {
+            try {
+                return Bulkhead.decorateCheckedSupplier(bulkhead,
+                        CircuitBreaker.decorateCheckedSupplier(circuitBreaker, () -> client.execute(request, options))).get();
+            } catch (IOException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IOException(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.bank.user_management_service.configuration;
+
+import com.bank.user_management_service.clients.AuthServiceLoadBalancerConfiguration;
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker and bulkhead guarding every call to the auth-service, and the
+ * health-checked instance list its calls are balanced over.
+ * <p>
+ * The breaker counts connection errors, timeouts and 5xx responses; once too many of the
+ * recent calls failed it rejects calls at once until the wait in open state has passed.
+ * The bulkhead caps the calls in flight, so a slow auth-service holds a bounded number of
+ * threads and connections instead of all of them.
+ */
+@Configuration
+@LoadBalancerClient(name = AuthServiceClientConfig.AUTH_SERVICE, configuration = AuthServiceLoadBalancerConfiguration.class)
+public class AuthServiceClientConfig {
+
+    public static final String AUTH_SERVICE = "auth-service";
+
+    @Bean
+    public CircuitBreaker authServiceCircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${auth-client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${auth-client.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${auth-client.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+            @Value("${auth-client.circuit-breaker.wait-duration-in-open-state:PT10S}") Duration waitDurationInOpenState) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindow(slidingWindowSize, minimumNumberOfCalls, CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .waitDurationInOpenState(waitDurationInOpenState)
+                .recordResult(result -> result instanceof Response response && response.status() >= 500)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker(AUTH_SERVICE);
+    }
+
+    @Bean
+    public Bulkhead authServiceBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${auth-client.bulkhead.max-concurrent-calls:20}") int maxConcurrentCalls,
+            @Value("${auth-client.bulkhead.max-wait:PT0.5S}") Duration maxWait) {
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWait)
+                .build();
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(AUTH_SERVICE);
+    }
+}
@@ -0,0 +1,29 @@
+package com.bank.user_management_service.configuration;
+
+import com.bank.user_management_service.security.AuthenticatedUserArgumentResolver;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new AuthenticatedUserArgumentResolver());
+    }
+
+    /**
+     * Longs are written as strings: the ids are time-ordered and above 2^53, which JavaScript numbers round
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer longsAsStrings() {
+        return builder -> builder.serializerByType(Long.class, ToStringSerializer.instance)
+                .serializerByType(Long.TYPE, ToStringSerializer.instance);
+    }
+}
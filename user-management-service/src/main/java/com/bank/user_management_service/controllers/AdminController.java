@@ -1,12 +1,12 @@
 package com.bank.user_management_service.controllers;
 
+import com.bank.user_management_service.dto.UserPage;
 import com.bank.user_management_service.dto.UserRequestDTO;
 import com.bank.user_management_service.model.Role;
 import com.bank.user_management_service.model.User;
 import com.bank.user_management_service.services.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 
 
 @RestController
@@ -41,8 +41,13 @@ public class AdminController {
     }
 
 
+    /**
+     * Active bankers, one page at a time
+     */
     @GetMapping("/bankers")
-    public ResponseEntity<List<User>> getUsers() {
-        return ResponseEntity.ok(userService.getAllUsersByRole(Role.BANKER));
+    public ResponseEntity<UserPage> getUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(userService.getUsersByRole(Role.BANKER, cursor, size));
     }
 }
@@ -1,12 +1,19 @@
 package com.bank.user_management_service.controllers;
 
+import com.bank.user_management_service.dto.BulkClientResult;
+import com.bank.user_management_service.dto.ClientOverview;
+import com.bank.user_management_service.dto.UserPage;
 import com.bank.user_management_service.dto.UserRequestDTO;
+import com.bank.user_management_service.dto.UserSummary;
 import com.bank.user_management_service.model.Role;
 import com.bank.user_management_service.model.User;
+import com.bank.user_management_service.services.ClientOverviewService;
 import com.bank.user_management_service.services.UserService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Objects;
 
 
 @RestController
@@ -15,9 +22,11 @@ public class BankerController {
 
 
     private final UserService userService;
+    private final ClientOverviewService clientOverviewService;
 
-    public BankerController(UserService userService) {
+    public BankerController(UserService userService, ClientOverviewService clientOverviewService) {
         this.userService = userService;
+        this.clientOverviewService = clientOverviewService;
     }
 
     @PostMapping("/create-client")
@@ -27,6 +36,16 @@ public class BankerController {
     }
 
 
+    /**
+     * Onboard many clients at once; the response has one result per submitted client, in order
+     */
+    @PostMapping("/create-clients/bulk")
+    public ResponseEntity<List<BulkClientResult>> createClients(@RequestBody List<UserRequestDTO> users) {
+        users.stream().filter(Objects::nonNull).forEach(user -> user.setRole(String.valueOf(Role.CLIENT)));
+        return ResponseEntity.ok(userService.createUsers(users));
+    }
+
+
     @PutMapping("/update-client/{id}")
     public ResponseEntity<User> updateClient(@PathVariable Long id, @RequestBody User user) {
         return ResponseEntity.ok(userService.updateUser(id, user));
@@ -40,8 +59,39 @@ public class BankerController {
     }
 
 
+    /**
+     * Active clients, one page at a time
+     */
     @GetMapping("/clients")
-    public ResponseEntity<List<User>> getClients() {
-        return ResponseEntity.ok(userService.getAllUsersByRole(Role.CLIENT));
+    public ResponseEntity<UserPage> getClients(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(userService.getUsersByRole(Role.CLIENT, cursor, size));
+    }
+
+
+    /**
+     * Active clients whose username or email starts with q
+     */
+    @GetMapping("/clients/search")
+    public ResponseEntity<List<UserSummary>> searchClients(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(userService.searchClients(q, size));
+    }
+
+
+    /**
+     * Profile, accounts, cards and latest transactions of a client in one call; a section that
+     * failed or timed out says so and the others are still returned. 404 unless the id is an
+     * active client's
+     */
+    @GetMapping("/clients/{id}/overview")
+    public ResponseEntity<ClientOverview> getClientOverview(
+            @PathVariable Long id,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        return clientOverviewService.getOverview(id, authorization)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 }
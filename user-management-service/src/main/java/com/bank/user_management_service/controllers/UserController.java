@@ -1,8 +1,8 @@
 package com.bank.user_management_service.controllers;
 
 import com.bank.user_management_service.model.User;
+import com.bank.user_management_service.security.AuthenticatedUser;
 import com.bank.user_management_service.services.UserService;
-import com.bank.user_management_service.utils.JwtUtil;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,23 +12,21 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
-    private final JwtUtil jwtUtil;
 
-    public UserController(UserService userService, JwtUtil jwtUtil) {
+    public UserController(UserService userService) {
         this.userService = userService;
-        this.jwtUtil = jwtUtil;
     }
 
 
 
     @GetMapping("/me")
-    public ResponseEntity<User> getCurrentUser(@RequestHeader("Authorization") String token) {
-        User user = userService.getUserById(jwtUtil.extractUserId(token.substring(7)));
+    public ResponseEntity<User> getCurrentUser(AuthenticatedUser caller) {
+        User user = userService.getUserById(caller.userId());
         return ResponseEntity.ok(user);
     }
 
     @PutMapping("/me/update")
-    public ResponseEntity<User> updateCurrentUser(@RequestHeader("Authorization") String token,@RequestBody User user) {
-        return ResponseEntity.ok(userService.updateUser(jwtUtil.extractUserId(token.substring(7)), user));
+    public ResponseEntity<User> updateCurrentUser(AuthenticatedUser caller,@RequestBody User user) {
+        return ResponseEntity.ok(userService.updateUser(caller.userId(), user));
     }
 }
@@ -0,0 +1,20 @@
+package com.bank.user_management_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One row of the auth-service's batch registration response
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuthRegistrationResult {
+    private Long id;
+    private String username;
+    private boolean success;
+    private String error;
+}
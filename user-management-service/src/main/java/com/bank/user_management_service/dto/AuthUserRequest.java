@@ -1,15 +1,18 @@
 package com.bank.user_management_service.dto;
 
+/**
+ * Credentials of a new user for the auth-service; the password is already hashed with BCrypt
+ */
 public class AuthUserRequest {
     private Long id;
     private String username;
-    private String password;
+    private String passwordHash;
     private String role;
 
-    public AuthUserRequest(Long id, String username, String password, String role) {
+    public AuthUserRequest(Long id, String username, String passwordHash, String role) {
         this.id = id;
         this.username = username;
-        this.password = password;
+        this.passwordHash = passwordHash;
         this.role = role;
     }
 
@@ -29,12 +32,12 @@ public class AuthUserRequest {
         this.username = username;
     }
 
-    public String getPassword() {
-        return password;
+    public String getPasswordHash() {
+        return passwordHash;
     }
 
-    public void setPassword(String password) {
-        this.password = password;
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
     }
 
     public String getRole() {
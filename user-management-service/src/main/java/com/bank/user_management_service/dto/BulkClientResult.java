@@ -0,0 +1,29 @@
+package com.bank.user_management_service.dto;
+
+import com.bank.user_management_service.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkClientResult {
+    private String username;
+    private String email;
+    private boolean success;
+    private String error;
+    private User user;
+
+    public static BulkClientResult succeeded(UserRequestDTO request, User user) {
+        return new BulkClientResult(request.getUsername(), request.getEmail(), true, null, user);
+    }
+
+    public static BulkClientResult failed(UserRequestDTO request, String error) {
+        return request == null
+                ? new BulkClientResult(null, null, false, error, null)
+                : new BulkClientResult(request.getUsername(), request.getEmail(), false, error, null);
+    }
+}
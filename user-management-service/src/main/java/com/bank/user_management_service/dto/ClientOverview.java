@@ -0,0 +1,11 @@
+package com.bank.user_management_service.dto;
+
+import com.bank.user_management_service.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Everything a banker sees of one client, each section with its own status
+ */
+public record ClientOverview(OverviewSection<User> profile, OverviewSection<JsonNode> accounts,
+                             OverviewSection<JsonNode> cards, OverviewSection<JsonNode> transactions) {
+}
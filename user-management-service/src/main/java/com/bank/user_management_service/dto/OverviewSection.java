@@ -0,0 +1,23 @@
+package com.bank.user_management_service.dto;
+
+/**
+ * One part of a client overview: its data when the lookup answered in time, else why not
+ */
+public record OverviewSection<T>(Outcome status, T data, String error) {
+
+    public enum Outcome {
+        OK, TIMEOUT, FAILED
+    }
+
+    public static <T> OverviewSection<T> ok(T data) {
+        return new OverviewSection<>(Outcome.OK, data, null);
+    }
+
+    public static <T> OverviewSection<T> timedOut() {
+        return new OverviewSection<>(Outcome.TIMEOUT, null, "No answer in time.");
+    }
+
+    public static <T> OverviewSection<T> failed(String error) {
+        return new OverviewSection<>(Outcome.FAILED, null, error);
+    }
+}
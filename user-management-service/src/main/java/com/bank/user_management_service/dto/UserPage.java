@@ -0,0 +1,27 @@
+package com.bank.user_management_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of a user listing, oldest first; {@code nextCursor} is null on the last page
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPage {
+    private List<UserSummary> items;
+    private String nextCursor;
+
+    public static UserPage of(List<UserSummary> items, int size) {
+        if (items.size() < size) {
+            return new UserPage(items, null);
+        }
+        return new UserPage(items, String.valueOf(items.get(items.size() - 1).id()));
+    }
+}
@@ -0,0 +1,7 @@
+package com.bank.user_management_service.dto;
+
+/**
+ * The columns a user listing shows, read straight from the query instead of loading entities
+ */
+public record UserSummary(Long id, String username, String email) {
+}
@@ -0,0 +1,92 @@
+package com.bank.user_management_service.model;
+
+import com.bank.user_management_service.utils.TimeOrderedId;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change to propagate to the auth-service, written in the same transaction as the user
+ * change itself. Events are delivered in id order per user and deleted once delivered;
+ * an event the auth-service rejects is kept as {@link OutboxStatus#FAILED} without its
+ * password hash, for an operator to look at. Passwords are never stored in plain text: a
+ * registration carries the BCrypt hash the auth-service stores as is.
+ * <p>
+ * A dispatcher claims an event before sending it and holds the claim until
+ * {@link #claimedUntil}; an event whose claim has lapsed may be claimed by another instance.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_user_id_id", columnList = "userId, id"),
+        @Index(name = "idx_outbox_events_status_next_attempt_at", columnList = "status, nextAttemptAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @TimeOrderedId
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxEventType type;
+
+    /**
+     * Credentials for {@link OutboxEventType#REGISTER_USER}; null for other types
+     */
+    private String username;
+    private String passwordHash;
+    private String role;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(length = 64)
+    private String claimedBy;
+
+    private LocalDateTime claimedUntil;
+
+
+    public static OutboxEvent registerUser(Long userId, String username, String passwordHash, String role) {
+        OutboxEvent event = new OutboxEvent();
+        event.setUserId(userId);
+        event.setType(OutboxEventType.REGISTER_USER);
+        event.setUsername(username);
+        event.setPasswordHash(passwordHash);
+        event.setRole(role);
+        event.setCreatedAt(LocalDateTime.now());
+        event.setNextAttemptAt(event.getCreatedAt());
+        return event;
+    }
+
+    public static OutboxEvent deleteUser(Long userId) {
+        OutboxEvent event = new OutboxEvent();
+        event.setUserId(userId);
+        event.setType(OutboxEventType.DELETE_USER);
+        event.setCreatedAt(LocalDateTime.now());
+        event.setNextAttemptAt(event.getCreatedAt());
+        return event;
+    }
+}
@@ -0,0 +1,6 @@
+package com.bank.user_management_service.model;
+
+public enum OutboxEventType {
+    REGISTER_USER,
+    DELETE_USER
+}
@@ -0,0 +1,6 @@
+package com.bank.user_management_service.model;
+
+public enum OutboxStatus {
+    PENDING,
+    FAILED
+}
@@ -1,5 +1,6 @@
 package com.bank.user_management_service.model;
 
+import com.bank.user_management_service.utils.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -12,11 +13,12 @@ import lombok.Setter;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "users")
+@Table(name = "users", indexes =
+        @Index(name = "idx_users_role_status_id", columnList = "role, status, id"))
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -0,0 +1,39 @@
+package com.bank.user_management_service.model;
+
+import com.bank.user_management_service.utils.TimeOrderedId;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change to a user, written in the same transaction as the change itself so every
+ * instance can drop its cached copy of that user. Rows are purged after a retention period.
+ */
+@Entity
+@Table(name = "user_changes", indexes =
+        @Index(name = "idx_user_changes_changed_at", columnList = "changedAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChange {
+
+    @Id
+    @TimeOrderedId
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+
+    public UserChange(Long userId) {
+        this.userId = userId;
+        this.changedAt = LocalDateTime.now();
+    }
+}
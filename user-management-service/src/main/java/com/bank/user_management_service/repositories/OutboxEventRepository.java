@@ -0,0 +1,64 @@
+package com.bank.user_management_service.repositories;
+
+import com.bank.user_management_service.model.OutboxEvent;
+import com.bank.user_management_service.model.OutboxStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Due events that are the oldest pending event of their user; a user's later events wait
+     * until the earlier ones have been delivered, also while those are backing off or claimed
+     */
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = :status AND e.nextAttemptAt <= :now " +
+            "AND (e.claimedUntil IS NULL OR e.claimedUntil < :now) " +
+            "AND NOT EXISTS (SELECT o.id FROM OutboxEvent o WHERE o.userId = e.userId AND o.status = :status AND o.id < e.id) " +
+            "ORDER BY e.id")
+    List<OutboxEvent> findDeliverable(@Param("status") OutboxStatus status, @Param("now") LocalDateTime now, Limit limit);
+
+    /**
+     * Claim the given events for the owner until the given time, skipping events another
+     * owner holds a live claim on
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedBy = :owner, e.claimedUntil = :until " +
+            "WHERE e.id IN :ids AND e.status = :status AND (e.claimedUntil IS NULL OR e.claimedUntil < :now)")
+    int claim(@Param("ids") List<Long> ids, @Param("status") OutboxStatus status, @Param("owner") String owner,
+              @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    List<OutboxEvent> findByClaimedByAndIdInOrderById(String claimedBy, List<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id IN :ids AND e.claimedBy = :owner")
+    int deleteClaimed(@Param("ids") List<Long> ids, @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedBy = NULL, e.claimedUntil = NULL WHERE e.id IN :ids AND e.claimedBy = :owner")
+    int release(@Param("ids") List<Long> ids, @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, e.lastError = :error, " +
+            "e.claimedBy = NULL, e.claimedUntil = NULL WHERE e.id = :id AND e.claimedBy = :owner")
+    int retryLater(@Param("id") Long id, @Param("owner") String owner, @Param("attempts") int attempts,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    /**
+     * Mark a claimed event as failed, dropping its password hash
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.passwordHash = NULL, e.attempts = :attempts, e.lastError = :error, " +
+            "e.claimedBy = NULL, e.claimedUntil = NULL WHERE e.id = :id AND e.claimedBy = :owner")
+    int park(@Param("id") Long id, @Param("owner") String owner, @Param("status") OutboxStatus status,
+             @Param("attempts") int attempts, @Param("error") String error);
+
+    long countByStatus(OutboxStatus status);
+}
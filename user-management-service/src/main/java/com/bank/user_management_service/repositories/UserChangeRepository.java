@@ -0,0 +1,22 @@
+package com.bank.user_management_service.repositories;
+
+import com.bank.user_management_service.model.UserChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+
+@Repository
+public interface UserChangeRepository extends JpaRepository<UserChange, Long> {
+
+    @Query("SELECT DISTINCT c.userId FROM UserChange c WHERE c.changedAt >= :since")
+    List<Long> findUserIdsChangedSince(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM UserChange c WHERE c.changedAt < :cutoff")
+    int deleteChangedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
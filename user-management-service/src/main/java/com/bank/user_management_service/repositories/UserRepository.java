@@ -1,17 +1,48 @@
 package com.bank.user_management_service.repositories;
 
+import com.bank.user_management_service.dto.UserSummary;
 import com.bank.user_management_service.model.Role;
 import com.bank.user_management_service.model.Status;
 import com.bank.user_management_service.model.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    List<User> findByRoleAndStatus(Role role, Status status);
+    @Query("SELECT new com.bank.user_management_service.dto.UserSummary(u.id, u.username, u.email) FROM User u " +
+            "WHERE u.role = :role AND u.status = :status ORDER BY u.id ASC")
+    List<UserSummary> findFirstPage(@Param("role") Role role, @Param("status") Status status, Limit limit);
+
+    @Query("SELECT new com.bank.user_management_service.dto.UserSummary(u.id, u.username, u.email) FROM User u " +
+            "WHERE u.role = :role AND u.status = :status AND u.id > :id ORDER BY u.id ASC")
+    List<UserSummary> findPageAfter(@Param("role") Role role, @Param("status") Status status, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT new com.bank.user_management_service.dto.UserSummary(u.id, u.username, u.email) FROM User u " +
+            "WHERE u.id IN :ids AND u.role = :role AND u.status = :status")
+    List<UserSummary> findSummaries(@Param("ids") Collection<Long> ids, @Param("role") Role role, @Param("status") Status status);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.bank.user_management_service.dto.UserSummary(u.id, u.username, u.email) FROM User u " +
+            "WHERE u.role = :role AND u.status = :status")
+    Stream<UserSummary> streamSummaries(@Param("role") Role role, @Param("status") Status status);
+
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
 
 
 }
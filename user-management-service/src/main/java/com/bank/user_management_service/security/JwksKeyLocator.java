@@ -0,0 +1,131 @@
+package com.bank.user_management_service.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.Key;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Finds the public key for a token by its {@code kid} in the authentication service's JWKS.
+ * <p>
+ * The key set is fetched at startup and again every refresh interval, or sooner when a token
+ * names a key we have not seen, so rotated keys are picked up without a restart. Unknown
+ * kids refetch at most once every few seconds, so forged headers cannot hammer the
+ * authentication service. Tokens without a kid are verified with the configured PEM key.
+ */
+public class JwksKeyLocator extends LocatorAdapter<Key> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeyLocator.class);
+    private static final Duration MIN_REFETCH = Duration.ofSeconds(5);
+
+    private final URI jwksUri;
+    private final PublicKey fallbackKey;
+    private final Duration refreshInterval;
+    private final long minRefetchNanos;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final ReentrantLock fetchLock = new ReentrantLock();
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long fetchedAt;
+    private volatile long attemptedAt;
+
+    public JwksKeyLocator(String jwksUri, PublicKey fallbackKey, Duration refreshInterval) {
+        this(jwksUri, fallbackKey, refreshInterval, MIN_REFETCH);
+    }
+
+    JwksKeyLocator(String jwksUri, PublicKey fallbackKey, Duration refreshInterval, Duration minRefetch) {
+        this.minRefetchNanos = minRefetch.toNanos();
+        this.jwksUri = jwksUri == null || jwksUri.isBlank() ? null : URI.create(jwksUri);
+        this.fallbackKey = fallbackKey;
+        this.refreshInterval = refreshInterval;
+        if (this.jwksUri != null) {
+            refresh();
+        }
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid == null || jwksUri == null) {
+            return fallbackKey;
+        }
+
+        long now = System.nanoTime();
+        long attempted = attemptedAt;
+        PublicKey key = keys.get(kid);
+        if (key == null && now - attempted >= minRefetchNanos) {
+            refresh(attempted);
+            key = keys.get(kid);
+        } else if (key != null && now - fetchedAt >= refreshInterval.toNanos()
+                && now - attempted >= minRefetchNanos && fetchLock.tryLock()) {
+            // periodic refresh; concurrent requests keep using the current set meanwhile
+            try {
+                refresh(attempted);
+            } finally {
+                fetchLock.unlock();
+            }
+        }
+        if (key == null) {
+            throw new RuntimeException("Unknown token signing key.");
+        }
+        return key;
+    }
+
+    /**
+     * Replace the key set with the one currently published; a failed fetch keeps the old set
+     */
+    void refresh() {
+        refresh(attemptedAt);
+    }
+
+    /**
+     * Fetch unless another request did since {@code attempted} was read; requests that queue
+     * on the lock for the same unknown kid then share one fetch
+     */
+    private void refresh(long attempted) {
+        fetchLock.lock();
+        try {
+            if (attemptedAt != attempted) {
+                return;
+            }
+            attemptedAt = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(jwksUri).timeout(Duration.ofSeconds(2)).GET().build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("JWKS endpoint returned " + response.statusCode());
+            }
+
+            JwkSet set = Jwks.setParser().build().parse(response.body());
+            Map<String, PublicKey> fetched = new HashMap<>();
+            for (Jwk<?> jwk : set.getKeys()) {
+                if (jwk instanceof PublicJwk<?> publicJwk && jwk.getId() != null) {
+                    fetched.put(jwk.getId(), publicJwk.toKey());
+                }
+            }
+            keys = Map.copyOf(fetched);
+            fetchedAt = attemptedAt;
+            logger.info("Loaded {} token signing keys from {}", fetched.size(), jwksUri);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Could not load token signing keys from {}: {}", jwksUri, e.getMessage());
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.bank.user_management_service.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory set of revoked users and token ids, checked on every request.
+ * <p>
+ * Entries are reduced to 64-bit fingerprints and kept in an open-addressing table, with a
+ * Bloom filter in front of it. The filter is an eighth of the table's size, so almost every
+ * lookup for a token that was not revoked ends after a few bits in cache, and the table
+ * confirms the rare positives. Both checks are constant time and allocate nothing.
+ * <p>
+ * One thread adds entries; any number read concurrently. Entries cannot be removed: expired
+ * ones disappear when the owner builds a fresh list from the feed.
+ */
+public class RevocationList {
+
+    private static final long USER_SALT = 0x9E3779B97F4A7C15L;
+    private static final long TOKEN_SALT = 0xC2B2AE3D27D4EB4FL;
+    private static final int BLOOM_HASHES = 7;
+    private static final int MIN_CAPACITY = 1024;
+
+    private volatile Table table;
+
+    public RevocationList(int expectedEntries) {
+        this.table = new Table(capacityFor(expectedEntries));
+    }
+
+    public boolean isRevoked(Long userId, String tokenId) {
+        Table current = table;
+        return (userId != null && current.contains(userKey(userId)))
+                || (tokenId != null && current.contains(tokenKey(tokenId)));
+    }
+
+    public void revokeUser(long userId) {
+        add(userKey(userId));
+    }
+
+    public void revokeToken(String tokenId) {
+        add(tokenKey(tokenId));
+    }
+
+    public int size() {
+        return table.count;
+    }
+
+    /**
+     * Bytes held by the table and the filter
+     */
+    public long memoryBytes() {
+        Table current = table;
+        return 8L * current.keys.length() + 8L * current.bloom.length();
+    }
+
+    private void add(long key) {
+        Table current = table;
+        if ((current.count + 1) * 4L > current.keys.length() * 3L) {
+            // grow before the load factor passes 3/4; readers keep the old table until the swap
+            Table grown = new Table(current.keys.length() * 2);
+            for (int i = 0; i < current.keys.length(); i++) {
+                long existing = current.keys.get(i);
+                if (existing != 0) {
+                    grown.put(existing);
+                }
+            }
+            table = grown;
+            current = grown;
+        }
+        current.put(key);
+    }
+
+    private static int capacityFor(int expectedEntries) {
+        long needed = Math.max(MIN_CAPACITY, (long) expectedEntries * 4 / 3 + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    static long userKey(long userId) {
+        return nonZero(mix(userId ^ USER_SALT));
+    }
+
+    static long tokenKey(String tokenId) {
+        // FNV-1a over the id, then a finalizer so every bit depends on every input bit
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : tokenId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return nonZero(mix(hash ^ TOKEN_SALT));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long nonZero(long key) {
+        // zero marks an empty slot
+        return key == 0 ? 1 : key;
+    }
+
+    private static final class Table {
+        private final AtomicLongArray keys;
+        private final AtomicLongArray bloom;
+        private final int keyMask;
+        private final int bitMask;
+        private volatile int count;
+
+        private Table(int capacity) {
+            this.keys = new AtomicLongArray(capacity);
+            this.keyMask = capacity - 1;
+            // one filter bit per table byte: capacity / 8 words
+            this.bloom = new AtomicLongArray(Math.max(1, capacity / 8));
+            this.bitMask = bloom.length() * 64 - 1;
+        }
+
+        boolean contains(long key) {
+            int h1 = (int) key;
+            int h2 = (int) (key >>> 32) | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (h1 + i * h2) & bitMask;
+                if ((bloom.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            for (int slot = slotOf(key); ; slot = (slot + 1) & keyMask) {
+                long existing = keys.get(slot);
+                if (existing == key) {
+                    return true;
+                }
+                if (existing == 0) {
+                    return false;
+                }
+            }
+        }
+
+        private int slotOf(long key) {
+            // the high bits; the filter uses the low ones
+            return (int) (key >>> 34) & keyMask;
+        }
+
+        void put(long key) {
+            int slot = slotOf(key);
+            for (long existing; (existing = keys.get(slot)) != 0; slot = (slot + 1) & keyMask) {
+                if (existing == key) {
+                    return;
+                }
+            }
+            // the key is visible in the table before the filter lets readers look for it
+            keys.set(slot, key);
+            int h1 = (int) key;
+            int h2 = (int) (key >>> 32) | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (h1 + i * h2) & bitMask;
+                long mask = 1L << bit;
+                bloom.getAndUpdate(bit >>> 6, word -> word | mask);
+            }
+            count++;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.bank.user_management_service.services;
+
+import com.bank.user_management_service.clients.BankingServiceClient;
+import com.bank.user_management_service.dto.ClientOverview;
+import com.bank.user_management_service.dto.OverviewSection;
+import com.bank.user_management_service.model.Role;
+import com.bank.user_management_service.model.Status;
+import com.bank.user_management_service.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import feign.FeignException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds a client overview from the profile and the banking-service lookups, all started at
+ * once on virtual threads, so the banker waits for the slowest lookup instead of their sum.
+ * <p>
+ * Each lookup has its own timeout, counted from the start of the request. The banking lookups
+ * are only returned once the profile shows an active client; otherwise they are cancelled. A
+ * banking lookup that fails or runs out of time is cancelled and reported in its section; the
+ * other sections are still returned.
+ */
+@Service
+public class ClientOverviewService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientOverviewService.class);
+
+    private final UserService userService;
+    private final BankingServiceClient bankingServiceClient;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration profileTimeout;
+    private final Duration accountsTimeout;
+    private final Duration cardsTimeout;
+    private final Duration transactionsTimeout;
+    private final int transactions;
+
+    public ClientOverviewService(UserService userService, BankingServiceClient bankingServiceClient,
+                                 @Value("${users.overview.profile-timeout:PT0.5S}") Duration profileTimeout,
+                                 @Value("${users.overview.accounts-timeout:PT1S}") Duration accountsTimeout,
+                                 @Value("${users.overview.cards-timeout:PT1S}") Duration cardsTimeout,
+                                 @Value("${users.overview.transactions-timeout:PT2S}") Duration transactionsTimeout,
+                                 @Value("${users.overview.transactions:20}") int transactions) {
+        this.userService = userService;
+        this.bankingServiceClient = bankingServiceClient;
+        this.profileTimeout = profileTimeout;
+        this.accountsTimeout = accountsTimeout;
+        this.cardsTimeout = cardsTimeout;
+        this.transactionsTimeout = transactionsTimeout;
+        this.transactions = transactions;
+    }
+
+    /**
+     * The profile, accounts, cards and latest transactions of a client; empty if the id is not
+     * an active client's
+     */
+    public Optional<ClientOverview> getOverview(Long userId, String authorization) {
+        long start = System.nanoTime();
+        Future<Optional<User>> profile = executor.submit(() -> userService.findUserById(userId));
+        Future<JsonNode> accounts = executor.submit(() -> bankingServiceClient.getAccounts(authorization, userId));
+        Future<JsonNode> cards = executor.submit(() -> bankingServiceClient.getCards(authorization, userId));
+        Future<JsonNode> latest = executor.submit(() -> bankingServiceClient.getTransactions(authorization, userId, transactions));
+        List<Future<JsonNode>> lookups = List.of(accounts, cards, latest);
+
+        Optional<User> client;
+        try {
+            client = profile.get(Math.max(0, start + profileTimeout.toNanos() - System.nanoTime()), TimeUnit.NANOSECONDS)
+                    .filter(user -> user.getRole() == Role.CLIENT && user.getStatus() == Status.ACTIVE);
+        } catch (TimeoutException e) {
+            cancel(profile, lookups);
+            throw new RuntimeException("Client profile lookup timed out.");
+        } catch (ExecutionException e) {
+            cancel(profile, lookups);
+            throw new RuntimeException("Client profile lookup failed.", e.getCause());
+        } catch (InterruptedException e) {
+            cancel(profile, lookups);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted.");
+        }
+        if (client.isEmpty()) {
+            cancel(profile, lookups);
+            return Optional.empty();
+        }
+
+        return Optional.of(new ClientOverview(
+                OverviewSection.ok(client.get()),
+                await("accounts", userId, accounts, start + accountsTimeout.toNanos()),
+                await("cards", userId, cards, start + cardsTimeout.toNanos()),
+                await("transactions", userId, latest, start + transactionsTimeout.toNanos())));
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.close();
+    }
+
+    private static void cancel(Future<?> profile, List<? extends Future<?>> lookups) {
+        profile.cancel(true);
+        lookups.forEach(lookup -> lookup.cancel(true));
+    }
+
+    private <T> OverviewSection<T> await(String section, Long userId, Future<T> lookup, long deadline) {
+        try {
+            return OverviewSection.ok(lookup.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            lookup.cancel(true);
+            log.warn("Overview of user {}: {} timed out", userId, section);
+            return OverviewSection.timedOut();
+        } catch (ExecutionException e) {
+            log.warn("Overview of user {}: {} failed: {}", userId, section, e.getCause().toString());
+            return OverviewSection.failed(describe(e.getCause()));
+        } catch (InterruptedException e) {
+            lookup.cancel(true);
+            Thread.currentThread().interrupt();
+            return OverviewSection.failed("Interrupted.");
+        }
+    }
+
+    private static String describe(Throwable error) {
+        if (error instanceof FeignException feignError) {
+            return feignError.status() > 0
+                    ? "Banking service answered " + feignError.status() + "."
+                    : "Banking service unavailable.";
+        }
+        return error.getMessage();
+    }
+}
@@ -0,0 +1,213 @@
+package com.bank.user_management_service.services;
+
+import com.bank.user_management_service.clients.AuthServiceClient;
+import com.bank.user_management_service.dto.AuthRegistrationResult;
+import com.bank.user_management_service.dto.AuthUserRequest;
+import com.bank.user_management_service.model.OutboxEvent;
+import com.bank.user_management_service.model.OutboxEventType;
+import com.bank.user_management_service.model.OutboxStatus;
+import com.bank.user_management_service.repositories.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Delivers outbox events to the auth-service in the background.
+ * <p>
+ * Each round takes the due events that head their user's queue, so events of one user
+ * are delivered in the order they were written. Registrations go out together through
+ * the batch endpoint, deletions one call each. An unreachable or failing auth-service
+ * makes an event retry with exponential backoff; a registration the auth-service rejects
+ * is parked as failed. Delivery is at least once: an event whose response was lost is
+ * sent again, which the auth-service treats as already done.
+ * <p>
+ * Several instances may dispatch at once: events are claimed for a lease before they are
+ * sent and only the claim holder completes or reschedules them. A call is only started in
+ * the first half of the lease, so it has finished before another instance can take over.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final AuthServiceClient authServiceClient;
+    private final TransactionTemplate transactionTemplate;
+    private final String owner = UUID.randomUUID().toString();
+    private final int batchSize;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter failed;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository, AuthServiceClient authServiceClient,
+                            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                            @Value("${users.outbox.batch-size:200}") int batchSize,
+                            @Value("${users.outbox.initial-backoff:PT1S}") Duration initialBackoff,
+                            @Value("${users.outbox.max-backoff:PT5M}") Duration maxBackoff,
+                            @Value("${users.outbox.lease:PT2M}") Duration lease) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.authServiceClient = authServiceClient;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.delivered = Counter.builder("users.outbox.delivered").register(meterRegistry);
+        this.retried = Counter.builder("users.outbox.retried").register(meterRegistry);
+        this.failed = Counter.builder("users.outbox.failed").register(meterRegistry);
+        Gauge.builder("users.outbox.pending", outboxEventRepository, repository -> repository.countByStatus(OutboxStatus.PENDING))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deliver due events until none are left or a round makes no progress
+     */
+    @Scheduled(fixedDelayString = "${users.outbox.poll-interval:PT1S}")
+    public void dispatch() {
+        List<OutboxEvent> candidates;
+        int deliveredInRound;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            candidates = outboxEventRepository.findDeliverable(OutboxStatus.PENDING, now, Limit.of(batchSize));
+            List<OutboxEvent> registrations = new ArrayList<>();
+            List<OutboxEvent> deletions = new ArrayList<>();
+            claim(candidates, now)
+                    .forEach(event -> (event.getType() == OutboxEventType.REGISTER_USER ? registrations : deletions).add(event));
+
+            LocalDateTime sendBy = now.plus(lease.dividedBy(2));
+            deliveredInRound = deliverRegistrations(registrations) + deliverDeletions(deletions, sendBy);
+        } while (candidates.size() == batchSize && deliveredInRound > 0);
+    }
+
+    /**
+     * Claim the candidates for this dispatcher; returns the ones no other instance holds
+     */
+    private List<OutboxEvent> claim(List<OutboxEvent> candidates, LocalDateTime now) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        List<Long> ids = candidates.stream().map(OutboxEvent::getId).toList();
+        return transactionTemplate.execute(status -> {
+            outboxEventRepository.claim(ids, OutboxStatus.PENDING, owner, now, now.plus(lease));
+            return outboxEventRepository.findByClaimedByAndIdInOrderById(owner, ids);
+        });
+    }
+
+    private int deliverRegistrations(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<AuthUserRequest> requests = events.stream()
+                .map(event -> new AuthUserRequest(event.getUserId(), event.getUsername(), event.getPasswordHash(), event.getRole()))
+                .toList();
+
+        List<AuthRegistrationResult> results;
+        try {
+            results = authServiceClient.registerUsers(requests);
+        } catch (RuntimeException e) {
+            events.forEach(event -> retryLater(event, e.getMessage()));
+            return 0;
+        }
+
+        List<OutboxEvent> done = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            AuthRegistrationResult result = i < results.size() ? results.get(i) : null;
+            if (result == null) {
+                retryLater(event, "Missing from the auth-service response");
+            } else if (result.isSuccess()) {
+                done.add(event);
+            } else {
+                park(event, result.getError());
+            }
+        }
+        return completed(done);
+    }
+
+    private int deliverDeletions(List<OutboxEvent> events, LocalDateTime sendBy) {
+        List<OutboxEvent> done = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            if (LocalDateTime.now().isAfter(sendBy)) {
+                release(events.subList(i, events.size()));
+                break;
+            }
+            try {
+                authServiceClient.deleteUser(event.getUserId());
+                done.add(event);
+            } catch (RuntimeException e) {
+                retryLater(event, e.getMessage());
+            }
+        }
+        return completed(done);
+    }
+
+    private int completed(List<OutboxEvent> events) {
+        if (!events.isEmpty()) {
+            List<Long> ids = events.stream().map(OutboxEvent::getId).toList();
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteClaimed(ids, owner));
+            delivered.increment(events.size());
+            log.info("Delivered {} outbox events to auth-service", events.size());
+        }
+        return events.size();
+    }
+
+    private void release(List<OutboxEvent> events) {
+        List<Long> ids = events.stream().map(OutboxEvent::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.release(ids, owner));
+    }
+
+    private void retryLater(OutboxEvent event, String error) {
+        event.setAttempts(event.getAttempts() + 1);
+        event.setNextAttemptAt(LocalDateTime.now().plus(backoff(event.getAttempts())));
+        event.setLastError(truncate(error));
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.retryLater(
+                event.getId(), owner, event.getAttempts(), event.getNextAttemptAt(), event.getLastError()));
+        retried.increment();
+        log.warn("Outbox event {} ({} of user {}) failed attempt {}, retrying at {}: {}",
+                event.getId(), event.getType(), event.getUserId(), event.getAttempts(), event.getNextAttemptAt(), error);
+    }
+
+    private void park(OutboxEvent event, String error) {
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(truncate(error));
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.park(
+                event.getId(), owner, OutboxStatus.FAILED, event.getAttempts(), event.getLastError()));
+        failed.increment();
+        log.error("Outbox event {} ({} of user {}) was rejected by auth-service: {}",
+                event.getId(), event.getType(), event.getUserId(), error);
+    }
+
+    /**
+     * Initial backoff doubled per failed attempt, capped at the maximum
+     */
+    Duration backoff(int attempts) {
+        long factor = 1L << Math.min(attempts - 1, 20);
+        Duration delay = initialBackoff.multipliedBy(factor);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,112 @@
+package com.bank.user_management_service.services;
+
+import com.bank.user_management_service.model.User;
+import com.bank.user_management_service.model.UserChange;
+import com.bank.user_management_service.repositories.UserChangeRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Local read-through cache of user profiles, so {@code GET /users/me} does not hit the database.
+ * <p>
+ * Entries are detached copies of the user row, bounded in number and dropped after the TTL.
+ * A change made through this instance drops its entry as soon as the transaction commits.
+ * The change is also written to {@code user_changes} in that transaction, and every instance
+ * polls that table, so a change made on another instance is dropped here within the poll
+ * interval. Each poll re-reads a short overlap, which covers transactions that committed
+ * late and clocks that differ between instances; dropping an entry twice costs one reload.
+ */
+@Component
+public class UserProfileCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileCache.class);
+
+    private final UserChangeRepository userChangeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration pollOverlap;
+    private final Duration retention;
+    private final Cache<Long, User> profiles;
+
+    private LocalDateTime polledAt = LocalDateTime.now();
+
+    public UserProfileCache(UserChangeRepository userChangeRepository, TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${users.profile-cache.max-size:100000}") long maxSize,
+                            @Value("${users.profile-cache.ttl:PT10M}") Duration ttl,
+                            @Value("${users.profile-cache.poll-overlap:PT5S}") Duration pollOverlap,
+                            @Value("${users.profile-cache.retention:PT1H}") Duration retention) {
+        this.userChangeRepository = userChangeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.pollOverlap = pollOverlap;
+        this.retention = retention;
+        this.profiles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, "users.profiles");
+    }
+
+    /**
+     * The cached profile, loaded on a miss; null if the loader finds none. Callers must not modify it
+     */
+    public User get(Long id, Function<Long, User> loader) {
+        return profiles.get(id, key -> copy(loader.apply(key)));
+    }
+
+    /**
+     * Record a new or changed user in the caller's transaction and drop the local entry once
+     * that transaction commits
+     */
+    public void changed(Long userId) {
+        userChangeRepository.save(new UserChange(userId));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                profiles.invalidate(userId);
+            }
+        });
+    }
+
+    /**
+     * Drop the entries of users changed on any instance since the last poll
+     */
+    @Scheduled(fixedDelayString = "${users.profile-cache.poll-interval:PT1S}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            List<Long> changed = userChangeRepository.findUserIdsChangedSince(polledAt.minus(pollOverlap));
+            profiles.invalidateAll(changed);
+            // a failed poll leaves polledAt behind, so the next one covers the gap
+            polledAt = now;
+        } catch (RuntimeException e) {
+            log.warn("Polling user changes failed, retrying on the next poll: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${users.profile-cache.purge-interval:PT10M}")
+    public void purge() {
+        Integer purged = transactionTemplate.execute(status ->
+                userChangeRepository.deleteChangedBefore(LocalDateTime.now().minus(retention)));
+        log.info("Purged {} user changes", purged);
+    }
+
+    private static User copy(User user) {
+        return user == null ? null : new User(user.getId(), user.getUsername(), user.getEmail(), user.getRole(), user.getStatus());
+    }
+}
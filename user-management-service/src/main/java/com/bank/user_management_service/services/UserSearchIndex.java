@@ -0,0 +1,252 @@
+package com.bank.user_management_service.services;
+
+import com.bank.user_management_service.dto.UserSummary;
+import com.bank.user_management_service.model.Role;
+import com.bank.user_management_service.model.Status;
+import com.bank.user_management_service.model.User;
+import com.bank.user_management_service.repositories.UserChangeRepository;
+import com.bank.user_management_service.repositories.UserRepository;
+import com.bank.user_management_service.utils.PrefixIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Prefix search over the usernames and emails of active clients, for {@code GET /banker/clients/search}.
+ * <p>
+ * Most entries live in an immutable {@link PrefixIndex} snapshot, rebuilt at startup and then
+ * periodically by streaming the clients from the database. Clients created or changed since
+ * the last rebuild sit in a small sorted map beside it: changes made through this instance
+ * are added as soon as they commit, changes made elsewhere when the {@code user_changes} poll
+ * sees them. A changed client's snapshot entries are skipped until the next rebuild, so renamed
+ * and deactivated clients drop out of the results at once. The index keeps only lower-cased terms,
+ * so the matches are read back from the database with one query by id; {@code users.search}
+ * times the whole lookup.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+    private static final int MAX_RESULTS = 100;
+    private static final char SEPARATOR = '\u0000';
+    private static final Comparator<PrefixIndex.Match> ORDER =
+            Comparator.comparing(PrefixIndex.Match::term).thenComparingLong(PrefixIndex.Match::id);
+
+    private final UserRepository userRepository;
+    private final UserChangeRepository userChangeRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Duration pollOverlap;
+    private final Timer searchTimer;
+    /** term, separator and id of the clients changed since the last rebuild */
+    private final ConcurrentSkipListSet<String> recent = new ConcurrentSkipListSet<>();
+    /** clients changed since the last rebuild; their snapshot entries are out of date */
+    private final ConcurrentHashMap<Long, Change> changes = new ConcurrentHashMap<>();
+
+    private volatile PrefixIndex snapshot = PrefixIndex.EMPTY;
+    private LocalDateTime polledAt = LocalDateTime.now();
+
+    public UserSearchIndex(UserRepository userRepository, UserChangeRepository userChangeRepository,
+                           TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                           @Value("${users.search.poll-overlap:PT5S}") Duration pollOverlap) {
+        this.userRepository = userRepository;
+        this.userChangeRepository = userChangeRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.pollOverlap = pollOverlap;
+        this.searchTimer = Timer.builder("users.search").register(meterRegistry);
+        Gauge.builder("users.search.entries", this, index -> index.snapshot.size() + index.recent.size()).register(meterRegistry);
+    }
+
+    /**
+     * Active clients whose username or email starts with the query, ordered by the matching term
+     */
+    public List<UserSummary> search(String query, int size) {
+        return searchTimer.record(() -> find(query, size));
+    }
+
+    /**
+     * Make a client searchable right away; other users are ignored
+     */
+    public void add(User user) {
+        if (user.getRole() == Role.CLIENT && user.getStatus() == Status.ACTIVE) {
+            add(user.getId(), user.getUsername(), user.getEmail());
+        }
+    }
+
+    public void remove(User user) {
+        change(user.getId(), List.of());
+    }
+
+    /**
+     * Replace the snapshot with one read from the database; runs at startup too
+     */
+    @Scheduled(fixedDelayString = "${users.search.rebuild-interval:PT1H}")
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        PrefixIndex.Builder builder = new PrefixIndex.Builder();
+        try {
+            readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                try (Stream<UserSummary> clients = userRepository.streamSummaries(Role.CLIENT, Status.ACTIVE)) {
+                    clients.forEach(client -> builder.add(client.username(), client.id()).add(client.email(), client.id()));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Rebuilding the client search index failed, keeping the current one: {}", e.getMessage());
+            return;
+        }
+        snapshot = builder.build();
+        // changes older than the rebuild had committed before it read, so the snapshot has them
+        for (Long id : changes.keySet()) {
+            changes.computeIfPresent(id, (key, change) -> {
+                if (change.at() - startedAt >= 0) {
+                    return change;
+                }
+                change.keys().forEach(recent::remove);
+                return null;
+            });
+        }
+        log.info("Client search index rebuilt with {} terms in {} ms", snapshot.size(),
+                Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+    }
+
+    /**
+     * Apply the clients created or changed on any instance since the last poll
+     */
+    @Scheduled(fixedDelayString = "${users.search.poll-interval:PT1S}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            List<Long> changed = userChangeRepository.findUserIdsChangedSince(polledAt.minus(pollOverlap));
+            if (!changed.isEmpty()) {
+                Set<Long> removed = new HashSet<>(changed);
+                userRepository.findSummaries(changed, Role.CLIENT, Status.ACTIVE).forEach(client -> {
+                    add(client.id(), client.username(), client.email());
+                    removed.remove(client.id());
+                });
+                // deactivated, or no longer a client
+                removed.forEach(id -> change(id, List.of()));
+            }
+            // a failed poll leaves polledAt behind, so the next one covers the gap
+            polledAt = now;
+        } catch (RuntimeException e) {
+            log.warn("Polling user changes for the search index failed, retrying on the next poll: {}", e.getMessage());
+        }
+    }
+
+    private List<UserSummary> find(String query, int size) {
+        String prefix = query == null ? "" : PrefixIndex.normalizeTerm(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        int limit = Math.max(1, Math.min(size, MAX_RESULTS));
+        // a client can match twice, by username and email
+        int wanted = limit * 2;
+        Map<Long, UserSummary> current = new HashMap<>();
+        Set<Long> checked = new HashSet<>();
+        while (true) {
+            List<PrefixIndex.Match> fromSnapshot = snapshot.search(prefix, wanted);
+            List<PrefixIndex.Match> fromRecent = recent.subSet(prefix, prefix + Character.MAX_VALUE).stream()
+                    .limit(wanted)
+                    .map(UserSearchIndex::match)
+                    .toList();
+            List<PrefixIndex.Match> candidates = new ArrayList<>(fromRecent);
+            fromSnapshot.stream().filter(match -> !changes.containsKey(match.id())).forEach(candidates::add);
+            candidates.sort(ORDER);
+            // past the last entry read from a source that has more, the other one is ahead of it
+            boolean exhausted = true;
+            for (List<PrefixIndex.Match> source : List.of(fromSnapshot, fromRecent)) {
+                if (source.size() == wanted) {
+                    candidates.removeIf(match -> ORDER.compare(match, source.getLast()) > 0);
+                    exhausted = false;
+                }
+            }
+
+            Set<Long> ids = candidates.stream().map(PrefixIndex.Match::id).collect(Collectors.toCollection(LinkedHashSet::new));
+            List<Long> unchecked = ids.stream().filter(checked::add).toList();
+            if (!unchecked.isEmpty()) {
+                userRepository.findSummaries(unchecked, Role.CLIENT, Status.ACTIVE)
+                        .forEach(user -> current.put(user.id(), user));
+            }
+            // a change made on another instance is not applied before the next poll
+            List<UserSummary> found = ids.stream()
+                    .map(current::get)
+                    .filter(Objects::nonNull)
+                    .filter(user -> startsWith(user.username(), prefix) || startsWith(user.email(), prefix))
+                    .limit(limit)
+                    .toList();
+            if (found.size() == limit || exhausted) {
+                return found;
+            }
+            wanted *= 2;
+        }
+    }
+
+    private void add(Long id, String username, String email) {
+        List<String> keys = new ArrayList<>(2);
+        for (String term : new String[]{username, email}) {
+            if (term != null && !term.isBlank()) {
+                keys.add(key(term, id));
+            }
+        }
+        change(id, keys);
+    }
+
+    /**
+     * Replace the entries of one client with the given keys, none when it is no longer searchable
+     */
+    private void change(Long id, List<String> keys) {
+        long now = System.nanoTime();
+        changes.compute(id, (key, previous) -> {
+            if (previous != null) {
+                previous.keys().forEach(recent::remove);
+            }
+            recent.addAll(keys);
+            return new Change(now, keys);
+        });
+    }
+
+    /**
+     * The id is zero-padded so that keys sort like matches, by term and then id
+     */
+    private static String key(String term, Long id) {
+        return PrefixIndex.normalizeTerm(term) + SEPARATOR + String.format("%019d", id);
+    }
+
+    private static PrefixIndex.Match match(String key) {
+        int separator = key.lastIndexOf(SEPARATOR);
+        return new PrefixIndex.Match(key.substring(0, separator), Long.parseLong(key.substring(separator + 1)));
+    }
+
+    /**
+     * @param at   System.nanoTime() of the change
+     * @param keys the client's entries in {@code recent}
+     */
+    private record Change(long at, List<String> keys) {
+    }
+
+    private static boolean startsWith(String term, String prefix) {
+        return term != null && PrefixIndex.normalizeTerm(term).startsWith(prefix);
+    }
+}
@@ -1,16 +1,40 @@
 package com.bank.user_management_service.services;
 
 import com.bank.user_management_service.clients.AuthServiceClient;
+import com.bank.user_management_service.dto.AuthRegistrationResult;
 import com.bank.user_management_service.dto.AuthUserRequest;
+import com.bank.user_management_service.dto.BulkClientResult;
+import com.bank.user_management_service.dto.UserPage;
 import com.bank.user_management_service.dto.UserRequestDTO;
+import com.bank.user_management_service.dto.UserSummary;
+import com.bank.user_management_service.model.OutboxEvent;
 import com.bank.user_management_service.model.Role;
 import com.bank.user_management_service.model.Status;
 import com.bank.user_management_service.model.User;
+import com.bank.user_management_service.repositories.OutboxEventRepository;
 import com.bank.user_management_service.repositories.UserRepository;
+import feign.FeignException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 
 
@@ -18,101 +42,370 @@ import java.util.List;
 public class UserService {
 
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
+    private static final int MAX_PAGE_SIZE = 500;
     private final UserRepository userRepository;
     private final AuthServiceClient authServiceClient;
+    private final OutboxEventRepository outboxEventRepository;
+    private final UserProfileCache userProfileCache;
+    private final UserSearchIndex userSearchIndex;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final int bulkChunkSize;
+    private final int hashingParallelism;
+    private final Duration outboxLease;
+    /** holder of the claims on the registrations of a bulk chunk while its batch call runs */
+    private final String owner = UUID.randomUUID().toString();
 
-    public UserService(UserRepository userRepository, AuthServiceClient authServiceClient) {
+    public UserService(UserRepository userRepository, AuthServiceClient authServiceClient,
+                       OutboxEventRepository outboxEventRepository, UserProfileCache userProfileCache,
+                       UserSearchIndex userSearchIndex, PasswordEncoder passwordEncoder, TransactionTemplate transactionTemplate,
+                       @Value("${users.bulk.chunk-size:500}") int bulkChunkSize,
+                       @Value("${users.bulk.hashing-parallelism:0}") int hashingParallelism,
+                       @Value("${users.outbox.lease:PT2M}") Duration outboxLease) {
         this.userRepository = userRepository;
         this.authServiceClient = authServiceClient;
+        this.outboxEventRepository = outboxEventRepository;
+        this.userProfileCache = userProfileCache;
+        this.userSearchIndex = userSearchIndex;
+        this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = transactionTemplate;
+        this.bulkChunkSize = bulkChunkSize;
+        this.hashingParallelism = hashingParallelism > 0 ? hashingParallelism : Runtime.getRuntime().availableProcessors();
+        this.outboxLease = outboxLease;
     }
 
     /**
-     * Creates a new user and registers it in the auth-service.
+     * Creates a new user; its credentials reach the auth-service through the outbox, with the password hashed.
      */
     public User createUser(UserRequestDTO userRequest) {
         log.info("Creating new user: {}", userRequest.getUsername());
+        if (userRequest.getPassword() == null || userRequest.getPassword().isEmpty()) {
+            throw new RuntimeException("Password is required.");
+        }
+        String passwordHash = passwordEncoder.encode(userRequest.getPassword());
 
         User user = new User();
         user.setUsername(userRequest.getUsername());
         user.setEmail(userRequest.getEmail());
         user.setRole(Role.valueOf(userRequest.getRole()));
 
-        User savedUser = userRepository.save(user);
-        log.info("User {} saved successfully with ID: {}", savedUser.getUsername(), savedUser.getId());
-
-        // Send credentials to `auth-service`
-        AuthUserRequest authUserRequest = new AuthUserRequest(
-                savedUser.getId(),
-                userRequest.getUsername(),
-                userRequest.getPassword(),
-                userRequest.getRole()
-        );
-        log.info("Sending user credentials to auth-service for registration");
-        authServiceClient.registerUser(authUserRequest);
+        // the user and its registration commit together; OutboxDispatcher sends the credentials
+        User savedUser = transactionTemplate.execute(status -> {
+            User saved = userRepository.save(user);
+            outboxEventRepository.save(OutboxEvent.registerUser(saved.getId(), userRequest.getUsername(),
+                    passwordHash, userRequest.getRole()));
+            userProfileCache.changed(saved.getId());
+            return saved;
+        });
+        userSearchIndex.add(savedUser);
+        log.info("User {} saved successfully with ID: {}; registration queued for auth-service", savedUser.getUsername(), savedUser.getId());
 
         return savedUser;
     }
 
     /**
-     * Updates an existing user.
+     * Creates many users and registers them in the auth-service.
+     * <p>
+     * Users are handled in chunks: each chunk checks usernames and emails with one query
+     * each, hashes the passwords concurrently (at most {@code hashing-parallelism} at a time),
+     * inserts the users together with their outbox registrations in one transaction and then
+     * tries to register their credentials with one auth-service call. The registrations are
+     * claimed by this call for an outbox lease, so the dispatcher leaves them alone meanwhile.
+     * Delivered registrations are deleted; a user the auth-service rejects is deleted together
+     * with its registration, so no user is left without credentials, and without affecting the
+     * others. When the call fails without an answer for a user (unreachable, timed out, server
+     * error), its registration is released to the dispatcher, like a single user's. Should this
+     * instance stop midway, the claims lapse and the dispatcher delivers the registrations.
+     */
+    public List<BulkClientResult> createUsers(List<UserRequestDTO> userRequests) {
+        log.info("Creating {} users in bulk", userRequests.size());
+
+        BulkClientResult[] results = new BulkClientResult[userRequests.size()];
+        for (int from = 0; from < userRequests.size(); from += bulkChunkSize) {
+            int to = Math.min(from + bulkChunkSize, userRequests.size());
+            createChunk(userRequests.subList(from, to), from, results);
+        }
+
+        long succeeded = Arrays.stream(results).filter(BulkClientResult::isSuccess).count();
+        log.info("Bulk creation finished: {} of {} users created", succeeded, userRequests.size());
+        return Arrays.asList(results);
+    }
+
+    private void createChunk(List<UserRequestDTO> chunk, int from, BulkClientResult[] results) {
+        Set<String> takenUsernames = new HashSet<>(userRepository.findExistingUsernames(chunk.stream()
+                .filter(Objects::nonNull).map(UserRequestDTO::getUsername).filter(Objects::nonNull).collect(Collectors.toSet())));
+        Set<String> takenEmails = new HashSet<>(userRepository.findExistingEmails(chunk.stream()
+                .filter(Objects::nonNull).map(UserRequestDTO::getEmail).filter(Objects::nonNull).collect(Collectors.toSet())));
+
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            UserRequestDTO request = chunk.get(i);
+            String error = validate(request);
+            if (error == null && takenUsernames.contains(request.getUsername())) {
+                error = "Username already exists.";
+            } else if (error == null && takenEmails.contains(request.getEmail())) {
+                error = "Email already exists.";
+            }
+            if (error != null) {
+                results[from + i] = BulkClientResult.failed(request, error);
+                continue;
+            }
+            // later duplicates within the same request are rejected as well
+            takenUsernames.add(request.getUsername());
+            takenEmails.add(request.getEmail());
+            accepted.add(i);
+        }
+
+        String[] hashes = hashPasswords(chunk, accepted, from, results);
+        accepted.removeIf(i -> hashes[i] == null);
+        if (accepted.isEmpty()) {
+            return;
+        }
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i : accepted) {
+            UserRequestDTO request = chunk.get(i);
+            User user = new User();
+            user.setUsername(request.getUsername());
+            user.setEmail(request.getEmail());
+            user.setRole(Role.valueOf(request.getRole()));
+            users.add(user);
+        }
+
+        // the users and their registrations commit together; the claim keeps the dispatcher off them during the call
+        LocalDateTime claimedUntil = LocalDateTime.now().plus(outboxLease);
+        List<User> saved;
+        List<OutboxEvent> events = new ArrayList<>(users.size());
+        try {
+            saved = transactionTemplate.execute(status -> {
+                List<User> inserted = userRepository.saveAll(users);
+                for (int k = 0; k < inserted.size(); k++) {
+                    int i = accepted.get(k);
+                    OutboxEvent event = OutboxEvent.registerUser(inserted.get(k).getId(), chunk.get(i).getUsername(),
+                            hashes[i], chunk.get(i).getRole());
+                    event.setClaimedBy(owner);
+                    event.setClaimedUntil(claimedUntil);
+                    events.add(event);
+                    userProfileCache.changed(inserted.get(k).getId());
+                }
+                outboxEventRepository.saveAll(events);
+                return inserted;
+            });
+        } catch (RuntimeException e) {
+            log.error("Bulk insert of {} users failed: {}", users.size(), e.getMessage());
+            accepted.forEach(i -> results[from + i] = BulkClientResult.failed(chunk.get(i), "User could not be saved: " + e.getMessage()));
+            return;
+        }
+
+        List<AuthUserRequest> credentials = events.stream()
+                .map(event -> new AuthUserRequest(event.getUserId(), event.getUsername(), event.getPasswordHash(), event.getRole()))
+                .toList();
+
+        List<AuthRegistrationResult> registered;
+        String registrationError = null;
+        try {
+            log.info("Sending {} user credentials to auth-service for registration", credentials.size());
+            registered = authServiceClient.registerUsers(credentials);
+        } catch (RuntimeException e) {
+            registered = List.of();
+            if (isRejection(e)) {
+                log.error("Batch registration was rejected by auth-service: {}", e.getMessage());
+                registrationError = "Registration in auth-service failed: " + e.getMessage();
+            } else {
+                log.warn("Batch registration in auth-service did not complete, leaving it to the outbox: {}", e.getMessage());
+            }
+        }
+
+        List<User> created = new ArrayList<>();
+        List<Long> deliveredEvents = new ArrayList<>();
+        List<Long> unknownEvents = new ArrayList<>();
+        List<Long> rejectedEvents = new ArrayList<>();
+        List<Long> rejectedUsers = new ArrayList<>();
+        for (int k = 0; k < saved.size(); k++) {
+            int i = accepted.get(k);
+            AuthRegistrationResult registration = k < registered.size() ? registered.get(k) : null;
+            if (registration != null && registration.isSuccess()) {
+                results[from + i] = BulkClientResult.succeeded(chunk.get(i), saved.get(k));
+                created.add(saved.get(k));
+                deliveredEvents.add(events.get(k).getId());
+            } else if (registration != null || registrationError != null) {
+                results[from + i] = BulkClientResult.failed(chunk.get(i), registration != null ? registration.getError() : registrationError);
+                rejectedEvents.add(events.get(k).getId());
+                rejectedUsers.add(saved.get(k).getId());
+            } else {
+                // the auth-service may or may not have registered it; the outbox resends, which it treats as done
+                results[from + i] = BulkClientResult.succeeded(chunk.get(i), saved.get(k));
+                created.add(saved.get(k));
+                unknownEvents.add(events.get(k).getId());
+            }
+        }
+        // a step that fails leaves its claims to lapse, after which the dispatcher delivers the registrations
+        settle("Clearing delivered registrations", () -> outboxEventRepository.deleteClaimed(deliveredEvents, owner), deliveredEvents);
+        settle("Removing users the auth-service did not register", () -> {
+            outboxEventRepository.deleteClaimed(rejectedEvents, owner);
+            userRepository.deleteAllByIdInBatch(rejectedUsers);
+            rejectedUsers.forEach(userProfileCache::changed);
+        }, rejectedUsers);
+        settle("Handing registrations with an unknown outcome to the outbox", () -> outboxEventRepository.release(unknownEvents, owner), unknownEvents);
+        created.forEach(userSearchIndex::add);
+    }
+
+    /**
+     * Run one outcome of a bulk chunk in its own transaction, if it has any users
+     */
+    private void settle(String step, Runnable action, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> action.run());
+            log.info("{}: {}", step, ids.size());
+        } catch (RuntimeException e) {
+            log.error("{} failed for {} users, the outbox takes over once the claims lapse: {}", step, ids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the auth-service answered the batch call with a client error, so none of its users was registered
+     */
+    private static boolean isRejection(RuntimeException e) {
+        return e instanceof FeignException feignError && feignError.status() >= 400 && feignError.status() < 500
+                && feignError.status() != 429;
+    }
+
+    /**
+     * Hash the accepted users' passwords concurrently
+     *
+     * @return the hashes by index within the chunk; null where hashing failed, with the failure recorded
+     */
+    private String[] hashPasswords(List<UserRequestDTO> chunk, List<Integer> accepted, int from, BulkClientResult[] results) {
+        String[] hashes = new String[chunk.size()];
+        Semaphore permits = new Semaphore(hashingParallelism);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i : accepted) {
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        hashes[i] = passwordEncoder.encode(chunk.get(i).getPassword());
+                    } catch (RuntimeException e) {
+                        results[from + i] = BulkClientResult.failed(chunk.get(i), "Password hashing failed: " + e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        return hashes;
+    }
+
+    private static String validate(UserRequestDTO request) {
+        if (request == null || request.getUsername() == null || request.getUsername().isBlank()) {
+            return "Username is required.";
+        }
+        if (request.getEmail() == null || request.getEmail().isBlank()) {
+            return "Email is required.";
+        }
+        if (request.getPassword() == null || request.getPassword().isEmpty()) {
+            return "Password is required.";
+        }
+        return null;
+    }
+
+    /**
+     * Updates an existing user; cached copies are dropped once the update commits.
      */
     public User updateUser(Long id, User updatedUser) {
         log.info("Updating user with ID: {}", id);
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> {
-                    log.error("User with ID {} not found", id);
-                    return new RuntimeException("User not found");
-                });
+        User updated = transactionTemplate.execute(status -> {
+            User user = userRepository.findById(id)
+                    .orElseThrow(() -> {
+                        log.error("User with ID {} not found", id);
+                        return new RuntimeException("User not found");
+                    });
 
-        user.setEmail(updatedUser.getEmail());
-        user.setUsername(updatedUser.getUsername());
+            user.setEmail(updatedUser.getEmail());
+            user.setUsername(updatedUser.getUsername());
 
-        User updated = userRepository.save(user);
+            User saved = userRepository.save(user);
+            userProfileCache.changed(id);
+            return saved;
+        });
+        userSearchIndex.add(updated);
         log.info("User {} updated successfully", updated.getUsername());
 
         return updated;
     }
 
     /**
-     * Deactivates a user and deletes credentials from the auth-service.
+     * Deactivates a user; deleting its credentials from the auth-service goes through the outbox.
      */
     public void deactivateUser(Long id) {
         log.info("Deactivating user with ID: {}", id);
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> {
-                    log.error("User with ID {} not found", id);
-                    return new RuntimeException("User not found");
-                });
+        User user = transactionTemplate.execute(status -> {
+            User found = userRepository.findById(id)
+                    .orElseThrow(() -> {
+                        log.error("User with ID {} not found", id);
+                        return new RuntimeException("User not found");
+                    });
+            found.deactivate();
+            userRepository.save(found);
+            outboxEventRepository.save(OutboxEvent.deleteUser(id));
+            userProfileCache.changed(id);
+            return found;
+        });
+        userSearchIndex.remove(user);
+        log.info("User {} deactivated successfully; credential deletion queued for auth-service", user.getUsername());
+    }
 
-        user.deactivate();
-        userRepository.save(user);
-        log.info("User {} deactivated successfully", user.getUsername());
+    /**
+     * One page of the active users of a role, oldest first. Each page is a range scan of the
+     * (role, status, id) index after the cursor, so it costs the same on every page.
+     */
+    public UserPage getUsersByRole(Role role, String cursor, int size) {
+        log.info("Fetching users with role: {}", role);
+        Limit limit = Limit.of(Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        List<UserSummary> users = cursor == null
+                ? userRepository.findFirstPage(role, Status.ACTIVE, limit)
+                : userRepository.findPageAfter(role, Status.ACTIVE, decodeCursor(cursor), limit);
+        log.info("Found {} active users with role: {}", users.size(), role);
+        return UserPage.of(users, limit.max());
+    }
 
-        log.info("Deleting user credentials from auth-service");
-        authServiceClient.deleteUser(id);
+    private static Long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor.");
+        }
     }
 
     /**
-     * Retrieves all active users by role.
+     * Active clients whose username or email starts with the query, from the in-memory index.
      */
-    public List<User> getAllUsersByRole(Role role) {
-        log.info("Fetching all users with role: {}", role);
-        List<User> users = userRepository.findByRoleAndStatus(role, Status.ACTIVE);
-        log.info("Found {} active users with role: {}", users.size(), role);
-        return users;
+    public List<UserSummary> searchClients(String query, int size) {
+        log.info("Searching clients by prefix: {}", query);
+        return userSearchIndex.search(query, size);
     }
 
     /**
-     * Retrieves a user by ID.
+     * Retrieves a user by ID, from the profile cache when it was read before.
      */
     public User getUserById(Long id) {
-        log.info("Fetching user by ID: {}", id);
-        return userRepository.findById(id)
+        return findUserById(id)
                 .orElseThrow(() -> {
                     log.error("User with ID {} not found", id);
                     return new RuntimeException("User not found");
                 });
     }
+
+    /**
+     * The user from the profile cache, or empty if there is none with this id
+     */
+    public Optional<User> findUserById(Long id) {
+        return Optional.ofNullable(userProfileCache.get(id, key -> {
+            log.info("Fetching user by ID: {}", key);
+            return userRepository.findById(key).orElse(null);
+        }));
+    }
 }
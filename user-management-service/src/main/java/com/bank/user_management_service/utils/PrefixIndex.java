@@ -0,0 +1,123 @@
+package com.bank.user_management_service.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable sorted set of (term, id) pairs that answers prefix queries.
+ * <p>
+ * Terms are lower-cased and stored as UTF-8 back to back in one byte array, with an offset
+ * array and an id array beside it, sorted by term bytes and then id. A query binary-searches
+ * the first term not below the prefix and walks forward while terms still start with it, so
+ * it costs about 25 comparisons plus one step per result, whatever the size. Ten million
+ * terms of 15 bytes take around 270 MB, a fraction of what as many strings in a tree would.
+ */
+public final class PrefixIndex {
+
+    public static final PrefixIndex EMPTY = new Builder().build();
+
+    private final byte[] terms;
+    private final int[] offsets;
+    private final long[] ids;
+
+    private PrefixIndex(byte[] terms, int[] offsets, long[] ids) {
+        this.terms = terms;
+        this.offsets = offsets;
+        this.ids = ids;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * The first {@code limit} entries whose term starts with the prefix, in term order
+     */
+    public List<Match> search(String prefix, int limit) {
+        byte[] key = normalize(prefix);
+        List<Match> matches = new ArrayList<>(Math.min(limit, 64));
+        for (int i = lowerBound(key); i < ids.length && matches.size() < limit && startsWith(i, key); i++) {
+            matches.add(new Match(new String(terms, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8), ids[i]));
+        }
+        return matches;
+    }
+
+    private int lowerBound(byte[] key) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Arrays.compareUnsigned(terms, offsets[mid], offsets[mid + 1], key, 0, key.length) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean startsWith(int i, byte[] key) {
+        int start = offsets[i];
+        return offsets[i + 1] - start >= key.length
+                && Arrays.equals(terms, start, start + key.length, key, 0, key.length);
+    }
+
+    public static String normalizeTerm(String term) {
+        return term.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static byte[] normalize(String term) {
+        return normalizeTerm(term).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public record Match(String term, long id) {
+    }
+
+    /**
+     * Collects entries in any order; {@link #build()} sorts them once
+     */
+    public static final class Builder {
+
+        private final List<Entry> entries = new ArrayList<>();
+        private long termBytes;
+
+        public Builder add(String term, long id) {
+            if (term != null && !term.isBlank()) {
+                byte[] bytes = normalize(term);
+                entries.add(new Entry(bytes, id));
+                termBytes += bytes.length;
+            }
+            return this;
+        }
+
+        public PrefixIndex build() {
+            if (termBytes > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many terms for one index: " + termBytes + " bytes");
+            }
+            entries.sort((a, b) -> {
+                int byTerm = Arrays.compareUnsigned(a.term(), b.term());
+                return byTerm != 0 ? byTerm : Long.compare(a.id(), b.id());
+            });
+
+            byte[] terms = new byte[(int) termBytes];
+            int[] offsets = new int[entries.size() + 1];
+            long[] ids = new long[entries.size()];
+            int position = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                System.arraycopy(entry.term(), 0, terms, position, entry.term().length);
+                offsets[i] = position;
+                ids[i] = entry.id();
+                position += entry.term().length;
+            }
+            offsets[entries.size()] = position;
+            return new PrefixIndex(terms, offsets, ids);
+        }
+
+        private record Entry(byte[] term, long id) {
+        }
+    }
+}
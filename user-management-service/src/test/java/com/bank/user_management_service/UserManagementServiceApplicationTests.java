@@ -3,7 +3,7 @@ package com.bank.user_management_service;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.ids.node-id=1")
 class UserManagementServiceApplicationTests {
 
 	@Test
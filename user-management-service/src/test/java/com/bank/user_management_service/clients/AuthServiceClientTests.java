@@ -0,0 +1,264 @@
+package com.bank.user_management_service.clients;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.FeignException;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the real client stack against three local auth-service stubs whose health, latency
+ * and status can be changed per test.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:auth-client;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.ids.node-id=1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "jwt.jwks-uri=",
+        "jwt.revocations.uri=",
+        "auth.service-token=service-token",
+        "users.outbox.poll-interval=PT1H",
+        "spring.cloud.loadbalancer.health-check.interval=100ms",
+        "spring.cloud.loadbalancer.health-check.initial-delay=0",
+        "spring.cloud.openfeign.client.config.auth-service.read-timeout=500",
+        "auth-client.circuit-breaker.sliding-window-size=4",
+        "auth-client.circuit-breaker.minimum-number-of-calls=4",
+        "auth-client.circuit-breaker.wait-duration-in-open-state=PT1H",
+        "auth-client.bulkhead.max-concurrent-calls=2",
+        "auth-client.bulkhead.max-wait=PT0S"
+})
+class AuthServiceClientTests {
+
+    private static final List<StubInstance> INSTANCES = List.of(new StubInstance(), new StubInstance(), new StubInstance());
+
+    @Autowired
+    private AuthServiceClient authServiceClient;
+
+    @Autowired
+    private CircuitBreaker authServiceCircuitBreaker;
+
+    @Autowired
+    private Bulkhead authServiceBulkhead;
+
+    @Autowired
+    private LoadBalancerClientFactory loadBalancerClientFactory;
+
+    @DynamicPropertySource
+    static void authServiceInstances(DynamicPropertyRegistry registry) {
+        for (int i = 0; i < INSTANCES.size(); i++) {
+            StubInstance instance = INSTANCES.get(i);
+            registry.add("spring.cloud.discovery.client.simple.instances.auth-service[" + i + "].uri", instance::uri);
+        }
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        INSTANCES.forEach(StubInstance::stop);
+    }
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        INSTANCES.forEach(StubInstance::reset);
+        authServiceCircuitBreaker.reset();
+        awaitHealthyInstances(INSTANCES.size());
+    }
+
+    @Test
+    void callsAreSpreadOverAllHealthyInstances() {
+        for (long userId = 1; userId <= 30; userId++) {
+            authServiceClient.deleteUser(userId);
+        }
+
+        INSTANCES.forEach(instance -> assertTrue(instance.calls.get() > 0, "every instance takes a share of the calls"));
+        assertEquals(30, INSTANCES.stream().mapToInt(instance -> instance.calls.get()).sum());
+    }
+
+    @Test
+    void callsCarryTheServiceToken() {
+        authServiceClient.deleteUser(1L);
+
+        assertTrue(INSTANCES.stream().anyMatch(instance -> "Bearer service-token".equals(instance.authorization.get())));
+    }
+
+    @Test
+    void instanceFailingItsHealthCheckGetsNoCalls() throws InterruptedException {
+        StubInstance sick = INSTANCES.get(2);
+        sick.healthStatus.set(503);
+        awaitHealthyInstances(2);
+
+        for (long userId = 1; userId <= 20; userId++) {
+            authServiceClient.deleteUser(userId);
+        }
+
+        assertEquals(0, sick.calls.get());
+        assertEquals(20, INSTANCES.get(0).calls.get() + INSTANCES.get(1).calls.get());
+    }
+
+    @Test
+    void slowInstanceFailsTheCallAfterTheReadTimeout() {
+        INSTANCES.forEach(instance -> instance.delayMillis.set(2000));
+
+        long start = System.nanoTime();
+        assertThrows(RetryableException.class, () -> authServiceClient.deleteUser(1L));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertTrue(elapsed.compareTo(Duration.ofMillis(1500)) < 0, "gave up after " + elapsed);
+    }
+
+    @Test
+    void circuitOpensAfterRepeatedServerErrorsAndStopsCallingTheInstances() {
+        INSTANCES.forEach(instance -> instance.status.set(500));
+
+        for (long userId = 1; userId <= 4; userId++) {
+            long id = userId;
+            assertThrows(FeignException.InternalServerError.class, () -> authServiceClient.deleteUser(id));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, authServiceCircuitBreaker.getState());
+
+        int callsBefore = INSTANCES.stream().mapToInt(instance -> instance.calls.get()).sum();
+        assertThrows(CallNotPermittedException.class, () -> authServiceClient.deleteUser(5L));
+        assertEquals(callsBefore, INSTANCES.stream().mapToInt(instance -> instance.calls.get()).sum());
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondItsLimit() throws Exception {
+        INSTANCES.forEach(instance -> instance.delayMillis.set(300));
+
+        List<Future<?>> calls = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long userId = 1; userId <= 6; userId++) {
+                long id = userId;
+                calls.add(executor.submit(() -> authServiceClient.deleteUser(id)));
+            }
+        }
+
+        int rejected = 0;
+        for (Future<?> call : calls) {
+            try {
+                call.get();
+            } catch (ExecutionException e) {
+                assertInstanceOf(BulkheadFullException.class, e.getCause());
+                rejected++;
+            }
+        }
+        assertTrue(rejected > 0, "calls beyond the limit are rejected");
+        assertTrue(StubInstance.maxInFlight.get() <= 2, "at most two calls in flight, saw " + StubInstance.maxInFlight.get());
+        assertEquals(2, authServiceBulkhead.getMetrics().getAvailableConcurrentCalls());
+    }
+
+    private void awaitHealthyInstances(int expected) throws InterruptedException {
+        ServiceInstanceListSupplier supplier = loadBalancerClientFactory.getInstance("auth-service", ServiceInstanceListSupplier.class);
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (true) {
+            List<ServiceInstance> healthy = supplier.get().blockFirst(Duration.ofSeconds(5));
+            if (healthy != null && healthy.size() == expected) {
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("expected " + expected + " healthy instances, saw " + healthy);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Local stand-in for one auth-service instance
+     */
+    private static class StubInstance {
+
+        private static final AtomicInteger inFlight = new AtomicInteger();
+        private static final AtomicInteger maxInFlight = new AtomicInteger();
+
+        private final HttpServer server;
+        private final AtomicInteger healthStatus = new AtomicInteger(200);
+        private final AtomicInteger status = new AtomicInteger(200);
+        private final AtomicInteger delayMillis = new AtomicInteger();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicReference<String> authorization = new AtomicReference<>();
+
+        StubInstance() {
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // a slow call must not hold up the health probes
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext("/actuator/health", exchange -> respond(exchange, healthStatus.get(), "{\"status\":\"UP\"}"));
+            server.createContext("/auth/deleteUser/", exchange -> {
+                calls.incrementAndGet();
+                authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(delayMillis.get());
+                    respond(exchange, status.get(), "User deleted successfully in auth-service.");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+            server.start();
+        }
+
+        String uri() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        void reset() {
+            healthStatus.set(200);
+            status.set(200);
+            delayMillis.set(0);
+            calls.set(0);
+            authorization.set(null);
+            maxInFlight.set(0);
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.bank.user_management_service.configuration;
+
+import com.bank.user_management_service.dto.UserSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WebConfigTests {
+
+    @Test
+    void idsAboveTwoToTheFiftyThreeAreWrittenAsStrings() throws Exception {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        new WebConfig().longsAsStrings().customize(builder);
+        ObjectMapper objectMapper = builder.build();
+
+        String json = objectMapper.writeValueAsString(new UserSummary(243_000_000_000_000_001L, "alice", "alice@bank.com"));
+
+        assertEquals("{\"id\":\"243000000000000001\",\"username\":\"alice\",\"email\":\"alice@bank.com\"}", json);
+        assertEquals(243_000_000_000_000_001L, objectMapper.readValue(json, UserSummary.class).id());
+    }
+}
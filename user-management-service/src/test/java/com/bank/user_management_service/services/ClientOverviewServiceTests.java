@@ -0,0 +1,184 @@
+package com.bank.user_management_service.services;
+
+import com.bank.user_management_service.clients.BankingServiceClient;
+import com.bank.user_management_service.dto.ClientOverview;
+import com.bank.user_management_service.dto.OverviewSection;
+import com.bank.user_management_service.model.Role;
+import com.bank.user_management_service.model.Status;
+import com.bank.user_management_service.model.User;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClientOverviewServiceTests {
+
+    private final UserService userService = mock(UserService.class);
+    private final StubBankingService bankingService = new StubBankingService();
+    private ClientOverviewService overviewService;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("client");
+        user.setRole(Role.CLIENT);
+        when(userService.findUserById(7L)).thenReturn(Optional.of(user));
+        overviewService = new ClientOverviewService(userService, bankingService, Duration.ofMillis(500),
+                Duration.ofMillis(500), Duration.ofMillis(500), Duration.ofMillis(500), 20);
+    }
+
+    @Test
+    void lookupsRunInParallel() {
+        bankingService.accounts = () -> slow(300, "accounts");
+        bankingService.cards = () -> slow(300, "cards");
+        bankingService.transactions = () -> slow(300, "transactions");
+
+        long start = System.nanoTime();
+        ClientOverview overview = overviewService.getOverview(7L, "Bearer token").orElseThrow();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals("client", overview.profile().data().getUsername());
+        assertEquals("accounts", overview.accounts().data().asText());
+        assertEquals("cards", overview.cards().data().asText());
+        assertEquals("transactions", overview.transactions().data().asText());
+        assertEquals("Bearer token", bankingService.authorization);
+        assertTrue(elapsed.compareTo(Duration.ofMillis(700)) < 0, "took " + elapsed);
+    }
+
+    @Test
+    void slowLookupTimesOutAndIsCancelledWhileTheOthersAreReturned() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        bankingService.cards = () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return text("late");
+        };
+
+        long start = System.nanoTime();
+        ClientOverview overview = overviewService.getOverview(7L, "Bearer token").orElseThrow();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals(OverviewSection.Outcome.TIMEOUT, overview.cards().status());
+        assertNull(overview.cards().data());
+        assertEquals(OverviewSection.Outcome.OK, overview.profile().status());
+        assertEquals(OverviewSection.Outcome.OK, overview.accounts().status());
+        assertEquals(OverviewSection.Outcome.OK, overview.transactions().status());
+        assertTrue(elapsed.compareTo(Duration.ofMillis(1000)) < 0, "took " + elapsed);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS), "the timed out lookup is interrupted");
+    }
+
+    @Test
+    void failedLookupsAreReportedPerSection() {
+        bankingService.transactions = () -> {
+            Request request = Request.create(Request.HttpMethod.GET, "http://banking-service/banking/transactions/user/7",
+                    Map.of(), null, StandardCharsets.UTF_8, null);
+            throw new FeignException.ServiceUnavailable("unavailable", request, null, Map.of());
+        };
+
+        ClientOverview overview = overviewService.getOverview(7L, "Bearer token").orElseThrow();
+
+        assertEquals(OverviewSection.Outcome.OK, overview.profile().status());
+        assertEquals(OverviewSection.Outcome.FAILED, overview.transactions().status());
+        assertEquals("Banking service answered 503.", overview.transactions().error());
+        assertEquals(OverviewSection.Outcome.OK, overview.accounts().status());
+        assertEquals(OverviewSection.Outcome.OK, overview.cards().status());
+    }
+
+    @Test
+    void onlyActiveClientsHaveAnOverview() throws InterruptedException {
+        User banker = new User(8L, "banker", "banker@bank.test", Role.BANKER, Status.ACTIVE);
+        User deactivated = new User(9L, "gone", "gone@bank.test", Role.CLIENT, Status.DELETED);
+        when(userService.findUserById(8L)).thenAnswer(invocation -> {
+            // long enough for the banking lookups to be under way
+            Thread.sleep(100);
+            return Optional.of(banker);
+        });
+        when(userService.findUserById(9L)).thenReturn(Optional.of(deactivated));
+        when(userService.findUserById(10L)).thenReturn(Optional.empty());
+        CountDownLatch interrupted = new CountDownLatch(1);
+        bankingService.cards = () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return text("late");
+        };
+
+        assertTrue(overviewService.getOverview(8L, "Bearer token").isEmpty());
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS), "the banking lookups are cancelled");
+        bankingService.cards = () -> text("cards");
+        assertTrue(overviewService.getOverview(9L, "Bearer token").isEmpty());
+        assertTrue(overviewService.getOverview(10L, "Bearer token").isEmpty());
+    }
+
+    @Test
+    void failedProfileLookupFailsTheOverview() {
+        when(userService.findUserById(7L)).thenThrow(new RuntimeException("Database unavailable"));
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> overviewService.getOverview(7L, "Bearer token"));
+
+        assertEquals("Client profile lookup failed.", error.getMessage());
+    }
+
+    private static JsonNode slow(long millis, String value) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return text(value);
+    }
+
+    private static JsonNode text(String value) {
+        return JsonNodeFactory.instance.textNode(value);
+    }
+
+    /**
+     * Banking-service stand-in whose answer per lookup can be changed per test
+     */
+    private static class StubBankingService implements BankingServiceClient {
+
+        private volatile Supplier<JsonNode> accounts = () -> text("accounts");
+        private volatile Supplier<JsonNode> cards = () -> text("cards");
+        private volatile Supplier<JsonNode> transactions = () -> text("transactions");
+        private volatile String authorization;
+
+        @Override
+        public JsonNode getAccounts(String authorization, Long userId) {
+            this.authorization = authorization;
+            return accounts.get();
+        }
+
+        @Override
+        public JsonNode getCards(String authorization, Long userId) {
+            return cards.get();
+        }
+
+        @Override
+        public JsonNode getTransactions(String authorization, Long userId, int size) {
+            return transactions.get();
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.bank.user_management_service.services;
+
+import com.bank.user_management_service.clients.AuthServiceClient;
+import com.bank.user_management_service.dto.BulkClientResult;
+import com.bank.user_management_service.dto.UserRequestDTO;
+import com.bank.user_management_service.model.OutboxEvent;
+import com.bank.user_management_service.model.OutboxStatus;
+import com.bank.user_management_service.model.User;
+import com.bank.user_management_service.repositories.OutboxEventRepository;
+import com.bank.user_management_service.repositories.UserChangeRepository;
+import com.bank.user_management_service.repositories.UserRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.ids.node-id=1",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxDispatcherTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserChangeRepository userChangeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+    private final List<String> sentPasswordHashes = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean authServiceUp = new AtomicBoolean(true);
+    private final AtomicBoolean rejectBatches = new AtomicBoolean(false);
+    private final AtomicInteger registrationCalls = new AtomicInteger();
+    private final CountDownLatch registrationReceived = new CountDownLatch(1);
+    private volatile CountDownLatch registrationGate = new CountDownLatch(0);
+    private TransactionTemplate transactionTemplate;
+    private HttpServer server;
+    private AuthServiceClient authServiceClient;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        outboxEventRepository.deleteAll();
+        userRepository.deleteAll();
+
+        // stub of the auth-service endpoints the outbox delivers to
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/auth/register/batch", exchange -> {
+            registrationCalls.incrementAndGet();
+            registrationReceived.countDown();
+            try {
+                registrationGate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!authServiceUp.get()) {
+                respond(exchange, 503, "unavailable");
+                return;
+            }
+            if (rejectBatches.get()) {
+                respond(exchange, 400, "bad request");
+                return;
+            }
+            List<Map<String, Object>> users = objectMapper.readValue(exchange.getRequestBody(), new TypeReference<>() {});
+            List<Map<String, Object>> results = users.stream().map(user -> {
+                boolean accepted = !"rejected".equals(user.get("username"));
+                if (accepted) {
+                    delivered.add("register " + user.get("username"));
+                    sentPasswordHashes.add(String.valueOf(user.get("passwordHash")));
+                }
+                return Map.<String, Object>of("id", user.get("id"), "username", user.get("username"), "success", accepted,
+                        "error", accepted ? "" : "Role is required.");
+            }).toList();
+            respond(exchange, 200, objectMapper.writeValueAsString(results));
+        });
+        server.createContext("/auth/deleteUser/", exchange -> {
+            if (!authServiceUp.get()) {
+                respond(exchange, 503, "unavailable");
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            delivered.add("delete " + path.substring(path.lastIndexOf('/') + 1));
+            respond(exchange, 200, "User deleted successfully in auth-service.");
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+
+        ObjectFactory<HttpMessageConverters> converters = () -> new HttpMessageConverters(new MappingJackson2HttpMessageConverter());
+        authServiceClient = Feign.builder()
+                .contract(new SpringMvcContract())
+                .encoder(new SpringEncoder(converters))
+                .decoder(new ResponseEntityDecoder(new SpringDecoder(converters)))
+                .target(AuthServiceClient.class, "http://localhost:" + server.getAddress().getPort() + "/auth");
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        UserProfileCache userProfileCache = new UserProfileCache(userChangeRepository, transactionTemplate, new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(10), Duration.ofSeconds(5), Duration.ofHours(1));
+        UserSearchIndex userSearchIndex = new UserSearchIndex(userRepository, userChangeRepository, transactionTemplate,
+                new SimpleMeterRegistry(), Duration.ofSeconds(5));
+        userService = new UserService(userRepository, authServiceClient, outboxEventRepository, userProfileCache,
+                userSearchIndex, new BCryptPasswordEncoder(4), transactionTemplate, 500, 2, Duration.ofMinutes(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void createUserQueuesTheRegistrationInsteadOfCallingAuthService() {
+        User alice = userService.createUser(request("alice"));
+
+        assertTrue(delivered.isEmpty());
+        assertEquals(1, outboxEventRepository.count());
+        // only the hash is stored and sent
+        String stored = outboxEventRepository.findAll().getFirst().getPasswordHash();
+        assertTrue(new BCryptPasswordEncoder().matches("alice", stored));
+
+        dispatcher(Duration.ZERO).dispatch();
+
+        assertEquals(List.of("register alice"), delivered);
+        assertEquals(List.of(stored), sentPasswordHashes);
+        assertEquals(0, outboxEventRepository.count());
+        assertTrue(userRepository.existsById(alice.getId()));
+    }
+
+    @Test
+    void eventsOfOneUserAreDeliveredInOrderOnceAuthServiceIsBack() {
+        authServiceUp.set(false);
+        User alice = userService.createUser(request("alice"));
+        userService.deactivateUser(alice.getId());
+        OutboxDispatcher dispatcher = dispatcher(Duration.ZERO);
+
+        dispatcher.dispatch();
+
+        // the deletion waits behind the registration that is backing off
+        assertTrue(delivered.isEmpty());
+        OutboxEvent registration = outboxEventRepository.findAll().stream()
+                .filter(event -> event.getUsername() != null)
+                .findFirst().orElseThrow();
+        assertEquals(1, registration.getAttempts());
+        assertNotNull(registration.getLastError());
+
+        authServiceUp.set(true);
+        dispatcher.dispatch();
+        dispatcher.dispatch();
+
+        assertEquals(List.of("register alice", "delete " + alice.getId()), delivered);
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    void failedEventIsNotRetriedBeforeItsBackoff() {
+        authServiceUp.set(false);
+        userService.createUser(request("alice"));
+        OutboxDispatcher dispatcher = dispatcher(Duration.ofHours(1));
+
+        dispatcher.dispatch();
+        authServiceUp.set(true);
+        dispatcher.dispatch();
+
+        assertTrue(delivered.isEmpty());
+        assertEquals(1, outboxEventRepository.findAll().getFirst().getAttempts());
+    }
+
+    @Test
+    void rejectedRegistrationIsParkedWithoutItsPassword() {
+        userService.createUser(request("rejected"));
+        userService.createUser(request("bob"));
+
+        dispatcher(Duration.ZERO).dispatch();
+
+        assertEquals(List.of("register bob"), delivered);
+        OutboxEvent parked = outboxEventRepository.findAll().getFirst();
+        assertEquals(OutboxStatus.FAILED, parked.getStatus());
+        assertEquals("Role is required.", parked.getLastError());
+        assertNull(parked.getPasswordHash());
+    }
+
+    @Test
+    void eventsClaimedByAnotherInstanceAreLeftAlone() throws Exception {
+        User alice = userService.createUser(request("alice"));
+        userService.deactivateUser(alice.getId());
+        OutboxDispatcher first = dispatcher(Duration.ZERO);
+        OutboxDispatcher second = dispatcher(Duration.ZERO);
+
+        registrationGate = new CountDownLatch(1);
+        CompletableFuture<Void> inFlight = CompletableFuture.runAsync(first::dispatch);
+        assertTrue(registrationReceived.await(5, TimeUnit.SECONDS));
+
+        // the registration is claimed by the first instance and the deletion waits behind it
+        second.dispatch();
+        assertEquals(1, registrationCalls.get());
+        assertTrue(delivered.isEmpty());
+
+        registrationGate.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+        second.dispatch();
+
+        assertEquals(List.of("register alice", "delete " + alice.getId()), delivered);
+        assertEquals(1, registrationCalls.get());
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    void bulkCreationKeepsUsersAndQueuesTheirRegistrationsWhenAuthServiceIsDown() {
+        authServiceUp.set(false);
+
+        List<BulkClientResult> results = userService.createUsers(List.of(request("alice"), request("bob")));
+
+        assertTrue(results.stream().allMatch(BulkClientResult::isSuccess));
+        assertEquals(2, userRepository.count());
+        assertEquals(2, outboxEventRepository.count());
+
+        authServiceUp.set(true);
+        dispatcher(Duration.ZERO).dispatch();
+
+        assertEquals(List.of("register alice", "register bob"), delivered);
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    void bulkCreationRemovesUsersWhenAuthServiceRejectsTheBatch() {
+        rejectBatches.set(true);
+
+        List<BulkClientResult> results = userService.createUsers(List.of(request("alice"), request("bob")));
+
+        assertTrue(results.stream().noneMatch(BulkClientResult::isSuccess));
+        assertEquals(0, userRepository.count());
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    void bulkRegistrationsCommitWithTheUsersAndAreHeldDuringTheCall() throws Exception {
+        registrationGate = new CountDownLatch(1);
+        CompletableFuture<List<BulkClientResult>> inFlight =
+                CompletableFuture.supplyAsync(() -> userService.createUsers(List.of(request("alice"), request("bob"))));
+        assertTrue(registrationReceived.await(5, TimeUnit.SECONDS));
+
+        assertEquals(2, userRepository.count());
+        assertEquals(2, outboxEventRepository.count());
+        // claimed by the bulk call, so the dispatcher does not send them a second time
+        dispatcher(Duration.ZERO).dispatch();
+        assertEquals(1, registrationCalls.get());
+
+        registrationGate.countDown();
+        assertTrue(inFlight.get(5, TimeUnit.SECONDS).stream().allMatch(BulkClientResult::isSuccess));
+        assertEquals(List.of("register alice", "register bob"), delivered);
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    void bulkRegistrationsAreDeliveredByTheOutboxWhenTheCallDiesMidway() {
+        AuthServiceClient crashing = mock(AuthServiceClient.class);
+        when(crashing.registerUsers(any())).thenThrow(new Crash());
+        UserProfileCache userProfileCache = new UserProfileCache(userChangeRepository, transactionTemplate, new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(10), Duration.ofSeconds(5), Duration.ofHours(1));
+        UserSearchIndex userSearchIndex = new UserSearchIndex(userRepository, userChangeRepository, transactionTemplate,
+                new SimpleMeterRegistry(), Duration.ofSeconds(5));
+        UserService dying = new UserService(userRepository, crashing, outboxEventRepository, userProfileCache,
+                userSearchIndex, new BCryptPasswordEncoder(4), transactionTemplate, 500, 2, Duration.ZERO);
+
+        assertThrows(Crash.class, () -> dying.createUsers(List.of(request("alice"), request("bob"))));
+        assertEquals(2, userRepository.count());
+
+        // the claim of the dead call has lapsed
+        dispatcher(Duration.ZERO).dispatch();
+
+        assertEquals(List.of("register alice", "register bob"), delivered);
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+        @Test
+    void backoffDoublesUpToTheMaximum() {
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxEventRepository, authServiceClient, transactionTemplate,
+                new SimpleMeterRegistry(), 200, Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofMinutes(2));
+
+        assertEquals(Duration.ofSeconds(1), dispatcher.backoff(1));
+        assertEquals(Duration.ofSeconds(2), dispatcher.backoff(2));
+        assertEquals(Duration.ofSeconds(4), dispatcher.backoff(3));
+        assertEquals(Duration.ofSeconds(5), dispatcher.backoff(4));
+        assertEquals(Duration.ofSeconds(5), dispatcher.backoff(40));
+    }
+
+    private OutboxDispatcher dispatcher(Duration backoff) {
+        return new OutboxDispatcher(outboxEventRepository, authServiceClient, transactionTemplate, new SimpleMeterRegistry(),
+                200, backoff, backoff, Duration.ofMinutes(2));
+    }
+
+    private UserRequestDTO request(String username) {
+        return new UserRequestDTO(username, username, username + "@bank.test", "CLIENT", username);
+    }
+
+    /**
+     * Stands in for the process stopping during the batch call
+     */
+    private static class Crash extends Error {
+    }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
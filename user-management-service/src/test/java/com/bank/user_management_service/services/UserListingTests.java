@@ -0,0 +1,116 @@
+package com.bank.user_management_service.services;
+
+import com.bank.user_management_service.dto.UserPage;
+import com.bank.user_management_service.dto.UserSummary;
+import com.bank.user_management_service.model.Role;
+import com.bank.user_management_service.model.Status;
+import com.bank.user_management_service.model.User;
+import com.bank.user_management_service.repositories.OutboxEventRepository;
+import com.bank.user_management_service.repositories.UserChangeRepository;
+import com.bank.user_management_service.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.ids.node-id=1",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserListingTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserChangeRepository userChangeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        UserProfileCache userProfileCache = new UserProfileCache(userChangeRepository, transactionTemplate, new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(10), Duration.ofSeconds(5), Duration.ofHours(1));
+        UserSearchIndex userSearchIndex = new UserSearchIndex(userRepository, userChangeRepository, transactionTemplate,
+                new SimpleMeterRegistry(), Duration.ofSeconds(5));
+        userService = new UserService(userRepository, null, outboxEventRepository, userProfileCache, userSearchIndex,
+                new BCryptPasswordEncoder(4), transactionTemplate, 500, 2, Duration.ofMinutes(2));
+    }
+
+    @Test
+    void pagesWalkTheActiveUsersOfARoleOnceEach() {
+        List<Long> clients = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            clients.add(save("client" + i, Role.CLIENT, Status.ACTIVE).getId());
+        }
+        save("banker", Role.BANKER, Status.ACTIVE);
+        save("gone", Role.CLIENT, Status.DELETED);
+
+        List<Long> listed = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserPage page = userService.getUsersByRole(Role.CLIENT, cursor, 3);
+            page.getItems().stream().map(UserSummary::id).forEach(listed::add);
+            pageSizes.add(page.getItems().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(clients, listed);
+        assertEquals(List.of(3, 3, 1), pageSizes);
+    }
+
+    @Test
+    void fullLastPageIsFollowedByAnEmptyOne() {
+        save("client1", Role.CLIENT, Status.ACTIVE);
+        save("client2", Role.CLIENT, Status.ACTIVE);
+
+        UserPage first = userService.getUsersByRole(Role.CLIENT, null, 2);
+        assertNotNull(first.getNextCursor());
+        assertEquals("client1", first.getItems().getFirst().username());
+
+        UserPage second = userService.getUsersByRole(Role.CLIENT, first.getNextCursor(), 2);
+        assertEquals(0, second.getItems().size());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        RuntimeException error = assertThrows(RuntimeException.class, () -> userService.getUsersByRole(Role.CLIENT, "abc", 10));
+        assertEquals("Invalid cursor.", error.getMessage());
+    }
+
+    private User save(String username, Role role, Status status) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@bank.test");
+        user.setRole(role);
+        user.setStatus(status);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,126 @@
+package com.bank.user_management_service.services;
+
+import com.bank.user_management_service.model.Role;
+import com.bank.user_management_service.model.User;
+import com.bank.user_management_service.repositories.OutboxEventRepository;
+import com.bank.user_management_service.repositories.UserChangeRepository;
+import com.bank.user_management_service.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.ids.node-id=1",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserProfileCacheTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserChangeRepository userChangeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        userChangeRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("alice");
+        user.setEmail("alice@bank.test");
+        user.setRole(Role.CLIENT);
+        alice = userRepository.save(user);
+    }
+
+    @Test
+    void repeatedReadsLoadTheProfileOnce() {
+        UserProfileCache cache = cache(Duration.ofHours(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        User first = cache.get(alice.getId(), id -> {
+            loads.incrementAndGet();
+            return userRepository.findById(id).orElseThrow();
+        });
+        User second = cache.get(alice.getId(), id -> {
+            loads.incrementAndGet();
+            return userRepository.findById(id).orElseThrow();
+        });
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+    }
+
+    @Test
+    void updateIsVisibleOnTheSameInstanceRightAway() {
+        UserService userService = userService(cache(Duration.ofHours(1)));
+        userService.getUserById(alice.getId());
+
+        userService.updateUser(alice.getId(), new User(null, "alice", "new@bank.test", null, null));
+
+        assertEquals("new@bank.test", userService.getUserById(alice.getId()).getEmail());
+    }
+
+    @Test
+    void changeOnAnotherInstanceIsPickedUpByThePoll() {
+        UserService instanceA = userService(cache(Duration.ofHours(1)));
+        UserProfileCache cacheB = cache(Duration.ofHours(1));
+        UserService instanceB = userService(cacheB);
+        instanceB.getUserById(alice.getId());
+
+        instanceA.deactivateUser(alice.getId());
+
+        assertEquals("ACTIVE", instanceB.getUserById(alice.getId()).getStatus().name());
+        cacheB.poll();
+        assertEquals("DELETED", instanceB.getUserById(alice.getId()).getStatus().name());
+    }
+
+    @Test
+    void purgeRemovesChangesPastTheRetention() {
+        userService(cache(Duration.ofHours(1))).updateUser(alice.getId(), new User(null, "alice", "new@bank.test", null, null));
+        assertEquals(1, userChangeRepository.count());
+
+        cache(Duration.ofHours(1)).purge();
+        assertEquals(1, userChangeRepository.count());
+
+        cache(Duration.ofSeconds(-1)).purge();
+        assertEquals(0, userChangeRepository.count());
+    }
+
+    private UserProfileCache cache(Duration retention) {
+        return new UserProfileCache(userChangeRepository, new TransactionTemplate(transactionManager), new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(10), Duration.ofSeconds(5), retention);
+    }
+
+    private UserService userService(UserProfileCache cache) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        UserSearchIndex searchIndex = new UserSearchIndex(userRepository, userChangeRepository, transactionTemplate,
+                new SimpleMeterRegistry(), Duration.ofSeconds(5));
+        return new UserService(userRepository, null, outboxEventRepository, cache, searchIndex, new BCryptPasswordEncoder(4),
+                transactionTemplate, 500, 2, Duration.ofMinutes(2));
+    }
+}
@@ -0,0 +1,170 @@
+package com.bank.user_management_service.services;
+
+import com.bank.user_management_service.dto.UserRequestDTO;
+import com.bank.user_management_service.dto.UserSummary;
+import com.bank.user_management_service.model.Role;
+import com.bank.user_management_service.model.Status;
+import com.bank.user_management_service.model.User;
+import com.bank.user_management_service.repositories.OutboxEventRepository;
+import com.bank.user_management_service.repositories.UserChangeRepository;
+import com.bank.user_management_service.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.ids.node-id=1",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserSearchIndexTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private UserChangeRepository userChangeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        userChangeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void rebuiltIndexFindsActiveClientsByUsernameOrEmailPrefix() {
+        save("alice", "alice@bank.test", Role.CLIENT);
+        save("bob", "alfred@bank.test", Role.CLIENT);
+        save("albert", "albert@bank.test", Role.BANKER);
+        UserSearchIndex index = index();
+
+        index.rebuild();
+
+        assertEquals(List.of("bob", "alice"), usernames(index.search("Al", 10)));
+        assertEquals(List.of("alice"), usernames(index.search("alice", 10)));
+        assertEquals(List.of("bob"), usernames(index.search("alf", 10)));
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void changesThroughTheServiceAreSearchableRightAway() {
+        UserSearchIndex index = index();
+        index.rebuild();
+        UserService userService = userService(index);
+
+        User carol = userService.createUser(new UserRequestDTO("carol", "carol", "carol@bank.test", "CLIENT", "secret"));
+        assertEquals(List.of("carol"), usernames(index.search("car", 10)));
+
+        userService.updateUser(carol.getId(), new User(null, "caroline", "caroline@bank.test", null, null));
+        assertEquals(List.of("caroline"), usernames(index.search("carol", 10)));
+        assertEquals(List.of("caroline"), usernames(index.search("caroline@", 10)));
+
+        userService.deactivateUser(carol.getId());
+        assertTrue(index.search("car", 10).isEmpty());
+    }
+
+    @Test
+    void clientCreatedOnAnotherInstanceIsFoundAfterThePoll() {
+        UserSearchIndex local = index();
+        local.rebuild();
+        userService(index()).createUser(new UserRequestDTO("dave", "dave", "dave@bank.test", "CLIENT", "secret"));
+
+        assertTrue(local.search("dav", 10).isEmpty());
+        local.poll();
+        assertEquals(List.of("dave"), usernames(local.search("dav", 10)));
+    }
+
+    @Test
+    void resultsStopAtTheRequestedSize() {
+        for (int i = 0; i < 5; i++) {
+            save("erin" + i, "erin" + i + "@bank.test", Role.CLIENT);
+        }
+        UserSearchIndex index = index();
+        index.rebuild();
+
+        assertEquals(List.of("erin0", "erin1", "erin2"), usernames(index.search("erin", 3)));
+    }
+
+    @Test
+    void deactivatedClientsDoNotTakeResultSlots() {
+        UserService userService = userService(index());
+        List<User> clients = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            clients.add(userService.createUser(new UserRequestDTO("fay" + i, "fay" + i, "fay" + i + "@bank.test", "CLIENT", "secret")));
+        }
+        UserSearchIndex index = index();
+        index.rebuild();
+        UserService local = userService(index);
+
+        for (int i = 0; i < 3; i++) {
+            local.deactivateUser(clients.get(i).getId());
+        }
+
+        assertEquals(List.of("fay3", "fay4"), usernames(index.search("fay", 2)));
+    }
+
+    @Test
+    void scanGoesOnPastEntriesTheDatabaseRejects() {
+        for (int i = 0; i < 6; i++) {
+            save("hal" + i, "hal" + i + "@bank.test", Role.CLIENT);
+        }
+        UserSearchIndex index = index();
+        index.rebuild();
+        // changed on another instance and not polled yet
+        userRepository.findAll().stream()
+                .filter(user -> List.of("hal0", "hal1", "hal2").contains(user.getUsername()))
+                .forEach(user -> {
+                    user.setStatus(Status.SUSPENDED);
+                    userRepository.save(user);
+                });
+
+        assertEquals(List.of("hal3", "hal4"), usernames(index.search("hal", 2)));
+    }
+
+    private UserSearchIndex index() {
+        return new UserSearchIndex(userRepository, userChangeRepository, new TransactionTemplate(transactionManager),
+                new SimpleMeterRegistry(), Duration.ofSeconds(5));
+    }
+
+    private UserService userService(UserSearchIndex index) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        UserProfileCache cache = new UserProfileCache(userChangeRepository, transactionTemplate, new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(10), Duration.ofSeconds(5), Duration.ofHours(1));
+        return new UserService(userRepository, null, outboxEventRepository, cache, index, new BCryptPasswordEncoder(4),
+                transactionTemplate, 500, 2, Duration.ofMinutes(2));
+    }
+
+    private void save(String username, String email, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setRole(role);
+        userRepository.save(user);
+    }
+
+    private static List<String> usernames(List<UserSummary> users) {
+        return users.stream().map(UserSummary::username).toList();
+    }
+}
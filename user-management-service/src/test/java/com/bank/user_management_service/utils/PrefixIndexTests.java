@@ -0,0 +1,41 @@
+package com.bank.user_management_service.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixIndexTests {
+
+    private final PrefixIndex index = new PrefixIndex.Builder()
+            .add("carol", 3)
+            .add("Alice", 1)
+            .add("alice@bank.test", 1)
+            .add("alicia", 2)
+            .add("Ålesund", 5)
+            .add("al", 4)
+            .build();
+
+    @Test
+    void returnsTermsStartingWithThePrefixInOrderIgnoringCase() {
+        List<PrefixIndex.Match> matches = index.search("ALI", 10);
+
+        assertEquals(List.of(new PrefixIndex.Match("alice", 1), new PrefixIndex.Match("alice@bank.test", 1),
+                new PrefixIndex.Match("alicia", 2)), matches);
+    }
+
+    @Test
+    void stopsAtTheLimit() {
+        assertEquals(List.of(new PrefixIndex.Match("al", 4), new PrefixIndex.Match("alice", 1)), index.search("al", 2));
+    }
+
+    @Test
+    void handlesPrefixesPastTheEndAndNonAsciiTerms() {
+        assertTrue(index.search("zed", 10).isEmpty());
+        assertTrue(index.search("alicias", 10).isEmpty());
+        assertEquals(List.of(new PrefixIndex.Match("ålesund", 5)), index.search("Å", 10));
+        assertTrue(PrefixIndex.EMPTY.search("a", 10).isEmpty());
+    }
+}